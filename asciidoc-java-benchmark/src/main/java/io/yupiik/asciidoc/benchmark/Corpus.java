@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic documents used by the benchmarks, generated to stay reproducible without shipping large fixtures.
+ * Each corpus writes its main document (and partials for includes) in a work directory and returns the main document lines.
+ */
+public enum Corpus {
+    SMALL_PAGE {
+        @Override
+        protected List<String> lines(final Path work) {
+            final var lines = header("Small page");
+            for (int i = 0; i < 5; i++) {
+                section(lines, 2, i);
+            }
+            return lines;
+        }
+    },
+    REFERENCE {
+        @Override
+        protected List<String> lines(final Path work) {
+            final var lines = header("Reference manual");
+            lines.add(":toc:");
+            lines.add(":toclevels: 3");
+            lines.add("");
+            for (int i = 0; i < 5_000; i++) {
+                section(lines, i % 10 == 0 ? 2 : 3, i);
+            }
+            return lines;
+        }
+    },
+    TABLES {
+        @Override
+        protected List<String> lines(final Path work) {
+            final var lines = header("Tables");
+            for (int t = 0; t < 20; t++) {
+                lines.add("== Table " + t);
+                lines.add("");
+                lines.add(".Table " + t);
+                lines.add("[cols=\"1,2,1,3,1\",options=\"header\"]");
+                lines.add("|===");
+                lines.add("|Name |Description |Type |Default |Required");
+                for (int r = 0; r < 200; r++) {
+                    lines.add("|name" + r + " |Some description of the entry " + r + " |String |*value" + r + "* |" + (r % 2 == 0));
+                }
+                lines.add("|===");
+                lines.add("");
+            }
+            return lines;
+        }
+    },
+    LARGE_TABLE {
+        @Override
+        protected List<String> lines(final Path work) {
+            final var lines = header("Large table");
+            lines.add("[cols=\"2,3,1,1,1\",options=\"header\"]");
+            lines.add("|===");
+            lines.add("|Key |Description |Type |Default |Required");
+            for (int r = 0; r < 10_000; r++) {
+                lines.add("|my.config.key-" + r + " |Description of key " + r + " |String |default |" + (r % 2 == 0));
+            }
+            lines.add("|===");
+            return lines;
+        }
+    },
+    INCLUDES {
+        @Override
+        protected List<String> lines(final Path work) {
+            try {
+                for (int p = 0; p < 20; p++) {
+                    final var partial = new ArrayList<String>();
+                    section(partial, 3, p);
+                    Files.write(work.resolve("partial-" + p + ".adoc"), partial);
+                }
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            final var lines = header("Includes");
+            for (int i = 0; i < 200; i++) {
+                lines.add("== Chapter " + i);
+                lines.add("");
+                lines.add("include::partial-" + (i % 20) + ".adoc[]");
+                lines.add("");
+            }
+            return lines;
+        }
+    },
+    CALLOUTS {
+        @Override
+        protected List<String> lines(final Path work) {
+            final var lines = header("Callouts");
+            for (int i = 0; i < 500; i++) {
+                lines.add("== Sample " + i);
+                lines.add("");
+                lines.add("[source,java]");
+                lines.add("----");
+                lines.add("public class Sample" + i + " { // <1>");
+                lines.add("    private final String name = \"sample\"; // <2>");
+                lines.add("");
+                lines.add("    public String name() { // <3>");
+                lines.add("        return name;");
+                lines.add("    }");
+                lines.add("}");
+                lines.add("----");
+                lines.add("<1> The class declaration.");
+                lines.add("<2> A *field* with a `default` value.");
+                lines.add("<3> An accessor.");
+                lines.add("");
+            }
+            return lines;
+        }
+    };
+
+    /**
+     * @param work directory where the documents are written.
+     * @return the main document lines (also written as {@code index.adoc} in the work directory).
+     */
+    public List<String> write(final Path work) {
+        final var lines = lines(work);
+        try {
+            Files.write(work.resolve("index.adoc"), lines);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return lines;
+    }
+
+    protected abstract List<String> lines(Path work);
+
+    private static List<String> header(final String title) {
+        final var lines = new ArrayList<String>();
+        lines.add("= " + title);
+        lines.add(":icons: font");
+        lines.add(":product: Yupiik Tools");
+        lines.add("");
+        return lines;
+    }
+
+    private static void section(final List<String> lines, final int level, final int index) {
+        lines.add("=".repeat(level) + " Section " + index);
+        lines.add("");
+        lines.add("This is the *paragraph* of section " + index + " for {product}, see https://www.yupiik.io[Yupiik] or <<section_" + (index + 1) + ">>.");
+        lines.add("It spans multiple lines with `inline code`, _emphasis_ and a footnote:[A note " + index + ".].");
+        lines.add("");
+        lines.add("* first item");
+        lines.add("* second item with **bold** text");
+        lines.add("** nested item");
+        lines.add("");
+        lines.add("NOTE: an admonition for section " + index + ".");
+        lines.add("");
+        lines.add("[source,properties]");
+        lines.add("----");
+        lines.add("key." + index + " = value");
+        lines.add("----");
+        lines.add("");
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.benchmark;
+
+import io.yupiik.asciidoc.model.Document;
+import io.yupiik.asciidoc.parser.Parser;
+import io.yupiik.asciidoc.parser.resolver.ContentResolver;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Generates the selected corpus in a temporary directory and pre-parses it for rendering benchmarks.
+ */
+@State(Scope.Benchmark)
+public class CorpusState {
+    @Param({"SMALL_PAGE", "REFERENCE", "TABLES", "LARGE_TABLE", "INCLUDES", "CALLOUTS"})
+    public Corpus corpus;
+
+    public Path work;
+    public Path main;
+    public List<String> lines;
+    public Parser parser;
+    public Parser.ParserContext context;
+    public Document document;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        work = Files.createTempDirectory("asciidoc-benchmark-");
+        main = work.resolve("index.adoc");
+        lines = corpus.write(work);
+        parser = new Parser();
+        context = new Parser.ParserContext(ContentResolver.of(work));
+        document = parser.parse(main, lines, context);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (final var files = Files.walk(work)) {
+            for (final var file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.benchmark;
+
+import io.yupiik.asciidoc.renderer.html.HtmlEscaping;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EscapingBenchmark {
+    @Benchmark
+    public String apply(final Input input) {
+        return HtmlEscaping.INSTANCE.apply(input.value);
+    }
+
+    @Benchmark
+    public int appendTo(final Input input) {
+        input.output.setLength(0);
+        HtmlEscaping.INSTANCE.appendTo(input.output, input.value);
+        return input.output.length();
+    }
+
+    @State(Scope.Thread)
+    public static class Input {
+        @Param({"PLAIN", "MARKUP", "CODE"})
+        public Kind kind;
+
+        public String value;
+        public StringBuilder output;
+
+        @Setup
+        public void setup() {
+            value = kind.value;
+            output = new StringBuilder(value.length() * 2);
+        }
+    }
+
+    public enum Kind {
+        PLAIN("This is the paragraph of a section describing a configuration entry and its default value."),
+        MARKUP("Use <code>a &amp; b</code> when \"x > y\", see the café résumé – it costs 5 €."),
+        CODE("""
+                public class Sample {
+                    public static void main(final String... args) {
+                        if (args.length > 0 && args[0] != null) {
+                            System.out.println("<" + args[0] + ">");
+                        }
+                    }
+                }
+                """);
+
+        private final String value;
+
+        Kind(final String value) {
+            this.value = value;
+        }
+    }
+}
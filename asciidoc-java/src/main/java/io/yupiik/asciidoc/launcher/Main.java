@@ -16,8 +16,11 @@
 package io.yupiik.asciidoc.launcher;
 
 import io.yupiik.asciidoc.model.Document;
+import io.yupiik.asciidoc.parser.DocumentCache;
+import io.yupiik.asciidoc.parser.IncrementalParser;
 import io.yupiik.asciidoc.parser.Parser;
 import io.yupiik.asciidoc.parser.resolver.ContentResolver;
+import io.yupiik.asciidoc.parser.resolver.IncludeCache;
 import io.yupiik.asciidoc.renderer.html.AsciidoctorLikeHtmlRenderer;
 
 import java.io.IOException;
@@ -40,12 +43,15 @@ public final class Main {
         }
 
         final var attributes = new HashMap<String, String>();
+        final var includeCache = new IncludeCache();
         ContentResolver resolver = null;
         AsciidoctorLikeHtmlRenderer.Configuration configuration = new AsciidoctorLikeHtmlRenderer.Configuration();
         Path input = null;
         Path output = null;
 
         long watch = -1;
+        Path cacheDirectory = null;
+        long cacheMaxSize = 256 * 1024 * 1024;
         for (int i = 0; i < args.length; i++) {
             if ("-a".equals(args[i]) || "--attribute".equals(args[i])) {
                 final int sep = args[i + 1].indexOf('=');
@@ -60,7 +66,7 @@ public final class Main {
             } else if ("-b".equals(args[i]) || "--base".equals(args[i])) {
                 final var base = Path.of(args[i + 1]);
                 configuration.setAssetsBase(base);
-                resolver = ContentResolver.of(base);
+                resolver = ContentResolver.of(base, includeCache);
                 i++;
             } else if ("--data-attribute".equals(args[i])) {
                 configuration.setSupportDataAttributes(Boolean.parseBoolean(args[i + 1]));
@@ -77,6 +83,12 @@ public final class Main {
             } else if ("--watch".equals(args[i])) {
                 watch = Long.parseLong(args[i + 1]);
                 i++;
+            } else if ("--cache".equals(args[i])) {
+                cacheDirectory = Path.of(args[i + 1]);
+                i++;
+            } else if ("--cache-max-size".equals(args[i])) {
+                cacheMaxSize = Long.parseLong(args[i + 1]);
+                i++;
             }
         }
 
@@ -85,7 +97,7 @@ public final class Main {
         }
         if (resolver == null) {
             final var parent = input.toAbsolutePath().getParent().normalize();
-            resolver = ContentResolver.of(parent);
+            resolver = ContentResolver.of(parent, includeCache);
             configuration.setAssetsBase(parent);
         }
 
@@ -93,13 +105,24 @@ public final class Main {
         final var parser = new Parser();
         configuration.setAttributes(attributes).setAssetsBase(input.getParent());
         if (watch <= 0) {
-            doRender(input, parser, resolver, configuration, output, logger);
+            final Document document;
+            if (cacheDirectory != null) { // skips the parsing if the document and its includes did not change since last run
+                final var cache = new DocumentCache(cacheDirectory, cacheMaxSize);
+                document = cache.parse(parser, input, new Parser.ParserContext(resolver));
+                logger.fine(cache::toString);
+            } else {
+                document = parser.parse(input, new Parser.ParserContext(resolver));
+            }
+            doRender(input, document, configuration, output, logger);
         } else {
+            final var incrementalParser = new IncrementalParser(parser, new Parser.ParserContext(resolver));
             FileTime lastModified = null;
             while (true) {
                 final var newLastModified = Files.getLastModifiedTime(input);
                 if (lastModified == null || !Objects.equals(lastModified, newLastModified)) {
-                    doRender(input, parser, resolver, configuration, output, logger);
+                    final var document = incrementalParser.parse(input, Files.readAllLines(input));
+                    logger.fine(() -> "Parsed " + incrementalParser.reparsedBlocks() + "/" + incrementalParser.blocks() + " blocks, " + includeCache);
+                    doRender(input, document, configuration, output, logger);
                     lastModified = newLastModified;
                 } else if (output != null) {
                     logger.finest(() -> "No change detected");
@@ -114,26 +137,23 @@ public final class Main {
         }
     }
 
-    private static void doRender(final Path input, final Parser parser, final ContentResolver resolver,
+    private static void doRender(final Path input, final Document document,
                                  final AsciidoctorLikeHtmlRenderer.Configuration configuration,
                                  final Path output, final Logger logger) throws IOException {
-        final Document document;
-        try (final var reader = Files.newBufferedReader(input)) {
-            document = parser.parse(reader, new Parser.ParserContext(resolver));
-        }
-
         final var html = new AsciidoctorLikeHtmlRenderer(configuration);
-        html.visit(document);
         if (output != null) {
-            Files.writeString(output, html.result());
+            try (final var writer = Files.newBufferedWriter(output)) {
+                html.visit(document, writer);
+            }
             logger.info(() -> "Rendered '" + input + "'");
 
         } else {
-            System.out.println(html.result());
+            html.visit(document, System.out);
+            System.out.println();
         }
     }
 
     private static String error() {
-        return "Usage:\n\nasciidoc-java --input file.adoc [--base includeBasePath/] [--output output.html] [--attribute myattribute=myvalue]*";
+        return "Usage:\n\nasciidoc-java --input file.adoc [--base includeBasePath/] [--output output.html] [--attribute myattribute=myvalue]* [--cache cacheDirectory/ [--cache-max-size bytes]]";
     }
 }
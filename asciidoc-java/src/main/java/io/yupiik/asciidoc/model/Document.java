@@ -15,5 +15,16 @@
  */
 package io.yupiik.asciidoc.model;
 
-public record Document(Header header, Body body) {
+/**
+ * A parsed document.
+ *
+ * @param header the document header.
+ * @param body   the document content.
+ * @param index  the identified elements of the document, see {@link DocumentIndex}.
+ *               The {@code (header, body)} constructor computes it lazily from the body.
+ */
+public record Document(Header header, Body body, DocumentIndex index) {
+    public Document(final Header header, final Body body) {
+        this(header, body, DocumentIndex.of(body));
+    }
 }
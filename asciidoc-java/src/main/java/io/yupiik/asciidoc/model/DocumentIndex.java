@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.model;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Index of the identified elements of a document (sections, floating titles, paragraphs) and their plain text label.
+ * It enables to resolve a cross reference without visiting the document.
+ * <p>
+ * The index of a parsed document is computed once, on first access, and then shared by all the renderings of the document.
+ * Indices of several documents can be merged to resolve cross document references (ex: for a site).
+ */
+public final class DocumentIndex {
+    private final Body body;
+    private final Function<Element, String> plainText;
+    private volatile Map<String, String> labels;
+
+    private DocumentIndex(final Body body, final Function<Element, String> plainText, final Map<String, String> labels) {
+        this.body = body;
+        this.plainText = plainText;
+        this.labels = labels;
+    }
+
+    /**
+     * @param body the body to index.
+     * @return an index computed on first access.
+     */
+    public static DocumentIndex of(final Body body) {
+        return of(body, DocumentIndex::plainText);
+    }
+
+    /**
+     * @param body      the body to index.
+     * @param plainText how to compute the label of an element (title, paragraph), it is stripped.
+     * @return an index computed on first access.
+     */
+    public static DocumentIndex of(final Body body, final Function<Element, String> plainText) {
+        return new DocumentIndex(body, plainText, null);
+    }
+
+    /**
+     * @param labels the label of each id.
+     * @return an index for the provided labels.
+     */
+    public static DocumentIndex of(final Map<String, String> labels) {
+        return new DocumentIndex(null, null, Map.copyOf(labels));
+    }
+
+    /**
+     * @param id the element identifier.
+     * @return the element label or {@code null} if the id is not indexed.
+     */
+    public String label(final String id) {
+        return labels().get(id);
+    }
+
+    /**
+     * @return the label of each id.
+     */
+    public Map<String, String> labels() {
+        var current = labels;
+        if (current == null) {
+            synchronized (this) {
+                current = labels;
+                if (current == null) {
+                    final var catalog = new HashMap<String, String>();
+                    index(body.children(), catalog, plainText);
+                    labels = current = Map.copyOf(catalog);
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Merges another document index, its ids are prefixed by {@code page#} as in a cross document reference
+     * ({@code xref:other.adoc#id[]} targets {@code other.html#id} with the default suffix).
+     *
+     * @param page  the page of the other document as it appears in the rendered references.
+     * @param other the index of the other document.
+     * @return a new index with the ids of this document and the prefixed ids of the other one.
+     */
+    public DocumentIndex merge(final String page, final DocumentIndex other) {
+        final var merged = new HashMap<>(labels());
+        for (final var entry : other.labels().entrySet()) {
+            merged.putIfAbsent(page + '#' + entry.getKey(), entry.getValue());
+        }
+        return new DocumentIndex(null, null, Map.copyOf(merged));
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return this == o || (o instanceof DocumentIndex other && labels().equals(other.labels()));
+    }
+
+    @Override
+    public int hashCode() {
+        return labels().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "DocumentIndex[labels=" + labels() + "]";
+    }
+
+    private static void index(final List<Element> children, final Map<String, String> catalog,
+                              final Function<Element, String> plainText) {
+        for (final var child : children) {
+            switch (child.type()) {
+                case SECTION -> {
+                    final var s = (Section) child;
+                    final var id = s.options().get("id");
+                    if (id != null) {
+                        catalog.putIfAbsent(id, plainText.apply(s.title()).strip());
+                    }
+                    index(s.children(), catalog, plainText);
+                }
+                case FLOATING_TITLE -> {
+                    final var ft = (FloatingTitle) child;
+                    final var id = ft.options().get("id");
+                    if (id != null) {
+                        catalog.putIfAbsent(id, plainText.apply(ft.title()).strip());
+                    }
+                }
+                case OPEN_BLOCK -> index(((OpenBlock) child).children(), catalog, plainText);
+                case QUOTE -> index(((Quote) child).children(), catalog, plainText);
+                case PARAGRAPH -> {
+                    final var p = (Paragraph) child;
+                    final var id = p.options().get("id");
+                    if (id != null) {
+                        catalog.putIfAbsent(id, plainText.apply(p).strip());
+                    }
+                }
+                default -> {
+                    // not indexed
+                }
+            }
+        }
+    }
+
+    /**
+     * @param element the element to extract the text from.
+     * @return the plain text of the element (text, paragraph, code, link and macro labels), empty for other elements.
+     */
+    public static String plainText(final Element element) {
+        return switch (element.type()) {
+            case TEXT -> ((Text) element).value();
+            case PARAGRAPH -> {
+                final var sb = new StringBuilder();
+                for (final var child : ((Paragraph) element).children()) {
+                    sb.append(plainText(child));
+                }
+                yield sb.toString();
+            }
+            case CODE -> ((Code) element).value();
+            case LINK -> plainText(((Link) element).label());
+            case MACRO -> ((Macro) element).label();
+            default -> "";
+        };
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.parser;
+
+import io.yupiik.asciidoc.model.ConditionalBlock;
+import io.yupiik.asciidoc.parser.internal.AttributeTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * An {@code ifeval} expression compiled once: operands are unquoted and split in literal and attribute segments,
+ * constant numbers are parsed upfront so an evaluation does not re-parse the expression.
+ * Compiled expressions are immutable and kept in a bounded least recently used cache keyed by expression text
+ * ({@link #compile(String)}).
+ * <p>
+ * {@link #select(ConditionalBlock, List)} evaluates a conditional block for a set of variants
+ * (same document rendered with different attributes) at once, the operands which do not depend on the variant
+ * are only resolved once.
+ */
+public final class CompiledCondition {
+    private static final int MAX_CACHED = 512;
+    private static final Map<String, CompiledCondition> CACHE = new LinkedHashMap<>(16, .75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, CompiledCondition> eldest) {
+            return size() > MAX_CACHED; // least recently used, generated expressions can be unique
+        }
+    };
+
+    private final String expression;
+    private final Operator operator;
+    private final Operand left;
+    private final Operand right;
+
+    private CompiledCondition(final String expression, final Operator operator, final Operand left, final Operand right) {
+        this.expression = expression;
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    /**
+     * @param expression the {@code ifeval} expression (ex: {@code {version} >= 2}).
+     * @return the compiled expression, shared for a given expression text while it is cached.
+     */
+    public static CompiledCondition compile(final String expression) {
+        synchronized (CACHE) {
+            final var existing = CACHE.get(expression);
+            if (existing != null) {
+                return existing;
+            }
+        }
+
+        final int sep1 = expression.indexOf(' ');
+        if (sep1 < 0) {
+            throw new IllegalArgumentException("Unknown expression: '" + expression + "'");
+        }
+        final int sep2 = expression.lastIndexOf(' ');
+        if (sep2 == sep1) {
+            throw new IllegalArgumentException("Unknown expression: '" + expression + "'");
+        }
+
+        final var compiled = new CompiledCondition(
+                expression,
+                Operator.of(expression.substring(sep1 + 1, sep2).strip()),
+                Operand.of(stripQuotes(expression.substring(0, sep1).strip())),
+                Operand.of(stripQuotes(expression.substring(sep2).strip())));
+        synchronized (CACHE) {
+            final var concurrent = CACHE.putIfAbsent(expression, compiled);
+            return concurrent == null ? compiled : concurrent;
+        }
+    }
+
+    /**
+     * Selects the branch of a conditional block to render for each variant.
+     *
+     * @param block    the conditional block.
+     * @param variants the attributes of each variant.
+     * @return for each variant, {@code 0} if the main branch matches, {@code i + 1} if the else branch {@code i} matches
+     * and {@code -1} if nothing is rendered.
+     */
+    public static int[] select(final ConditionalBlock block, final List<? extends ConditionalBlock.Context> variants) {
+        final var selected = new int[variants.size()];
+        final var main = test(block.evaluator(), variants);
+        int remaining = 0;
+        for (int i = 0; i < selected.length; i++) {
+            selected[i] = main[i] ? 0 : -1;
+            if (!main[i]) {
+                remaining++;
+            }
+        }
+
+        final var branches = block.elseBranches();
+        for (int b = 0; b < branches.size() && remaining > 0; b++) {
+            final var pending = new ArrayList<ConditionalBlock.Context>(remaining);
+            for (int i = 0; i < selected.length; i++) {
+                if (selected[i] < 0) {
+                    pending.add(variants.get(i));
+                }
+            }
+
+            final var matches = test(branches.get(b).evaluator(), pending);
+            int idx = 0;
+            for (int i = 0; i < selected.length; i++) {
+                if (selected[i] < 0 && matches[idx++]) {
+                    selected[i] = b + 1;
+                    remaining--;
+                }
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * @param evaluator a conditional block evaluator.
+     * @param variants  the attributes of each variant.
+     * @return the evaluation of the predicate for each variant.
+     */
+    public static boolean[] test(final Predicate<ConditionalBlock.Context> evaluator, final List<? extends ConditionalBlock.Context> variants) {
+        if (evaluator instanceof ConditionalBlock.Ifeval ifeval && ifeval.evaluator() instanceof Parser.Condition condition) {
+            return condition.test(variants);
+        }
+        final var out = new boolean[variants.size()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = evaluator.test(variants.get(i));
+        }
+        return out;
+    }
+
+    public String expression() {
+        return expression;
+    }
+
+    /**
+     * @param context           the rendering attributes.
+     * @param parsingAttributes the attributes at parsing time, they take precedence over the rendering ones.
+     * @param globalAttributes  the parser attributes, used when an attribute is not defined.
+     * @return the evaluation of the expression.
+     */
+    public boolean test(final ConditionalBlock.Context context, final Map<String, String> parsingAttributes,
+                        final Map<String, String> globalAttributes) {
+        final Function<String, String> attributes = attributes(context, parsingAttributes);
+        return operator.test(
+                left.resolve(attributes, globalAttributes), left.number,
+                right.resolve(attributes, globalAttributes), right.number);
+    }
+
+    /**
+     * Batch flavor of {@link #test(ConditionalBlock.Context, Map, Map)}.
+     *
+     * @param variants          the rendering attributes of each variant.
+     * @param parsingAttributes the attributes at parsing time, they take precedence over the rendering ones.
+     * @param globalAttributes  the parser attributes, used when an attribute is not defined.
+     * @return the evaluation of the expression for each variant.
+     */
+    public boolean[] test(final List<? extends ConditionalBlock.Context> variants, final Map<String, String> parsingAttributes,
+                          final Map<String, String> globalAttributes) {
+        final var fixedAttributes = attributes(key -> null, parsingAttributes);
+        final var fixedLeft = isFixed(left, parsingAttributes) ? left.resolve(fixedAttributes, globalAttributes) : null;
+        final var fixedRight = isFixed(right, parsingAttributes) ? right.resolve(fixedAttributes, globalAttributes) : null;
+        final var out = new boolean[variants.size()];
+        for (int i = 0; i < out.length; i++) {
+            final var attributes = fixedLeft != null && fixedRight != null ? null : attributes(variants.get(i), parsingAttributes);
+            out[i] = operator.test(
+                    fixedLeft != null ? fixedLeft : left.resolve(attributes, globalAttributes), left.number,
+                    fixedRight != null ? fixedRight : right.resolve(attributes, globalAttributes), right.number);
+        }
+        return out;
+    }
+
+    // an operand is the same for all variants if all its attributes are known at parsing time
+    private boolean isFixed(final Operand operand, final Map<String, String> parsingAttributes) {
+        if (!operand.template.hasAttributes()) {
+            return true;
+        }
+        return operator.usesParsingAttributes && operand.template.isDefinedBy(parsingAttributes);
+    }
+
+    private Function<String, String> attributes(final ConditionalBlock.Context context, final Map<String, String> parsingAttributes) {
+        if (!operator.usesParsingAttributes || parsingAttributes.isEmpty()) {
+            return context::attribute;
+        }
+        // ensure levels and implicit attributes are well evaluated
+        return key -> {
+            final var value = parsingAttributes.get(key);
+            return value != null ? value : context.attribute(key);
+        };
+    }
+
+    private static String stripQuotes(final String strip) {
+        return strip.startsWith("\"") && strip.endsWith("\"") && strip.length() > 1 ? strip.substring(1, strip.length() - 1) : strip;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledCondition[" + expression + "]";
+    }
+
+    private enum Operator {
+        EQ(true), NE(true),
+        LT(false), // historically only evaluated with the rendering attributes
+        LE(true), GT(true), GE(true);
+
+        private final boolean usesParsingAttributes;
+
+        Operator(final boolean usesParsingAttributes) {
+            this.usesParsingAttributes = usesParsingAttributes;
+        }
+
+        private static Operator of(final String operator) {
+            return switch (operator) {
+                case "==" -> EQ;
+                case "!=" -> NE;
+                case "<" -> LT;
+                case "<=" -> LE;
+                case ">" -> GT;
+                case ">=" -> GE;
+                default -> throw new IllegalArgumentException("Unknown operator '" + operator + "'");
+            };
+        }
+
+        private boolean test(final String left, final Double leftNumber, final String right, final Double rightNumber) {
+            return switch (this) {
+                case EQ -> Objects.equals(left, right);
+                case NE -> !Objects.equals(left, right);
+                case LT -> number(left, leftNumber) < number(right, rightNumber);
+                case LE -> number(left, leftNumber) <= number(right, rightNumber);
+                case GT -> number(left, leftNumber) > number(right, rightNumber);
+                case GE -> number(left, leftNumber) >= number(right, rightNumber);
+            };
+        }
+
+        private double number(final String value, final Double constant) {
+            return constant != null ? constant : Double.parseDouble(value);
+        }
+    }
+
+    private static final class Operand {
+        private final AttributeTemplate template;
+        private final Double number;
+
+        private Operand(final AttributeTemplate template, final Double number) {
+            this.template = template;
+            this.number = number;
+        }
+
+        private static Operand of(final String value) {
+            final var template = AttributeTemplate.of(value);
+            if (template.hasAttributes()) {
+                return new Operand(template, null);
+            }
+
+            Double number;
+            try {
+                number = Double.parseDouble(value);
+            } catch (final NumberFormatException nfe) { // fails at evaluation time if used as a number
+                number = null;
+            }
+            return new Operand(template, number);
+        }
+
+        private String resolve(final Function<String, String> attributes, final Map<String, String> globalAttributes) {
+            return template.resolve(attributes, globalAttributes);
+        }
+    }
+}
@@ -0,0 +1,386 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.parser;
+
+import io.yupiik.asciidoc.model.Document;
+import io.yupiik.asciidoc.parser.internal.CacheFiles;
+import io.yupiik.asciidoc.parser.internal.LineClassifier;
+import io.yupiik.asciidoc.parser.internal.MappedLines;
+import io.yupiik.asciidoc.parser.internal.Reader;
+import io.yupiik.asciidoc.parser.resolver.ContentResolver;
+import io.yupiik.asciidoc.parser.resolver.RelativeContentResolver;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Persistent cache of parsed documents, it enables to skip the parsing of unchanged documents between builds.
+ * <p>
+ * Entries are keyed by the document content, its path, the global attributes of the parser and a stamp of the codec
+ * format and of all the parser and model classes so a new version invalidates them.
+ * Included files are recorded during the parsing and re-resolved when an entry is read, if one changed the document
+ * is parsed again.
+ * <p>
+ * The directory size is bounded, least recently used entries are evicted first.
+ * Documents using custom conditions or attribute evaluators are parsed but not cached.
+ */
+public class DocumentCache {
+    private static final int MAGIC = 0x59414331; // YAC1
+    private static final String EXTENSION = ".adocbin";
+    private static final String STAMP = computeStamp();
+
+    private final Path directory;
+    private final long maxSize;
+    private final AtomicLong size = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param directory where to store the entries.
+     * @param maxSize   the maximum size in bytes of the entries.
+     */
+    public DocumentCache(final Path directory, final long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        try {
+            Files.createDirectories(directory);
+            try (final var entries = Files.list(directory)) {
+                size.set(entries.filter(it -> it.getFileName().toString().endsWith(EXTENSION)).mapToLong(this::sizeOf).sum());
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException("Can't initialize cache '" + directory + "'", e);
+        }
+    }
+
+    /**
+     * Same as {@link #parse(Parser, Path, List, Parser.ParserContext)} for a file, its lines are read on demand
+     * (see {@link Parser#parse(Path, Parser.ParserContext)}).
+     *
+     * @param parser   the parser to use if needed.
+     * @param document the document to parse, it must not be modified during the parsing.
+     * @param context  the parsing context.
+     * @return the parsed document.
+     */
+    public Document parse(final Parser parser, final Path document, final Parser.ParserContext context) {
+        return parse(parser, document, MappedLines.of(document), context);
+    }
+
+    /**
+     * Loads the document from the cache if it is up to date or parses and stores it.
+     *
+     * @param parser   the parser to use if needed.
+     * @param document the document path if it exists (for includes).
+     * @param input    the document lines.
+     * @param context  the parsing context.
+     * @return the parsed document.
+     */
+    public Document parse(final Parser parser, final Path document, final List<String> input, final Parser.ParserContext context) {
+        final var entry = directory.resolve(key(parser, document, input) + EXTENSION);
+        final var cached = read(entry, parser, context.resolver());
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        if (context.resolver() == null) { // no include possible
+            final var parsed = parser.parse(document, input, context);
+            write(entry, List.of(), parsed);
+            return parsed;
+        }
+
+        final var recorder = new RecordingResolver(context.resolver());
+        final var parsed = parser.parse(document, input, new Parser.ParserContext(recorder));
+        recorder.close();
+        write(entry, recorder.includes, parsed);
+        return parsed;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the size in bytes of the cache entries.
+     */
+    public long size() {
+        return size.get();
+    }
+
+    public synchronized void clear() {
+        evict(0);
+    }
+
+    @Override
+    public String toString() {
+        return "DocumentCache[directory=" + directory + ", hits=" + hits() + ", misses=" + misses() + ", size=" + size() + ']';
+    }
+
+    private Document read(final Path entry, final Parser parser, final ContentResolver resolver) {
+        try (final var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+            if (in.readInt() != MAGIC || in.readInt() != DocumentCodec.VERSION) {
+                return null;
+            }
+            final int includes = DocumentCodec.readVarInt(in);
+            for (int i = 0; i < includes; i++) {
+                final var parent = in.readBoolean() ? Path.of(in.readUTF()) : null;
+                final var ref = in.readUTF();
+                final var encoding = Charset.forName(in.readUTF());
+                final var hash = in.readBoolean() ? in.readUTF() : null;
+                if (!Objects.equals(hash, hash(resolve(resolver, parent, ref, encoding).orElse(null)))) {
+                    return null;
+                }
+            }
+            final var document = DocumentCodec.read(in, parser, resolver);
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis())); // LRU
+            return document;
+        } catch (final IOException | RuntimeException e) { // missing, corrupted or concurrently evicted entry, just parse again
+            return null;
+        }
+    }
+
+    private void write(final Path entry, final List<Include> includes, final Document document) {
+        try {
+            final long previous = Files.exists(entry) ? sizeOf(entry) : 0;
+            CacheFiles.write(entry, out -> {
+                out.writeInt(MAGIC);
+                out.writeInt(DocumentCodec.VERSION);
+                DocumentCodec.writeVarInt(out, includes.size());
+                for (final var include : includes) {
+                    out.writeBoolean(include.parent() != null);
+                    if (include.parent() != null) {
+                        out.writeUTF(include.parent().toString());
+                    }
+                    out.writeUTF(include.ref());
+                    out.writeUTF(include.encoding().name());
+                    out.writeBoolean(include.hash() != null);
+                    if (include.hash() != null) {
+                        out.writeUTF(include.hash());
+                    }
+                }
+                DocumentCodec.write(document, out);
+            });
+            if (size.addAndGet(sizeOf(entry) - previous) > maxSize) {
+                synchronized (this) {
+                    evict(maxSize);
+                }
+            }
+        } catch (final IOException | IllegalArgumentException | UncheckedIOException e) { // not serializable or I/O error, cache is best effort
+            // no-op
+        }
+    }
+
+    private void evict(final long targetSize) {
+        final List<Path> entries;
+        try (final var files = Files.list(directory)) {
+            entries = files
+                    .filter(it -> it.getFileName().toString().endsWith(EXTENSION))
+                    .sorted((a, b) -> lastModified(a).compareTo(lastModified(b)))
+                    .toList();
+        } catch (final IOException e) {
+            throw new IllegalStateException("Can't list cache '" + directory + "'", e);
+        }
+
+        long total = entries.stream().mapToLong(this::sizeOf).sum();
+        for (final var entry : entries) {
+            if (total <= targetSize) {
+                break;
+            }
+            final long entrySize = sizeOf(entry);
+            try {
+                if (Files.deleteIfExists(entry)) {
+                    total -= entrySize;
+                }
+            } catch (final IOException e) {
+                // can be in use, ignore
+            }
+        }
+        size.set(total);
+    }
+
+    private long sizeOf(final Path file) {
+        try {
+            return Files.size(file);
+        } catch (final IOException e) {
+            return 0;
+        }
+    }
+
+    private FileTime lastModified(final Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (final IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private String key(final Parser parser, final Path document, final List<String> input) {
+        final var digest = sha256();
+        digest.update(STAMP.getBytes(UTF_8));
+        digest.update((byte) 0);
+        if (document != null) {
+            digest.update(document.toAbsolutePath().normalize().toString().getBytes(UTF_8));
+        }
+        digest.update((byte) 0);
+        for (final var attribute : new TreeMap<>(parser.globalAttributes()).entrySet()) {
+            digest.update(attribute.getKey().getBytes(UTF_8));
+            digest.update((byte) '=');
+            digest.update(String.valueOf(attribute.getValue()).getBytes(UTF_8));
+            digest.update((byte) '\n');
+        }
+        digest.update((byte) 0);
+        return HexFormat.of().formatHex(update(digest, input).digest());
+    }
+
+    private static Optional<List<String>> resolve(final ContentResolver resolver, final Path parent,
+                                                  final String ref, final Charset encoding) {
+        return resolver instanceof RelativeContentResolver r ?
+                r.resolve(parent, ref, encoding).map(RelativeContentResolver.Resolved::content) :
+                resolver.resolve(ref, encoding);
+    }
+
+    private static String hash(final List<String> lines) {
+        return lines == null ? null : HexFormat.of().formatHex(update(sha256(), lines).digest());
+    }
+
+    private static MessageDigest update(final MessageDigest digest, final List<String> lines) {
+        for (final var line : lines) {
+            digest.update(line.getBytes(UTF_8));
+            digest.update((byte) '\n');
+        }
+        return digest;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // the parsing logic is in these classes, any change of their bytecode invalidates the entries
+    private static String computeStamp() {
+        final var digest = sha256();
+        digest.update(Integer.toString(DocumentCodec.VERSION).getBytes(UTF_8));
+        final var codeSource = Parser.class.getProtectionDomain().getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null || !"file".equals(codeSource.getLocation().getProtocol())) {
+            // unusual classloader, at least track the classes shaping the parsing and the cached model
+            for (final var type : List.of(Parser.class, Reader.class, LineClassifier.class, DocumentCodec.class, Document.class)) {
+                try (final var in = type.getResourceAsStream(type.getSimpleName() + ".class")) {
+                    if (in == null) {
+                        throw new IllegalStateException("Can't find bytecode of " + type);
+                    }
+                    digest.update(in.readAllBytes());
+                } catch (final IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        }
+
+        try {
+            final var location = Path.of(codeSource.getLocation().toURI());
+            if (Files.isDirectory(location)) {
+                stampPackages(location, digest);
+            } else {
+                try (final var jar = FileSystems.newFileSystem(location)) {
+                    stampPackages(jar.getPath("/"), digest);
+                }
+            }
+        } catch (final IOException | URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // hash all the classes of the parser (subpackages included) and model packages, sorted to be deterministic
+    private static void stampPackages(final Path root, final MessageDigest digest) throws IOException {
+        final var classes = new TreeMap<String, Path>();
+        for (final var pkg : List.of("io/yupiik/asciidoc/parser", "io/yupiik/asciidoc/model")) {
+            final var base = root.resolve(pkg);
+            if (!Files.isDirectory(base)) {
+                throw new IllegalStateException("Can't find package " + pkg + " in " + root);
+            }
+            try (final var files = Files.walk(base)) {
+                files
+                        .filter(it -> it.getFileName() != null && it.getFileName().toString().endsWith(".class"))
+                        .forEach(it -> classes.put(root.relativize(it).toString().replace('\\', '/'), it));
+            }
+        }
+        for (final var entry : classes.entrySet()) {
+            digest.update(entry.getKey().getBytes(UTF_8));
+            digest.update(Files.readAllBytes(entry.getValue()));
+        }
+    }
+
+    private record Include(Path parent, String ref, Charset encoding, String hash) {
+    }
+
+    /**
+     * Records the includes resolved during a parsing to be able to validate them when reading the entry.
+     */
+    private static class RecordingResolver implements RelativeContentResolver {
+        private final ContentResolver delegate;
+        private final List<Include> includes = new ArrayList<>();
+        private volatile boolean closed;
+
+        private RecordingResolver(final ContentResolver delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Optional<Resolved> resolve(final Path parent, final String ref, final Charset encoding) {
+            final var resolved = delegate instanceof RelativeContentResolver r ?
+                    r.resolve(parent, ref, encoding) :
+                    delegate.resolve(ref, encoding).map(it -> new Resolved(parent, it));
+            if (!closed) {
+                synchronized (includes) {
+                    includes.add(new Include(parent, ref, encoding, hash(resolved.map(Resolved::content).orElse(null))));
+                }
+            }
+            return resolved;
+        }
+
+        private void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,524 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.parser;
+
+import io.yupiik.asciidoc.model.Admonition;
+import io.yupiik.asciidoc.model.Anchor;
+import io.yupiik.asciidoc.model.Attribute;
+import io.yupiik.asciidoc.model.Author;
+import io.yupiik.asciidoc.model.Body;
+import io.yupiik.asciidoc.model.CallOut;
+import io.yupiik.asciidoc.model.Code;
+import io.yupiik.asciidoc.model.ConditionalBlock;
+import io.yupiik.asciidoc.model.DescriptionList;
+import io.yupiik.asciidoc.model.Document;
+import io.yupiik.asciidoc.model.Element;
+import io.yupiik.asciidoc.model.FloatingTitle;
+import io.yupiik.asciidoc.model.Header;
+import io.yupiik.asciidoc.model.HorizontalRule;
+import io.yupiik.asciidoc.model.LineBreak;
+import io.yupiik.asciidoc.model.Link;
+import io.yupiik.asciidoc.model.Listing;
+import io.yupiik.asciidoc.model.Macro;
+import io.yupiik.asciidoc.model.OpenBlock;
+import io.yupiik.asciidoc.model.OrderedList;
+import io.yupiik.asciidoc.model.PageBreak;
+import io.yupiik.asciidoc.model.Paragraph;
+import io.yupiik.asciidoc.model.PassthroughBlock;
+import io.yupiik.asciidoc.model.Quote;
+import io.yupiik.asciidoc.model.Revision;
+import io.yupiik.asciidoc.model.Section;
+import io.yupiik.asciidoc.model.Table;
+import io.yupiik.asciidoc.model.Text;
+import io.yupiik.asciidoc.model.UnOrderedList;
+import io.yupiik.asciidoc.parser.resolver.ContentResolver;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Binary (de)serialization of a parsed {@link Document}.
+ * Strings and maps are written once and referenced by index after, it keeps the attribute scopes shared
+ * between {@link Attribute} elements shared after the deserialization.
+ * Enums are written by name so the model can evolve without breaking existing entries silently.
+ */
+final class DocumentCodec {
+    static final int VERSION = 1;
+
+    private DocumentCodec() {
+        // no-op
+    }
+
+    /**
+     * @param document the document to write.
+     * @param out      the output.
+     * @throws IOException              if the output fails.
+     * @throws IllegalArgumentException if the document contains custom evaluators which can't be serialized.
+     */
+    static void write(final Document document, final DataOutput out) throws IOException {
+        new Encoder(out).document(document);
+    }
+
+    static Document read(final DataInput in, final Parser parser, final ContentResolver resolver) throws IOException {
+        return new Decoder(in, parser, resolver).document();
+    }
+
+    static void writeVarInt(final DataOutput out, final int value) throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            out.writeByte((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out.writeByte(remaining);
+    }
+
+    static int readVarInt(final DataInput in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        while (shift < 32) {
+            final byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+        throw new IllegalStateException("Invalid varint");
+    }
+
+    private static final class Encoder {
+        private final DataOutput out;
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final Map<Map<String, String>, Integer> maps = new IdentityHashMap<>();
+
+        private Encoder(final DataOutput out) {
+            this.out = out;
+        }
+
+        private void document(final Document document) throws IOException {
+            final var header = document.header();
+            string(header.title());
+            if (header.author() == null) {
+                writeVarInt(out, 0);
+            } else {
+                writeVarInt(out, header.author().size() + 1);
+                for (final var author : header.author()) {
+                    string(author.name());
+                    string(author.mail());
+                }
+            }
+            final var revision = header.revision();
+            out.writeBoolean(revision != null);
+            if (revision != null) {
+                string(revision.number());
+                string(revision.date());
+                string(revision.revmark());
+            }
+            map(header.attributes());
+            elements(document.body().children());
+        }
+
+        private void elements(final List<Element> elements) throws IOException {
+            if (elements == null) {
+                writeVarInt(out, 0);
+                return;
+            }
+            writeVarInt(out, elements.size() + 1);
+            for (final var element : elements) {
+                element(element);
+            }
+        }
+
+        private void element(final Element element) throws IOException {
+            if (element == null) {
+                string(null);
+                return;
+            }
+            string(element.type().name());
+            switch (element.type()) {
+                case ATTRIBUTE -> {
+                    final var attribute = (Attribute) element;
+                    if (!(attribute.evaluator() instanceof Parser.AttributeEvaluator evaluator)) {
+                        throw new IllegalArgumentException("Unsupported attribute evaluator: " + attribute.evaluator());
+                    }
+                    string(attribute.attribute());
+                    string(evaluator.enclosingDocument() == null ? null : evaluator.enclosingDocument().toString());
+                    map(evaluator.attributes());
+                }
+                case PARAGRAPH -> {
+                    final var paragraph = (Paragraph) element;
+                    elements(paragraph.children());
+                    map(paragraph.options());
+                }
+                case SECTION -> {
+                    final var section = (Section) element;
+                    writeVarInt(out, section.level());
+                    element(section.title());
+                    elements(section.children());
+                    map(section.options());
+                }
+                case LINE_BREAK -> {
+                    // no data
+                }
+                case PAGE_BREAK -> map(((PageBreak) element).options());
+                case CODE -> {
+                    final var code = (Code) element;
+                    string(code.value());
+                    if (code.callOuts() == null) {
+                        writeVarInt(out, 0);
+                    } else {
+                        writeVarInt(out, code.callOuts().size() + 1);
+                        for (final var callOut : code.callOuts()) {
+                            writeVarInt(out, callOut.number());
+                            element(callOut.text());
+                        }
+                    }
+                    map(code.options());
+                    out.writeBoolean(code.inline());
+                }
+                case UNORDERED_LIST -> {
+                    final var list = (UnOrderedList) element;
+                    elements(list.children());
+                    map(list.options());
+                }
+                case ORDERED_LIST -> {
+                    final var list = (OrderedList) element;
+                    elements(list.children());
+                    map(list.options());
+                }
+                case DESCRIPTION_LIST -> {
+                    final var list = (DescriptionList) element;
+                    writeVarInt(out, list.children().size());
+                    for (final var entry : list.children().entrySet()) {
+                        element(entry.getKey());
+                        element(entry.getValue());
+                    }
+                    map(list.options());
+                }
+                case LINK -> {
+                    final var link = (Link) element;
+                    string(link.url());
+                    element(link.label());
+                    map(link.options());
+                }
+                case TEXT -> {
+                    final var text = (Text) element;
+                    writeVarInt(out, text.style().size());
+                    for (final var style : text.style()) {
+                        string(style.name());
+                    }
+                    string(text.value());
+                    map(text.options());
+                }
+                case LISTING -> {
+                    final var listing = (Listing) element;
+                    string(listing.value());
+                    map(listing.options());
+                }
+                case MACRO -> {
+                    final var macro = (Macro) element;
+                    string(macro.name());
+                    string(macro.label());
+                    map(macro.options());
+                    out.writeBoolean(macro.inline());
+                }
+                case ADMONITION -> {
+                    final var admonition = (Admonition) element;
+                    string(admonition.level().name());
+                    element(admonition.content());
+                    map(admonition.options());
+                }
+                case ANCHOR -> {
+                    final var anchor = (Anchor) element;
+                    string(anchor.value());
+                    string(anchor.label());
+                }
+                case TABLE -> {
+                    final var table = (Table) element;
+                    writeVarInt(out, table.elements().size());
+                    for (final var row : table.elements()) {
+                        elements(row);
+                    }
+                    map(table.options());
+                }
+                case OPEN_BLOCK -> {
+                    final var block = (OpenBlock) element;
+                    elements(block.children());
+                    map(block.options());
+                }
+                case QUOTE -> {
+                    final var quote = (Quote) element;
+                    elements(quote.children());
+                    map(quote.options());
+                }
+                case PASS_BLOCK -> {
+                    final var block = (PassthroughBlock) element;
+                    string(block.value());
+                    map(block.options());
+                }
+                case CONDITIONAL_BLOCK -> conditional((ConditionalBlock) element);
+                case HORIZONTAL_RULE -> map(((HorizontalRule) element).options());
+                case FLOATING_TITLE -> {
+                    final var title = (FloatingTitle) element;
+                    writeVarInt(out, title.level());
+                    element(title.title());
+                    map(title.options());
+                }
+            }
+        }
+
+        private void conditional(final ConditionalBlock block) throws IOException {
+            final var evaluator = block.evaluator();
+            if (evaluator == Parser.ELSE_BRANCH) {
+                string("else");
+            } else if (evaluator instanceof ConditionalBlock.Ifdef ifdef) {
+                string("ifdef");
+                string(ifdef.attribute());
+            } else if (evaluator instanceof ConditionalBlock.Ifndef ifndef) {
+                string("ifndef");
+                string(ifndef.attribute());
+            } else if (evaluator instanceof ConditionalBlock.Ifeval ifeval && ifeval.evaluator() instanceof Parser.Condition condition) {
+                string("ifeval");
+                string(condition.expression());
+                map(condition.attributes());
+            } else {
+                throw new IllegalArgumentException("Unsupported condition: " + evaluator);
+            }
+            elements(block.children());
+            writeVarInt(out, block.elseBranches().size());
+            for (final var branch : block.elseBranches()) {
+                conditional(branch);
+            }
+            map(block.options());
+        }
+
+        // 0 = null, 1 = new value, n = reference to the value #n-2
+        private void string(final String value) throws IOException {
+            if (value == null) {
+                writeVarInt(out, 0);
+                return;
+            }
+            final var existing = strings.get(value);
+            if (existing != null) {
+                writeVarInt(out, existing + 2);
+                return;
+            }
+            strings.put(value, strings.size());
+            writeVarInt(out, 1);
+            final var bytes = value.getBytes(UTF_8);
+            writeVarInt(out, bytes.length);
+            out.write(bytes);
+        }
+
+        // same encoding than strings but maps are deduplicated by identity
+        private void map(final Map<String, String> map) throws IOException {
+            if (map == null) {
+                writeVarInt(out, 0);
+                return;
+            }
+            final var existing = maps.get(map);
+            if (existing != null) {
+                writeVarInt(out, existing + 2);
+                return;
+            }
+            maps.put(map, maps.size());
+            writeVarInt(out, 1);
+            writeVarInt(out, map.size());
+            for (final var entry : map.entrySet()) {
+                string(entry.getKey());
+                string(entry.getValue());
+            }
+        }
+    }
+
+    private static final class Decoder {
+        private final DataInput in;
+        private final Parser parser;
+        private final ContentResolver resolver;
+        private final List<String> strings = new ArrayList<>();
+        private final List<Map<String, String>> maps = new ArrayList<>();
+
+        private Decoder(final DataInput in, final Parser parser, final ContentResolver resolver) {
+            this.in = in;
+            this.parser = parser;
+            this.resolver = resolver;
+        }
+
+        private Document document() throws IOException {
+            final var title = string();
+            final int authorCount = readVarInt(in);
+            final List<Author> authors;
+            if (authorCount == 0) {
+                authors = null;
+            } else {
+                authors = new ArrayList<>(authorCount - 1);
+                for (int i = 1; i < authorCount; i++) {
+                    authors.add(new Author(string(), string()));
+                }
+            }
+            final var revision = in.readBoolean() ? new Revision(string(), string(), string()) : null;
+            final var attributes = map();
+            return new Document(new Header(title, authors, revision, attributes), new Body(elements()));
+        }
+
+        private List<Element> elements() throws IOException {
+            final int size = readVarInt(in);
+            if (size == 0) {
+                return null;
+            }
+            final var elements = new ArrayList<Element>(size - 1);
+            for (int i = 1; i < size; i++) {
+                elements.add(element());
+            }
+            return elements;
+        }
+
+        private Element element() throws IOException {
+            final var type = string();
+            if (type == null) {
+                return null;
+            }
+            return switch (Element.ElementType.valueOf(type)) {
+                case ATTRIBUTE -> {
+                    final var name = string();
+                    final var enclosingDocument = string();
+                    yield new Attribute(name, new Parser.AttributeEvaluator(
+                            parser, enclosingDocument == null ? null : Path.of(enclosingDocument), resolver, map()));
+                }
+                case PARAGRAPH -> new Paragraph(elements(), map());
+                case SECTION -> new Section(readVarInt(in), element(), elements(), map());
+                case LINE_BREAK -> new LineBreak();
+                case PAGE_BREAK -> new PageBreak(map());
+                case CODE -> {
+                    final var value = string();
+                    final int size = readVarInt(in);
+                    final List<CallOut> callOuts;
+                    if (size == 0) {
+                        callOuts = null;
+                    } else {
+                        callOuts = new ArrayList<>(size - 1);
+                        for (int i = 1; i < size; i++) {
+                            callOuts.add(new CallOut(readVarInt(in), element()));
+                        }
+                    }
+                    yield new Code(value, callOuts, map(), in.readBoolean());
+                }
+                case UNORDERED_LIST -> new UnOrderedList(elements(), map());
+                case ORDERED_LIST -> new OrderedList(elements(), map());
+                case DESCRIPTION_LIST -> {
+                    final int size = readVarInt(in);
+                    final var children = new LinkedHashMap<Element, Element>(size);
+                    for (int i = 0; i < size; i++) {
+                        children.put(element(), element());
+                    }
+                    yield new DescriptionList(children, map());
+                }
+                case LINK -> new Link(string(), element(), map());
+                case TEXT -> {
+                    final int size = readVarInt(in);
+                    final var styles = new ArrayList<Text.Style>(size);
+                    for (int i = 0; i < size; i++) {
+                        styles.add(Text.Style.valueOf(string()));
+                    }
+                    yield new Text(styles, string(), map());
+                }
+                case LISTING -> new Listing(string(), map());
+                case MACRO -> new Macro(string(), string(), map(), in.readBoolean());
+                case ADMONITION -> new Admonition(Admonition.Level.valueOf(string()), element(), map());
+                case ANCHOR -> new Anchor(string(), string());
+                case TABLE -> {
+                    final int size = readVarInt(in);
+                    final var rows = new ArrayList<List<Element>>(size);
+                    for (int i = 0; i < size; i++) {
+                        rows.add(elements());
+                    }
+                    yield new Table(rows, map());
+                }
+                case OPEN_BLOCK -> new OpenBlock(elements(), map());
+                case QUOTE -> new Quote(elements(), map());
+                case PASS_BLOCK -> new PassthroughBlock(string(), map());
+                case CONDITIONAL_BLOCK -> conditional();
+                case HORIZONTAL_RULE -> new HorizontalRule(map());
+                case FLOATING_TITLE -> new FloatingTitle(readVarInt(in), element(), map());
+            };
+        }
+
+        private ConditionalBlock conditional() throws IOException {
+            final var type = string();
+            final Predicate<ConditionalBlock.Context> evaluator = switch (type) {
+                case "else" -> Parser.ELSE_BRANCH;
+                case "ifdef" -> new ConditionalBlock.Ifdef(string());
+                case "ifndef" -> new ConditionalBlock.Ifndef(string());
+                case "ifeval" -> new ConditionalBlock.Ifeval(parser.parseCondition(string(), map()));
+                default -> throw new IllegalStateException("Unknown condition type: '" + type + "'");
+            };
+            final var children = elements();
+            final int size = readVarInt(in);
+            final var elseBranches = new ArrayList<ConditionalBlock>(size);
+            for (int i = 0; i < size; i++) {
+                elseBranches.add(conditional());
+            }
+            return new ConditionalBlock(evaluator, children, elseBranches, map());
+        }
+
+        private String string() throws IOException {
+            final int index = readVarInt(in);
+            if (index == 0) {
+                return null;
+            }
+            if (index > 1) {
+                return strings.get(index - 2);
+            }
+            final var bytes = new byte[readVarInt(in)];
+            in.readFully(bytes);
+            final var value = new String(bytes, UTF_8);
+            strings.add(value);
+            return value;
+        }
+
+        private Map<String, String> map() throws IOException {
+            final int index = readVarInt(in);
+            if (index == 0) {
+                return null;
+            }
+            if (index > 1) {
+                return maps.get(index - 2);
+            }
+            final int size = readVarInt(in);
+            if (size == 0) {
+                maps.add(Map.of());
+                return Map.of();
+            }
+            final var map = new LinkedHashMap<String, String>(size);
+            maps.add(map); // register before reading the entries to keep the same indices than the encoder
+            for (int i = 0; i < size; i++) {
+                map.put(string(), string());
+            }
+            return map;
+        }
+    }
+}
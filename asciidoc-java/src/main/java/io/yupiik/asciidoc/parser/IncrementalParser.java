@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.parser;
+
+import io.yupiik.asciidoc.model.Body;
+import io.yupiik.asciidoc.model.Document;
+import io.yupiik.asciidoc.model.Element;
+import io.yupiik.asciidoc.model.Header;
+import io.yupiik.asciidoc.parser.internal.Reader;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps the state of the last parsing of a document to only re-parse the top level blocks (mostly sections) impacted by a change.
+ * <p>
+ * Blocks ending before the first changed line are reused, parsing restarts at the first impacted block
+ * and stops as soon as it reaches the start of a previous block located after the last changed line with the same attributes,
+ * remaining blocks are then reused. Blocks containing an include are always re-parsed since the included content can change.
+ * Changes in the header or on comment block delimiters trigger a full parsing.
+ * <p>
+ * It is not thread safe, use one instance per watched document.
+ */
+public class IncrementalParser {
+    private static final int LOOKAHEAD = 2; // lines a block can read after its end (end of section test, options line)
+
+    private final Parser parser;
+    private final Parser.ParserContext context;
+
+    private Path document;
+    private List<String> lines;
+    private Header header;
+    private int bodyStart;
+    private boolean incremental;
+    private List<Block> blocks;
+    private Map<String, String> endAttributes;
+    private Document result;
+    private int reparsedBlocks;
+
+    public IncrementalParser(final Parser parser, final Parser.ParserContext context) {
+        this.parser = parser;
+        this.context = context;
+    }
+
+    /**
+     * @return number of blocks parsed by the last {@link #parse(Path, List)} call.
+     */
+    public int reparsedBlocks() {
+        return reparsedBlocks;
+    }
+
+    /**
+     * @return number of top level blocks of the last parsed document.
+     */
+    public int blocks() {
+        return blocks == null ? 0 : blocks.size();
+    }
+
+    public Document parse(final Path document, final List<String> input) {
+        if (result == null || !incremental || !Objects.equals(document, this.document)) {
+            return fullParse(document, input);
+        }
+
+        final int prefix = commonPrefix(lines, input);
+        if (prefix == input.size() && prefix == lines.size()) { // no change
+            reparsedBlocks = 0;
+            return result;
+        }
+        if (prefix < bodyStart + LOOKAHEAD) { // header changed
+            return fullParse(document, input);
+        }
+
+        final int suffix = commonSuffix(lines, input, prefix);
+        if (hasCommentBlockDelimiter(lines, prefix, lines.size() - suffix) || hasCommentBlockDelimiter(input, prefix, input.size() - suffix)) {
+            // comment blocks are matched on the whole document by the reader so it can impact any block
+            return fullParse(document, input);
+        }
+
+        final int delta = input.size() - lines.size();
+
+        int first = 0;
+        while (first < blocks.size() && blocks.get(first).end() + LOOKAHEAD <= prefix && !blocks.get(first).hasInclude()) {
+            first++;
+        }
+
+        // previous blocks fully in the unchanged tail can be reused, by start line
+        int lastInclude = -1;
+        for (int i = blocks.size() - 1; i >= first; i--) {
+            if (blocks.get(i).hasInclude()) {
+                lastInclude = i;
+                break;
+            }
+        }
+        final var reusable = new HashMap<Integer, Integer>();
+        final int unchangedTail = lines.size() - suffix;
+        for (int i = Math.max(first, lastInclude + 1); i < blocks.size(); i++) {
+            if (blocks.get(i).start() >= unchangedTail) {
+                reusable.put(blocks.get(i).start(), i);
+            }
+        }
+
+        final int start = first < blocks.size() ? blocks.get(first).start() : (blocks.isEmpty() ? bodyStart : blocks.get(blocks.size() - 1).end());
+        final var attributes = new HashMap<>(first < blocks.size() ? blocks.get(first).attributes() : endAttributes);
+        final var newBlocks = new ArrayList<>(blocks.subList(0, first));
+        final var reader = new Reader(input.subList(start, input.size()));
+        reparsedBlocks = 0;
+        Map<String, String> snapshot = null;
+        while (true) {
+            final int position = start + reader.getLineNumber() - 1;
+            final var reuse = reusable.get(position - delta);
+            if (reuse != null && blocks.get(reuse).attributes().equals(attributes)) {
+                for (final var block : blocks.subList(reuse, blocks.size())) {
+                    newBlocks.add(new Block(block.start() + delta, block.end() + delta, block.attributes(), block.scope(), block.elements(), block.hasInclude()));
+                }
+                attributes.clear();
+                attributes.putAll(endAttributes);
+                break;
+            }
+            if (position >= input.size()) {
+                break;
+            }
+
+            snapshot = snapshot != null && snapshot.equals(attributes) ? snapshot : new HashMap<>(attributes);
+            final var elements = parse(reader, attributes);
+            final int end = start + reader.getLineNumber() - 1;
+            if (end == position) { // only comments or empty lines
+                break;
+            }
+            newBlocks.add(new Block(position, end, snapshot, attributes, elements, hasInclude(input, position, end)));
+            reparsedBlocks++;
+        }
+
+        // a sequential parsing shares a single attributes map which is read when attribute elements are evaluated (rendering)
+        // so ensure reused blocks, bound to the map of a previous parsing, see the final attributes too
+        final var scopes = Collections.newSetFromMap(new IdentityHashMap<Map<String, String>, Boolean>());
+        for (final var block : newBlocks) {
+            if (block.scope() != attributes && scopes.add(block.scope())) {
+                block.scope().clear();
+                block.scope().putAll(attributes);
+            }
+        }
+        return update(document, input, header, bodyStart, newBlocks, attributes);
+    }
+
+    private Document fullParse(final Path document, final List<String> input) {
+        final var reader = new Reader(input);
+        final Header header;
+        try {
+            header = parser.parseHeader(document, reader, context);
+        } catch (final RuntimeException re) {
+            throw new IllegalStateException("Invalid state at line #" + reader.getLineNumber(), re);
+        }
+
+        final int bodyStart = reader.getLineNumber() - 1;
+        final var attributes = new HashMap<>(header.attributes());
+        final var blocks = new ArrayList<Block>();
+        Map<String, String> snapshot = null;
+        while (true) {
+            final int position = reader.getLineNumber() - 1;
+            if (position >= input.size()) {
+                break;
+            }
+            snapshot = snapshot != null && snapshot.equals(attributes) ? snapshot : new HashMap<>(attributes);
+            final var elements = parse(reader, attributes);
+            final int end = reader.getLineNumber() - 1;
+            if (end == position) {
+                break;
+            }
+            blocks.add(new Block(position, end, snapshot, attributes, elements, hasInclude(input, position, end)));
+        }
+        reparsedBlocks = blocks.size();
+
+        // header directives (conditions, includes) can insert lines so line numbers would not match the input anymore
+        incremental = !hasDirective(input, 0, Math.min(bodyStart, input.size()));
+        return update(document, input, header, bodyStart, blocks, attributes);
+    }
+
+    private List<Element> parse(final Reader reader, final Map<String, String> attributes) {
+        try {
+            return parser.parseNextBlock(reader, context.resolver(), attributes);
+        } catch (final RuntimeException re) {
+            throw new IllegalStateException("Invalid state at line #" + reader.getLineNumber(), re);
+        }
+    }
+
+    private Document update(final Path document, final List<String> input, final Header header, final int bodyStart,
+                            final List<Block> blocks, final Map<String, String> attributes) {
+        this.document = document;
+        this.lines = List.copyOf(input); // input can be mutated by the caller
+        this.header = header;
+        this.bodyStart = bodyStart;
+        this.blocks = blocks;
+        this.endAttributes = attributes;
+        this.result = new Document(header, new Body(blocks.stream()
+                .flatMap(it -> it.elements().stream())
+                .toList()));
+        return result;
+    }
+
+    private boolean hasInclude(final List<String> input, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            if (input.get(i).contains("include::")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasCommentBlockDelimiter(final List<String> input, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            if (input.get(i).startsWith("////")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasDirective(final List<String> input, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            final var line = input.get(i);
+            if (line.startsWith("include::") || line.startsWith("ifdef::") || line.startsWith("ifndef::") || line.startsWith("ifeval::")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int commonPrefix(final List<String> previous, final List<String> current) {
+        final int max = Math.min(previous.size(), current.size());
+        int i = 0;
+        while (i < max && previous.get(i).equals(current.get(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private int commonSuffix(final List<String> previous, final List<String> current, final int prefix) {
+        final int max = Math.min(previous.size(), current.size()) - prefix;
+        int i = 0;
+        while (i < max && previous.get(previous.size() - 1 - i).equals(current.get(current.size() - 1 - i))) {
+            i++;
+        }
+        return i;
+    }
+
+    // lines [start, end) of the document (0-based), attributes are the ones before the block parsing,
+    // scope is the (mutable) map the block was parsed with
+    private record Block(int start, int end, Map<String, String> attributes, Map<String, String> scope,
+                         List<Element> elements, boolean hasInclude) {
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.parser;
+
+import io.yupiik.asciidoc.model.Body;
+import io.yupiik.asciidoc.model.Document;
+import io.yupiik.asciidoc.model.Element;
+import io.yupiik.asciidoc.model.Header;
+import io.yupiik.asciidoc.parser.internal.Reader;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses the body of a document by chunks of top level sections in a fork join pool.
+ * <p>
+ * A pre-scan splits the body before top level section titles which are outside of delimited blocks and conditional blocks
+ * and preceded by an empty line (and not by options or a block title).
+ * Each chunk is parsed with the attributes the sequential parsing would have when reaching it, computed by applying
+ * attribute definitions and section implicit attributes in document order.
+ * Since some definitions can't be known before parsing (includes, nested blocks, conditions), the attributes at the end of
+ * each chunk are compared, in document order, with the ones used to parse the next chunk which is parsed again if they differ.
+ * <p>
+ * This way the result is always the same as a sequential parsing.
+ */
+final class ParallelParser {
+    private static final int MIN_CHUNK_LINES = 256;
+    private static final Set<String> DELIMITERS = Set.of("----", "....", "====", "****", "++++", "____", "--", "```", "////");
+
+    private final Parser parser;
+    private final Parser.ParserContext context;
+    private final ForkJoinPool pool;
+
+    ParallelParser(final Parser parser, final Parser.ParserContext context, final ForkJoinPool pool) {
+        this.parser = parser;
+        this.context = context;
+        this.pool = pool;
+    }
+
+    Document parse(final Path document, final List<String> input) {
+        final var reader = new Reader(input);
+        final Header header;
+        try {
+            header = parser.parseHeader(document, reader, context);
+        } catch (final RuntimeException re) {
+            throw new IllegalStateException("Invalid state at line #" + reader.getLineNumber(), re);
+        }
+
+        final int bodyStart = reader.getLineNumber() - 1;
+        // header directives (conditions, includes) can insert lines so the body would not start at this line anymore
+        final var chunks = hasDirective(input, Math.min(bodyStart, input.size())) ?
+                List.<Chunk>of() :
+                split(input, bodyStart, header.attributes());
+        if (chunks.size() < 2) {
+            return parser.parse(document, input, context);
+        }
+
+        final var tasks = new ArrayList<ForkJoinTask<ParsedChunk>>(chunks.size());
+        for (final var chunk : chunks) {
+            tasks.add(pool.submit(() -> parse(input, chunk)));
+        }
+
+        final var elements = new ArrayList<Element>();
+        final var scopes = new ArrayList<Map<String, String>>(chunks.size());
+        try {
+            Map<String, String> attributes = null; // attributes at the end of the previous chunk
+            for (int i = 0; i < tasks.size(); i++) {
+                final var chunk = chunks.get(i);
+                final ParsedChunk parsed;
+                if (attributes != null && !attributes.equals(chunk.attributes())) {
+                    // an include or a nested block changed attributes, parse the chunk again with the actual ones
+                    tasks.get(i).cancel(false);
+                    parsed = parse(input, new Chunk(chunk.start(), chunk.end(), attributes));
+                } else {
+                    parsed = tasks.get(i).join();
+                }
+                elements.addAll(parsed.elements());
+                scopes.add(parsed.attributes());
+                attributes = parsed.attributes();
+            }
+        } catch (final RuntimeException re) { // let the sequential parsing report the error with the right line
+            for (final var task : tasks) {
+                task.cancel(false);
+            }
+            return parser.parse(document, input, context);
+        }
+
+        // a sequential parsing shares a single attributes map which is read when attribute elements are evaluated (rendering)
+        // so ensure all chunks see the final attributes too
+        final var attributes = scopes.get(scopes.size() - 1);
+        for (int i = 0; i < scopes.size() - 1; i++) {
+            final var scope = scopes.get(i);
+            scope.clear();
+            scope.putAll(attributes);
+        }
+        return new Document(header, new Body(elements));
+    }
+
+    private ParsedChunk parse(final List<String> input, final Chunk chunk) {
+        final var attributes = new HashMap<>(chunk.attributes());
+        final var body = parser.parseBody(new Reader(input.subList(chunk.start(), chunk.end())), context.resolver(), attributes);
+        return new ParsedChunk(body.children(), attributes);
+    }
+
+    private List<Chunk> split(final List<String> input, final int bodyStart, final Map<String, String> headerAttributes) {
+        // first pass: find the top level of the body and the lines which can start a chunk
+        final var candidates = new ArrayList<Integer>();
+        int topLevel = Integer.MAX_VALUE;
+        String delimiter = null;
+        int conditions = 0;
+        for (int i = bodyStart; i < input.size(); i++) {
+            final var line = input.get(i);
+            if (line.contains("leveloffset")) { // shifts section levels so boundaries can't be computed from the lines
+                return List.of();
+            }
+
+            final var stripped = line.strip();
+            if (delimiter != null) {
+                if (delimiter.equals(stripped)) {
+                    delimiter = null;
+                }
+                continue;
+            }
+            if (stripped.startsWith("{")) { // attributes are replaced before the line is parsed so it can become a title or a delimiter
+                return List.of();
+            }
+            if (DELIMITERS.contains(stripped) || stripped.startsWith("|===")) {
+                if ("////".equals(stripped) && i + 1 < input.size() && input.get(i + 1).startsWith("////")) {
+                    return List.of(); // the reader does not handle empty comment blocks as other blocks
+                }
+                delimiter = stripped;
+                continue;
+            }
+            if (stripped.startsWith("ifdef::") || stripped.startsWith("ifndef::") || stripped.startsWith("ifeval::")) {
+                conditions++;
+                continue;
+            }
+            if (stripped.startsWith("endif::")) {
+                conditions--;
+                continue;
+            }
+
+            final int level = sectionLevel(stripped);
+            if (level > 0) {
+                topLevel = Math.min(topLevel, level);
+                if (conditions == 0 && line.startsWith("=") && i > bodyStart && input.get(i - 1).isBlank() && canStartChunk(input, bodyStart, i)) {
+                    candidates.add(i);
+                }
+            }
+        }
+        if (delimiter != null || conditions != 0) { // unclosed block, let the sequential parsing handle it
+            return List.of();
+        }
+
+        // keep top level boundaries and group them to get chunks big enough to be worth a task
+        final int minLines = Math.max(MIN_CHUNK_LINES, (input.size() - bodyStart) / (pool.getParallelism() * 4));
+        final var starts = new ArrayList<Integer>();
+        starts.add(bodyStart);
+        for (final int candidate : candidates) {
+            if (sectionLevel(input.get(candidate)) == topLevel && candidate - starts.get(starts.size() - 1) >= minLines) {
+                starts.add(candidate);
+            }
+        }
+        if (starts.size() < 2) {
+            return List.of();
+        }
+
+        // second pass: attributes at the start of each chunk
+        final var chunks = new ArrayList<Chunk>(starts.size());
+        final var attributes = new HashMap<>(headerAttributes);
+        int index = 0;
+        delimiter = null;
+        for (int i = bodyStart; i < input.size(); i++) {
+            if (index < starts.size() && starts.get(index) == i) {
+                chunks.add(new Chunk(i, index + 1 < starts.size() ? starts.get(index + 1) : input.size(), new HashMap<>(attributes)));
+                index++;
+            }
+
+            final var stripped = input.get(i).strip();
+            if (delimiter != null) {
+                if (delimiter.equals(stripped)) {
+                    delimiter = null;
+                }
+                continue;
+            }
+            if (DELIMITERS.contains(stripped) || stripped.startsWith("|===")) {
+                delimiter = stripped;
+                continue;
+            }
+            if (stripped.startsWith(":")) {
+                Parser.defineAttribute(stripped, attributes);
+            } else {
+                final int level = sectionLevel(stripped);
+                if (level > 0 && !isFloatingTitle(input, bodyStart, i)) {
+                    attributes.put("sectnumlevels", Integer.toString(level)); // implicit attribute set by sections
+                }
+            }
+        }
+        return chunks;
+    }
+
+    // the previous significant line must not be something attached to the section (options, title, continuation, attribute)
+    private boolean canStartChunk(final List<String> input, final int bodyStart, final int line) {
+        final var previous = previousSignificantLine(input, bodyStart, line);
+        return previous != null &&
+                !previous.startsWith("[") && !previous.startsWith(".") && !previous.startsWith(":") &&
+                !previous.startsWith("/") && !previous.startsWith("+") && !previous.endsWith("+");
+    }
+
+    private boolean isFloatingTitle(final List<String> input, final int bodyStart, final int line) {
+        final var previous = previousSignificantLine(input, bodyStart, line);
+        return previous != null && previous.startsWith("[") && (previous.contains("discrete") || previous.contains("float"));
+    }
+
+    private String previousSignificantLine(final List<String> input, final int bodyStart, final int line) {
+        for (int i = line - 1; i >= bodyStart; i--) {
+            final var value = input.get(i).strip();
+            if (!value.isEmpty() && !(value.startsWith("//") && !value.startsWith("////"))) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    // level of a section title line (= or markdown # prefix), -1 if the line is not a title
+    private int sectionLevel(final String line) {
+        if (line.startsWith("=")) {
+            int level = 1;
+            while (level < line.length() && line.charAt(level) == '=') {
+                level++;
+            }
+            return level;
+        }
+        if (line.startsWith("#")) {
+            int level = 1;
+            while (level < line.length() && line.charAt(level) == '#') {
+                level++;
+            }
+            return level < line.length() && line.charAt(level) == ' ' ? Math.min(level, 6) : -1;
+        }
+        return -1;
+    }
+
+    private boolean hasDirective(final List<String> input, final int to) {
+        for (int i = 0; i < to; i++) {
+            final var line = input.get(i);
+            if (line.startsWith("include::") || line.startsWith("ifdef::") || line.startsWith("ifndef::") || line.startsWith("ifeval::")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // lines [start, end) of the document, attributes are the ones before the chunk parsing
+    private record Chunk(int start, int end, Map<String, String> attributes) {
+    }
+
+    private record ParsedChunk(List<Element> elements, Map<String, String> attributes) {
+    }
+}
@@ -44,6 +44,11 @@ import io.yupiik.asciidoc.model.Section;
 import io.yupiik.asciidoc.model.Table;
 import io.yupiik.asciidoc.model.Text;
 import io.yupiik.asciidoc.model.UnOrderedList;
+import io.yupiik.asciidoc.parser.internal.AttributeScope;
+import io.yupiik.asciidoc.parser.internal.AttributeTemplate;
+import io.yupiik.asciidoc.parser.internal.LineClassifier;
+import io.yupiik.asciidoc.parser.internal.MappedLines;
+import io.yupiik.asciidoc.parser.internal.OptionMaps;
 import io.yupiik.asciidoc.parser.internal.Reader;
 import io.yupiik.asciidoc.parser.resolver.ContentResolver;
 import io.yupiik.asciidoc.parser.resolver.RelativeContentResolver;
@@ -57,14 +62,16 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiFunction;
-import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
@@ -81,12 +88,13 @@ import static io.yupiik.asciidoc.model.Text.Style.MARK;
 import static io.yupiik.asciidoc.model.Text.Style.STRIKETHROUGH;
 import static io.yupiik.asciidoc.model.Text.Style.SUB;
 import static io.yupiik.asciidoc.model.Text.Style.SUP;
+import static io.yupiik.asciidoc.parser.internal.OptionMaps.compact;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.unmodifiableMap;
 import static java.util.Map.entry;
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
 import static java.util.Optional.ofNullable;
-import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toUnmodifiableMap;
@@ -94,6 +102,9 @@ import static java.util.stream.Collectors.toUnmodifiableMap;
 /**
  * The parser is responsible to load the asciidoc model in memory to then enable to render it with a visitor (most of the time).
  * It also enables to add a phase to manipulate the model before the rendering by not merging model loading and rendering phases.
+ * <p>
+ * A parser is immutable and thread safe: the state of a parsing (reader, attributes, resolver) is created per call
+ * from the {@link ParserContext} so a single instance can be shared between documents and threads for a set of global attributes.
  */
 public class Parser {
     private static final List<Author> NO_AUTHORS = List.of();
@@ -109,7 +120,6 @@ public class Parser {
     private static final Pattern CHECKBOX = Pattern.compile("^\\[(?<status>[ x*])\\] ");
     private static final Pattern ATTRIBUTE_DEFINITION = Pattern.compile("^:(?<name>[^\\n\\t:]+):( +(?<value>.+))? *$");
     private static final Pattern HEADER_MACRO = Pattern.compile("^[a-zA-Z0-9_+:.-]+::[^\\[]+\\[.*\\]\\s*$");
-    private static final Pattern ATTRIBUTE_VALUE = Pattern.compile("\\{(?<name>[^ }]+)}");
     private static final Pattern CELL_SPEC = Pattern.compile("^(?:(?<colspan>\\d+)\\+)?(?:\\.(?<rowspan>\\d+)\\+)?(?<content>.*)");
     private static final Pattern LOWER_ROMAN = Pattern.compile("[ivx]+");
     private static final Pattern UPPER_ROMAN = Pattern.compile("[IVX]+");
@@ -121,19 +131,30 @@ public class Parser {
     private static final List<String> LINK_PREFIXES = List.of("http://", "https://", "ftp://", "ftps://", "irc://", "file://", "mailto:");
     private static final Pattern EMAIL_PATTERN = Pattern.compile("[\\w.+-]+@[\\w.-]+\\.[a-zA-Z]{2,}");
 
+    private static final Map<String, String> NOWRAP = Map.of("nowrap", "true");
+    private static final Map<String, String> CHECKLIST = Map.of("checklist", "true");
+
+    static final Predicate<ConditionalBlock.Context> ELSE_BRANCH = ctx -> true;
+
     private final Map<String, String> globalAttributes;
 
     /**
-     * @param globalAttributes attributes, mainly used for include paths for now.
+     * @param globalAttributes attributes, mainly used for include paths for now, they are copied.
      */
     public Parser(final Map<String, String> globalAttributes) {
-        this.globalAttributes = globalAttributes;
+        this.globalAttributes = globalAttributes == null || globalAttributes.isEmpty() ?
+                Map.of() :
+                unmodifiableMap(new HashMap<>(globalAttributes));
     }
 
     public Parser() {
         this(Map.of());
     }
 
+    Map<String, String> globalAttributes() {
+        return globalAttributes;
+    }
+
     public Document parse(final String content, final ParserContext context) {
         try (final var reader = new BufferedReader(new StringReader(content))) {
             return parse(reader, context);
@@ -146,6 +167,18 @@ public class Parser {
         return parse(document, reader.lines().toList(), context);
     }
 
+    /**
+     * Parses a file without loading it as a list of strings first, it is memory mapped and its lines are decoded on demand
+     * ({@link MappedLines}), this keeps the heap usage low for big (generated) documents.
+     *
+     * @param document the document to parse, it must not be modified during the parsing.
+     * @param context  the parsing context.
+     * @return the parsed document.
+     */
+    public Document parse(final Path document, final ParserContext context) {
+        return parse(document, MappedLines.of(document), context);
+    }
+
     public Document parse(final BufferedReader reader, final ParserContext context) {
         return parse(null, reader.lines().toList(), context);
     }
@@ -154,16 +187,97 @@ public class Parser {
         final var reader = new Reader(input);
         try {
             final var header = parseHeader(document, reader, context);
-            return new Document(header, parseBody(reader, context.resolver(), new HashMap<>(header.attributes())));
+            return new Document(header, parseBody(reader, context.resolver(), new AttributeScope(header.attributes())));
         } catch (final RuntimeException re) {
             throw new IllegalStateException("Invalid state at line #" + reader.getLineNumber(), re);
         }
     }
 
+    /**
+     * Parses a document splitting its body at top level sections which are parsed concurrently in the provided pool.
+     * When the document can't be split safely (no top level sections, level offsets, attributes only known after parsing, ...)
+     * it is parsed sequentially so the result is always the same as {@link #parse(Path, List, ParserContext)}.
+     *
+     * @param document the document path if it exists (for includes).
+     * @param input    the document lines.
+     * @param context  the parsing context, its resolver must be thread safe.
+     * @param pool     the pool to parse the sections with.
+     * @return the parsed document.
+     */
+    public Document parse(final Path document, final List<String> input, final ParserContext context, final ForkJoinPool pool) {
+        return new ParallelParser(this, context, pool).parse(document, input);
+    }
+
     public Document parse(final List<String> input, final ParserContext context) {
         return parse(null, input, context);
     }
 
+    /**
+     * Parses a document without building its element tree: the header is notified first then each block is passed
+     * to {@link StreamListener#onElement(Element)} as soon as it is parsed and is no more referenced by the parser.
+     * Sections are not materialized, they are notified with {@link StreamListener#onSectionStart(Section)}
+     * and {@link StreamListener#onSectionEnd(Section)} around their children (nested sections are streamed the same way).
+     * <p>
+     * Lines are read lazily from the reader and released once parsed so the memory is bounded by the biggest block
+     * (a section is not a block, its children are) and not the document.
+     *
+     * @param reader   the document content.
+     * @param context  the parsing context.
+     * @param listener the consumer of parsing events.
+     * @return the parsed header (also passed to {@link StreamListener#onHeader(Header)}).
+     */
+    public Header stream(final BufferedReader reader, final ParserContext context, final StreamListener listener) {
+        return stream(null, reader.lines().iterator(), context, listener);
+    }
+
+    /**
+     * Same as {@link #stream(BufferedReader, ParserContext, StreamListener)} but for already loaded lines,
+     * only the element tree is not retained then.
+     *
+     * @param document the document path if it exists (for includes).
+     * @param input    the document lines.
+     * @param context  the parsing context.
+     * @param listener the consumer of parsing events.
+     * @return the parsed header (also passed to {@link StreamListener#onHeader(Header)}).
+     */
+    public Header stream(final Path document, final List<String> input, final ParserContext context, final StreamListener listener) {
+        return stream(new Reader(input), document, context, listener);
+    }
+
+    /**
+     * Lazy flavor of {@link #stream(Path, List, ParserContext, StreamListener)}, lines are pulled when needed.
+     *
+     * @param document the document path if it exists (for includes).
+     * @param input    the document lines.
+     * @param context  the parsing context.
+     * @param listener the consumer of parsing events.
+     * @return the parsed header (also passed to {@link StreamListener#onHeader(Header)}).
+     */
+    public Header stream(final Path document, final Iterator<String> input, final ParserContext context, final StreamListener listener) {
+        return stream(new Reader(input), document, context, listener);
+    }
+
+    private Header stream(final Reader reader, final Path document, final ParserContext context, final StreamListener listener) {
+        try {
+            final var header = parseHeader(document, reader, context);
+            reader.releaseReadLines(); // header is parsed, no more reset() so previous lines can be dropped
+            listener.onHeader(header);
+            doParse(null, reader, line -> true, context.resolver(), new AttributeScope(header.attributes()), true, false, streamingSink(listener), listener);
+            return header;
+        } catch (final RuntimeException re) {
+            throw new IllegalStateException("Invalid state at line #" + reader.getLineNumber(), re);
+        }
+    }
+
+    // parses the next top level block(s) - until an element is produced - used by incremental parsing to track blocks line ranges
+    List<Element> parseNextBlock(final Reader reader, final ContentResolver resolver, final Map<String, String> attributes) {
+        final var elements = new ArrayList<Element>(2);
+        doParse(null, reader, line -> elements.isEmpty(), resolver, attributes, true, false, elements::add, null);
+        return elements.stream()
+                .filter(it -> !(it instanceof Paragraph p) || !p.children().isEmpty())
+                .toList();
+    }
+
     public Header parseHeader(final Reader reader) {
         return parseHeader(reader, null);
     }
@@ -267,6 +381,19 @@ public class Parser {
                                   final boolean supportComplexStructures,
                                   final boolean skipTitle) {
         final var elements = new ArrayList<Element>(8);
+        doParse(enclosingDocument, reader, continueTest, resolver, attributes, supportComplexStructures, skipTitle, elements::add, null);
+        return elements.stream()
+                .filter(it -> !(it instanceof Paragraph p) || !p.children().isEmpty())
+                .toList();
+    }
+
+    // when sections is not null, sections are streamed (not materialized) to this listener
+    private void doParse(final Path enclosingDocument, final Reader reader, final Predicate<String> continueTest,
+                         final ContentResolver resolver, final Map<String, String> attributes,
+                         final boolean supportComplexStructures,
+                         final boolean skipTitle,
+                         final Consumer<Element> elements,
+                         final StreamListener sections) {
         String next;
 
         int lastOptions = -1;
@@ -295,7 +422,7 @@ public class Parser {
                     lastOptions = reader.getLineNumber();
                 }
             } else if (Objects.equals("....", stripped)) {
-                elements.add(new Listing(parsePassthrough(enclosingDocument, reader, options, "....", resolver).value(), options));
+                elements.accept(new Listing(parsePassthrough(enclosingDocument, reader, options, "....", resolver).value(), options));
                 options = null;
             } else if (!skipTitle && stripped.startsWith(".") && !stripped.startsWith("..") && !stripped.startsWith(". ")) {
                 options = merge(options, Map.of("title", stripped.substring(1).strip()));
@@ -307,12 +434,12 @@ public class Parser {
                         (level = Stream.of(Admonition.Level.values())
                                 .filter(it -> Objects.equals(it.name(), potentialLevel))
                                 .findFirst()).isPresent()) {
-                    elements.add(parseAdmonitionBlock(enclosingDocument, reader, level.orElseThrow(), resolver, attributes, options));
+                    elements.accept(parseAdmonitionBlock(enclosingDocument, reader, level.orElseThrow(), resolver, attributes, options));
                 } else {
                     if (options == null || !options.containsKey("") || options.get("").isBlank()) {
                         options = merge(options, Map.of("", "example"));
                     }
-                    elements.add(parseOpenBlock(enclosingDocument, reader, options, resolver, attributes, "===="));
+                    elements.accept(parseOpenBlock(enclosingDocument, reader, options, resolver, attributes, "===="));
                 }
                 options = null;
             } else if (stripped.startsWith("#")) {
@@ -326,98 +453,112 @@ public class Parser {
                     reader.rewind();
                 } else {
                     reader.rewind();
-                    elements.add(unwrapElementIfPossible(parseParagraph(enclosingDocument, reader, options, resolver, attributes, supportComplexStructures)));
+                    elements.accept(unwrapElementIfPossible(parseParagraph(enclosingDocument, reader, options, resolver, attributes, supportComplexStructures)));
                     options = null;
                 }
             } else if (stripped.startsWith("=")) {
                 reader.rewind();
                 final var style = options == null ? null : options.get("");
                 if ("discrete".equals(style) || "float".equals(style) || options != null && (options.containsKey("discrete-option") || options.containsKey("float-option"))) {
-                    elements.add(parseFloatingTitle(enclosingDocument, reader, options, resolver, attributes));
+                    elements.accept(parseFloatingTitle(enclosingDocument, reader, options, resolver, attributes));
                 } else {
-                    elements.add(parseSection(enclosingDocument, reader, options, resolver, attributes));
+                    final var section = parseSection(enclosingDocument, reader, options, resolver, attributes, sections);
+                    if (section != null) {
+                        elements.accept(section);
+                    }
                 }
                 options = null;
             } else if (Objects.equals("----", stripped)) {
-                elements.add(parseCodeBlock(enclosingDocument, reader, options, resolver, attributes, "----"));
+                elements.accept(parseCodeBlock(enclosingDocument, reader, options, resolver, attributes, "----"));
                 options = null;
             } else if (Objects.equals("```", stripped)) {
-                elements.add(parseCodeBlock(enclosingDocument, reader, options, resolver, attributes, "```"));
+                elements.accept(parseCodeBlock(enclosingDocument, reader, options, resolver, attributes, "```"));
                 options = null;
             } else if (Objects.equals("--", stripped)) {
-                elements.add(parseOpenBlock(enclosingDocument, reader, options, resolver, attributes, "--"));
+                elements.accept(parseOpenBlock(enclosingDocument, reader, options, resolver, attributes, "--"));
                 options = null;
             } else if (stripped.startsWith("|===")) {
-                elements.add(parseTable(enclosingDocument, reader, options, resolver, attributes, stripped));
+                elements.accept(parseTable(enclosingDocument, reader, options, resolver, attributes, stripped));
                 options = null;
             } else if (stripped.startsWith("|") && !stripped.startsWith("|=")) {
                 final var peekLine = reader.nextLine();
                 if (peekLine != null && PIPE_TABLE_SEPARATOR.matcher(peekLine.strip()).matches()) {
                     reader.rewind(); // back to separator
                     reader.rewind(); // back to current line
-                    elements.add(parsePipeTable(enclosingDocument, reader, options, resolver, attributes));
+                    elements.accept(parsePipeTable(enclosingDocument, reader, options, resolver, attributes));
                     options = null;
                 } else {
                     if (peekLine != null) {
                         reader.rewind(); // back to current line
                     }
                     reader.rewind(); // back to paragraph start
-                    elements.add(unwrapElementIfPossible(parseParagraph(enclosingDocument, reader, options, resolver, attributes, supportComplexStructures)));
+                    elements.accept(unwrapElementIfPossible(parseParagraph(enclosingDocument, reader, options, resolver, attributes, supportComplexStructures)));
                     options = null;
                 }
             } else if (Objects.equals("++++", stripped)) {
-                elements.add(parsePassthrough(enclosingDocument, reader, options, "++++", resolver));
+                elements.accept(parsePassthrough(enclosingDocument, reader, options, "++++", resolver));
                 options = null;
             } else if (Objects.equals("<<<", stripped)) {
-                elements.add(new PageBreak(options));
+                elements.accept(new PageBreak(options));
                 options = null;
             } else if (stripped.startsWith("> ")) {
                 reader.rewind();
-                elements.add(parseQuote(enclosingDocument, reader, options, resolver, attributes));
+                elements.accept(parseQuote(enclosingDocument, reader, options, resolver, attributes));
                 options = null;
             } else if (Objects.equals("****", stripped)) {
                 if (options == null || !options.containsKey("") || options.get("").isBlank()) {
                     options = merge(options, Map.of("", "sidebar"));
                 }
-                elements.add(parseOpenBlock(enclosingDocument, reader, options, resolver, attributes, "****"));
+                elements.accept(parseOpenBlock(enclosingDocument, reader, options, resolver, attributes, "****"));
                 options = null;
             } else if (stripped.startsWith("____")) {
                 final var buffer = new ArrayList<String>();
                 while ((next = reader.nextLine()) != null && !"____".equals(next.strip())) {
                     buffer.add(next);
                 }
-                elements.add(new Quote(doParse(enclosingDocument, new Reader(buffer), l -> true, resolver, attributes, supportComplexStructures, skipTitle), options == null ? Map.of() : options));
+                elements.accept(new Quote(doParse(enclosingDocument, new Reader(buffer), l -> true, resolver, attributes, supportComplexStructures, skipTitle), options == null ? Map.of() : options));
                 options = null;
             } else if (isHorizontalRule(stripped)) {
-                elements.add(new HorizontalRule(options == null ? Map.of() : options));
+                elements.accept(new HorizontalRule(options == null ? Map.of() : options));
                 options = null;
             } else if (stripped.endsWith(" +")) {
-                elements.addAll(parseLine(enclosingDocument, reader, stripped.substring(0, stripped.length() - 2), resolver, attributes, supportComplexStructures));
-                elements.add(new LineBreak());
+                parseLine(enclosingDocument, reader, stripped.substring(0, stripped.length() - 2), resolver, attributes, supportComplexStructures).forEach(elements);
+                elements.accept(new LineBreak());
                 options = null;
             } else if (stripped.startsWith(":") && (attributeMatcher = ATTRIBUTE_DEFINITION.matcher(stripped)).matches()) {
-                final var value = attributeMatcher.groupCount() == 3 ? ofNullable(attributeMatcher.group("value")).orElse("") : "";
-                final var rawName = attributeMatcher.group("name");
-                if (rawName.startsWith("!")) {
-                    attributes.remove(rawName.substring(1));
-                } else if ((value.startsWith("+") || value.startsWith("-")) && attributes.containsValue(rawName)) { // offset
-                    try {
-                        attributes.put(rawName, Integer.toString(Integer.parseInt(attributes.get(rawName)) + Integer.parseInt(value)));
-                    } catch (final RuntimeException nfe) { // NumberFormatException mainly
-                        attributes.put(rawName, value);
-                    }
-                } else {
-                    attributes.put(rawName, value);
-                }
+                defineAttribute(attributeMatcher, attributes);
             } else {
                 reader.rewind();
-                elements.add(unwrapElementIfPossible(parseParagraph(enclosingDocument, reader, options, resolver, attributes, supportComplexStructures)));
+                elements.accept(unwrapElementIfPossible(parseParagraph(enclosingDocument, reader, options, resolver, attributes, supportComplexStructures)));
                 options = null;
             }
         }
-        return elements.stream()
-                .filter(it -> !(it instanceof Paragraph p) || !p.children().isEmpty())
-                .toList();
+    }
+
+    // also used by parallel parsing to compute the attributes at section boundaries
+    static boolean defineAttribute(final String line, final Map<String, String> attributes) {
+        final var matcher = ATTRIBUTE_DEFINITION.matcher(line);
+        if (!matcher.matches()) {
+            return false;
+        }
+        defineAttribute(matcher, attributes);
+        return true;
+    }
+
+    private static void defineAttribute(final Matcher attributeMatcher, final Map<String, String> attributes) {
+        final var value = attributeMatcher.groupCount() == 3 ? ofNullable(attributeMatcher.group("value")).orElse("") : "";
+        final var rawName = attributeMatcher.group("name");
+        if (rawName.startsWith("!")) {
+            attributes.remove(rawName.substring(1));
+        } else if ((value.startsWith("+") || value.startsWith("-")) && attributes.containsValue(rawName)) { // offset
+            try {
+                attributes.put(rawName, Integer.toString(Integer.parseInt(attributes.get(rawName)) + Integer.parseInt(value)));
+            } catch (final RuntimeException nfe) { // NumberFormatException mainly
+                attributes.put(rawName, value);
+            }
+        } else {
+            attributes.put(rawName, value);
+        }
     }
 
     private PassthroughBlock parsePassthrough(final Path enclosingDocument,
@@ -534,6 +675,9 @@ public class Parser {
                         .map(i -> {
                             if (i.contains("a")) { // asciidoc
                                 return (Function<List<String>, Element>) c -> {
+                                    if (isPlainCell(c)) {
+                                        return new Text(List.of(), c.get(0), Map.of());
+                                    }
                                     final var content = doParse(enclosingDocument, new Reader(c), line -> true, resolver, currentAttributes, true, false);
                                     if (content.size() == 1) {
                                         return content.get(0);
@@ -564,6 +708,9 @@ public class Parser {
                             }
                             // contains("d") == default, all inline markup
                             return (Function<List<String>, Element>) c -> {
+                                if (isPlainCell(c)) {
+                                    return new Text(List.of(), c.get(0), Map.of());
+                                }
                                 final var content = doParse(enclosingDocument, new Reader(c), line -> true, resolver, currentAttributes, false, false);
                                 if (content.size() == 1) {
                                     return content.get(0);
@@ -619,7 +766,7 @@ public class Parser {
                     var content = next.substring(last, nextSep);
                     // handle cell specs like 2+| (colspan) or .2+| (rowspan) where
                     // | is part of the spec, not a cell separator
-                    if (content.matches("^(\\d+|\\.\\d+)\\+$") && content.indexOf('+') == content.length() - 1) {
+                    if (LineClassifier.isCellSpec(content)) {
                         final var nextCellSep = next.indexOf('|', nextSep + 1);
                         if (nextCellSep > 0) {
                             content += "|" + next.substring(nextSep + 1, nextCellSep);
@@ -657,7 +804,12 @@ public class Parser {
             }
             rows.add(cells);
         }
-        return new Table(rows, Map.copyOf(tableOptions));
+        return new Table(rows, compact(tableOptions));
+    }
+
+    // generated tables are mainly plain text cells, they can skip the recursive parsing
+    private boolean isPlainCell(final List<String> content) {
+        return content.size() == 1 && LineClassifier.isPlainText(content.get(0));
     }
 
     private Element createCell(final Path enclosingDocument,
@@ -666,13 +818,14 @@ public class Parser {
                                final String content,
                                final ContentResolver resolver,
                                final Map<String, String> currentAttributes) {
-        final var spec = CELL_SPEC.matcher(content);
-        var cellContent = spec.matches() ? spec.group("content") : content;
+        final var spec = LineClassifier.isCellSpecCandidate(content) ? CELL_SPEC.matcher(content) : null;
+        final boolean hasSpec = spec != null && spec.matches();
+        var cellContent = hasSpec ? spec.group("content") : content;
         if (cellContent.startsWith("|")) {
             cellContent = cellContent.substring(1);
         }
-        final var colspan = spec.matches() && spec.group("colspan") != null ? spec.group("colspan") : null;
-        final var rowspan = spec.matches() && spec.group("rowspan") != null ? spec.group("rowspan") : null;
+        final var colspan = hasSpec ? spec.group("colspan") : null;
+        final var rowspan = hasSpec ? spec.group("rowspan") : null;
         final var element = cellParser.size() > cellIdx ?
                 cellParser.get(cellIdx).apply(List.of(cellContent)) :
                 new Text(List.of(), cellContent.strip(), Map.of());
@@ -700,13 +853,13 @@ public class Parser {
             opts.put("rowspan", rowspan);
         }
         if (element instanceof Text t) {
-            return new Text(t.style(), t.value(), Map.copyOf(opts));
+            return new Text(t.style(), t.value(), compact(opts));
         }
         if (element instanceof Paragraph p) {
-            return new Paragraph(p.children(), Map.copyOf(opts));
+            return new Paragraph(p.children(), compact(opts));
         }
         if (element instanceof Code c) {
-            return new Code(c.value(), c.callOuts(), Map.copyOf(opts), c.inline());
+            return new Code(c.value(), c.callOuts(), compact(opts), c.inline());
         }
         return element;
     }
@@ -718,12 +871,13 @@ public class Parser {
                                final ContentResolver resolver,
                                final Map<String, String> currentAttributes) {
         final var firstLine = content.get(0);
-        final var spec = CELL_SPEC.matcher(firstLine);
-        final var cellContent = spec.matches() && (spec.group("colspan") != null || spec.group("rowspan") != null || !spec.group("content").isEmpty()) ?
+        final var spec = LineClassifier.isCellSpecCandidate(firstLine) ? CELL_SPEC.matcher(firstLine) : null;
+        final boolean hasSpec = spec != null && spec.matches();
+        final var cellContent = hasSpec && (spec.group("colspan") != null || spec.group("rowspan") != null || !spec.group("content").isEmpty()) ?
                 content.stream().map(l -> spec == CELL_SPEC.matcher(firstLine) && l == firstLine ? spec.group("content") : l).toList() :
                 content;
-        final var colspan = spec.matches() && spec.group("colspan") != null ? spec.group("colspan") : null;
-        final var rowspan = spec.matches() && spec.group("rowspan") != null ? spec.group("rowspan") : null;
+        final var colspan = hasSpec ? spec.group("colspan") : null;
+        final var rowspan = hasSpec ? spec.group("rowspan") : null;
         final var element = cellParser.size() > cellIdx ?
                 cellParser.get(cellIdx).apply(cellContent) :
                 new Text(List.of(), String.join("\n", cellContent).strip(), Map.of());
@@ -795,7 +949,7 @@ public class Parser {
             tableOptions.put("cols", Stream.generate(() -> "1").limit(numCols).collect(joining(",")));
         }
         tableOptions.put("header-option", "");
-        return new Table(rows, Map.copyOf(tableOptions));
+        return new Table(rows, compact(tableOptions));
     }
 
     private List<String> parsePipeRow(final String line) {
@@ -833,7 +987,8 @@ public class Parser {
 
         final var callOuts = new ArrayList<CallOut>(contentWithCallouts.callOutReferences().size());
         Matcher matcher;
-        while ((next = reader.skipCommentsAndEmptyLines()) != null && (matcher = CALLOUT.matcher(next)).matches()) {
+        while ((next = reader.skipCommentsAndEmptyLines()) != null &&
+                LineClassifier.isCallOutCandidate(next) && (matcher = CALLOUT.matcher(next)).matches()) {
             int number;
             try {
                 final var numberRef = matcher.group("number");
@@ -967,93 +1122,17 @@ public class Parser {
         final var elements = new ArrayList<Element>();
         int start = 0;
         boolean inMacro = false;
+        if (supportComplexStructures && !line.isEmpty() && !(line.length() == 2 && line.endsWith(" +"))) {
+            final var block = parseBlockLine(enclosingDocument, reader, line, resolver, currentAttributes, pendingOptions);
+            if (block != null) {
+                elements.add(block);
+                return flattenTexts(elements);
+            }
+        }
         for (int i = 0; i < line.length(); i++) {
-            if (supportComplexStructures) {
-                if (i == line.length() - 2 && line.endsWith(" +")) {
-                    elements.add(new LineBreak());
-                    break;
-                }
-
-                final var admonition = parseAdmonition(enclosingDocument, reader, line, resolver, currentAttributes);
-                if (admonition.isPresent()) {
-                    elements.add(admonition.orElseThrow());
-                    i = line.length();
-                    start = i;
-                    break;
-                }
-
-                {
-                    final var matcher = ORDERED_LIST_PREFIX.matcher(line);
-                    if (matcher.matches() && matcher.group("dots").length() == 1) {
-                        final var prefix = matcher.group("prefix");
-                        final var delim = matcher.group("dots");
-                        final var style = detectOrderedListStyle(prefix, delim);
-                        final var listOpts = new StringBuilder();
-                        if (style != null) {
-                            listOpts.append("style=").append(style);
-                        }
-                        final var startOpt = pendingOptions.get("start");
-                        if (startOpt != null) {
-                            if (!listOpts.isEmpty()) listOpts.append(',');
-                            listOpts.append("start=").append(startOpt);
-                        }
-                        reader.rewind();
-                        elements.add(parseOrderedList(enclosingDocument, reader, listOpts.isEmpty() ? null : listOpts.toString(), ". ", resolver, currentAttributes));
-                        i = line.length();
-                        start = i;
-                        break;
-                    }
-                }
-
-                if (line.startsWith("*")) {
-                    final var matcher = UNORDERED_LIST_PREFIX.matcher(line);
-                    if (matcher.matches() && matcher.group("wildcard").length() == 1) {
-                        reader.rewind();
-                        elements.add(parseUnorderedList(enclosingDocument, reader, null, "* ", resolver, currentAttributes, UNORDERED_LIST_PREFIX));
-                        i = line.length();
-                        start = i;
-                        break;
-                    }
-                }
-
-                if (line.startsWith("-")) {
-                    final var matcher = UNORDERED_LIST2_PREFIX.matcher(line);
-                    if (matcher.matches() && matcher.group("wildcard").length() == 1) {
-                        reader.rewind();
-                        elements.add(parseUnorderedList(enclosingDocument, reader, null, "- ", resolver, currentAttributes, UNORDERED_LIST2_PREFIX));
-                        i = line.length();
-                        start = i;
-                        break;
-                    }
-                }
-
-                int doubleColons = line.indexOf("::");
-                if (doubleColons > 0 &&
-                        // and is not a macro
-                        (line.endsWith("::") || line.substring(doubleColons + "::".length()).startsWith(" "))) {
-                    final var matcher = DESCRIPTION_LIST_PREFIX.matcher(line);
-                    if (matcher.matches() && "::".equals(matcher.group("marker"))) {
-                        reader.rewind();
-                        elements.add(parseDescriptionList(enclosingDocument, reader, ":: ", resolver,
-                                merge(currentAttributes, pendingOptions)));
-                        i = line.length();
-                        start = i;
-                        break;
-                    }
-                }
-                int doubleSemicolons = line.indexOf(";;");
-                if (doubleSemicolons > 0 &&
-                        (line.endsWith(";;") || line.substring(doubleSemicolons + ";;".length()).startsWith(" "))) {
-                    final var matcher = DESCRIPTION_LIST_PREFIX.matcher(line);
-                    if (matcher.matches() && ";;".equals(matcher.group("marker"))) {
-                        reader.rewind();
-                        elements.add(parseDescriptionList(enclosingDocument, reader, ";; ", resolver,
-                                merge(currentAttributes, pendingOptions)));
-                        i = line.length();
-                        start = i;
-                        break;
-                    }
-                }
+            if (supportComplexStructures && i == line.length() - 2 && line.endsWith(" +")) {
+                elements.add(new LineBreak());
+                break;
             }
 
             final char c = line.charAt(i);
@@ -1066,7 +1145,7 @@ public class Parser {
                         inMacro = line.length() > i + 1 && line.charAt(i + 1) != ' ' && i > 0 && line.charAt(i - 1) != ' ' && line.indexOf('[', i + 1) > i;
                 case '\\' -> { // escaping
                     if (start != i) {
-                        flushText(elements, line.substring(start, i));
+                        flushText(elements, line, start, i);
                     }
                     i++;
                     start = i;
@@ -1075,10 +1154,10 @@ public class Parser {
                     final int end = line.indexOf('}', i + 1);
                     if (end > 0) {
                         if (start != i) {
-                            flushText(elements, line.substring(start, i));
+                            flushText(elements, line, start, i);
                         }
                         final var attributeName = line.substring(i + 1, end);
-                        elements.add(new Attribute(attributeName, value -> doParse(enclosingDocument, new Reader(List.of(value)), l -> true, resolver, new HashMap<>(currentAttributes), true, false)));
+                        elements.add(new Attribute(attributeName, new AttributeEvaluator(this, enclosingDocument, resolver, currentAttributes)));
                         i = end;
                         start = end + 1;
                     }
@@ -1093,13 +1172,13 @@ public class Parser {
                                 if (optionsStart >= 0) {
                                     options = line.substring(optionsStart + 1, i - 1);
                                     if (start < optionsStart) {
-                                        flushText(elements, line.substring(start, optionsStart));
+                                        flushText(elements, line, start, optionsStart);
                                     }
                                 } else if (start < i) {
-                                    flushText(elements, line.substring(start, i));
+                                    flushText(elements, line, start, i);
                                 }
                             } else if (start != i) {
-                                flushText(elements, line.substring(start, i));
+                                flushText(elements, line, start, i);
                             }
                             addTextElements(enclosingDocument, line, i + 1, end, elements, BOLD, options, resolver, currentAttributes);
                             i = end + 1;
@@ -1114,13 +1193,13 @@ public class Parser {
                                 if (optionsStart >= 0) {
                                     options = line.substring(optionsStart + 1, i - 1);
                                     if (start < optionsStart) {
-                                        flushText(elements, line.substring(start, optionsStart));
+                                        flushText(elements, line, start, optionsStart);
                                     }
                                 } else if (start < i) {
-                                    flushText(elements, line.substring(start, i));
+                                    flushText(elements, line, start, i);
                                 }
                             } else if (start != i) {
-                                flushText(elements, line.substring(start, i));
+                                flushText(elements, line, start, i);
                             }
                             addTextElements(enclosingDocument, line, i, end, elements, BOLD, options, resolver, currentAttributes);
                             i = end;
@@ -1137,13 +1216,13 @@ public class Parser {
                             if (optionsStart >= 0) {
                                 options = line.substring(optionsStart + 1, i - 1);
                                 if (start < optionsStart) {
-                                    flushText(elements, line.substring(start, optionsStart));
+                                    flushText(elements, line, start, optionsStart);
                                 }
                             } else if (start < i) {
-                                flushText(elements, line.substring(start, i));
+                                flushText(elements, line, start, i);
                             }
                         } else if (start != i) {
-                            flushText(elements, line.substring(start, i));
+                            flushText(elements, line, start, i);
                         }
                         addTextElements(enclosingDocument, line, i, end, elements, ITALIC, options, resolver, currentAttributes);
                         i = end;
@@ -1160,13 +1239,13 @@ public class Parser {
                                 if (optionsStart >= 0) {
                                     options = line.substring(optionsStart + 1, i - 1);
                                     if (start < optionsStart) {
-                                        flushText(elements, line.substring(start, optionsStart));
+                                        flushText(elements, line, start, optionsStart);
                                     }
                                 } else if (start < i) {
-                                    flushText(elements, line.substring(start, i));
+                                    flushText(elements, line, start, i);
                                 }
                             } else if (start != i) {
-                                flushText(elements, line.substring(start, i));
+                                flushText(elements, line, start, i);
                             }
                             addTextElements(enclosingDocument, line, i + 1, end, elements, STRIKETHROUGH, options, resolver, currentAttributes);
                             i = end + 1;
@@ -1181,13 +1260,13 @@ public class Parser {
                                 if (optionsStart >= 0) {
                                     options = line.substring(optionsStart + 1, i - 1);
                                     if (start < optionsStart) {
-                                        flushText(elements, line.substring(start, optionsStart));
+                                        flushText(elements, line, start, optionsStart);
                                     }
                                 } else if (start < i) {
-                                    flushText(elements, line.substring(start, i));
+                                    flushText(elements, line, start, i);
                                 }
                             } else if (start != i) {
-                                flushText(elements, line.substring(start, i));
+                                flushText(elements, line, start, i);
                             }
                             addTextElements(enclosingDocument, line, i, end, elements, SUB, options, resolver, currentAttributes);
                             i = end;
@@ -1204,13 +1283,13 @@ public class Parser {
                             if (optionsStart >= 0) {
                                 options = line.substring(optionsStart + 1, i - 1);
                                 if (start < optionsStart) {
-                                    flushText(elements, line.substring(start, optionsStart));
+                                    flushText(elements, line, start, optionsStart);
                                 }
                             } else if (start < i) {
-                                flushText(elements, line.substring(start, i));
+                                flushText(elements, line, start, i);
                             }
                         } else if (start != i) {
-                            flushText(elements, line.substring(start, i));
+                            flushText(elements, line, start, i);
                         }
                         addTextElements(enclosingDocument, line, i, end, elements, SUP, options, resolver, currentAttributes);
                         i = end;
@@ -1222,7 +1301,7 @@ public class Parser {
                         final int end = line.indexOf("$$", i + 2);
                         if (end > 0) {
                             if (start != i) {
-                                flushText(elements, line.substring(start, i));
+                                flushText(elements, line, start, i);
                             }
                             elements.add(new Macro("stem", line.substring(i + 2, end), Map.of(), true));
                             i = end + 1;
@@ -1232,7 +1311,7 @@ public class Parser {
                         final int end = line.indexOf('$', i + 1);
                         if (end > 0) {
                             if (start != i) {
-                                flushText(elements, line.substring(start, i));
+                                flushText(elements, line, start, i);
                             }
                             elements.add(new Macro("stem", line.substring(i + 1, end), Map.of(), true));
                             i = end;
@@ -1249,7 +1328,7 @@ public class Parser {
                                 final var alt = line.substring(i + 2, closeBracket);
                                 final var url = line.substring(closeBracket + 2, closeParen);
                                 if (start != i) {
-                                    flushText(elements, line.substring(start, i));
+                                    flushText(elements, line, start, i);
                                 }
                                 elements.add(new Macro("image", url, Map.of("", alt), true));
                                 i = closeParen;
@@ -1265,7 +1344,7 @@ public class Parser {
                         final int end = line.indexOf("]]]", i + 3);
                         if (end > 0) {
                             if (start != i) {
-                                flushText(elements, line.substring(start, i));
+                                flushText(elements, line, start, i);
                             }
                             final var ref = line.substring(i + 3, end);
                             elements.add(new Text(List.of(), "", Map.of("id", ref, "bibliography", "")));
@@ -1284,7 +1363,7 @@ public class Parser {
                                 final var label = line.substring(i + 1, mdLinkParen);
                                 final var url = line.substring(mdLinkParen + 2, closeParen);
                                 if (start != i) {
-                                    flushText(elements, line.substring(start, i));
+                                    flushText(elements, line, start, i);
                                 }
                                 final var linkLabel = unwrapElementIfPossible(parseParagraph(
                                         enclosingDocument, new Reader(List.of(label)),
@@ -1338,7 +1417,7 @@ public class Parser {
                             var optionsPrefix = line.substring(backward, i);
                             var options = parseOptions(line.substring(i + 1, end).strip());
                             if (start < backward) {
-                                flushText(elements, line.substring(start, backward));
+                                flushText(elements, line, start, backward);
                             }
 
                             if (optionsPrefix.startsWith("__") && line.substring(end).startsWith("]__")) {
@@ -1386,9 +1465,7 @@ public class Parser {
                                         var linkLabel = unwrapElementIfPossible(parseParagraph(
                                                 enclosingDocument,
                                                 new Reader(List.of(options.getOrDefault("", label))),
-                                                Stream.of(options.entrySet(), Map.of("nowrap", "true").entrySet())
-                                                        .flatMap(Collection::stream)
-                                                        .collect(toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a)), resolver, currentAttributes, supportComplexStructures));
+                                                merge(options, NOWRAP), resolver, currentAttributes, supportComplexStructures));
                                         if (linkLabel.type() == LINK) {
                                             final var l = (Link) linkLabel;
                                             linkLabel = l.label();
@@ -1396,9 +1473,7 @@ public class Parser {
                                         elements.add("link".equals(macro.name()) ?
                                                 new Link(macro.label(),
                                                         linkLabel,
-                                                        Stream.of(macro.options().entrySet(), Map.of("nowrap", "true").entrySet())
-                                                                .flatMap(Collection::stream)
-                                                                .collect(toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a))) :
+                                                        merge(macro.options(), NOWRAP)) :
                                                 macro);
                                     }
                                 }
@@ -1406,9 +1481,7 @@ public class Parser {
                                 final var label = options.getOrDefault("", optionsPrefix);
                                 var linkLabel = unwrapElementIfPossible(parseParagraph(
                                         enclosingDocument, new Reader(List.of(label)),
-                                        Stream.of(options.entrySet(), Map.of("nowrap", "true").entrySet())
-                                                .flatMap(Collection::stream)
-                                                .collect(toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a)), resolver, currentAttributes, supportComplexStructures));
+                                        merge(options, NOWRAP), resolver, currentAttributes, supportComplexStructures));
                                 if (linkLabel.type() == LINK) {
                                     final var l = (Link) linkLabel;
                                     linkLabel = l.label();
@@ -1430,7 +1503,7 @@ public class Parser {
                                 final int end2 = line.indexOf('#', contentMarkerStart + 1);
                                 if (end2 > 0) {
                                     if (start != i) {
-                                        flushText(elements, line.substring(start, i));
+                                        flushText(elements, line, start, i);
                                     }
                                     addTextElements(enclosingDocument, line, contentMarkerStart, end2, elements, null, line.substring(i + 1, end), resolver, currentAttributes);
                                     i = end2;
@@ -1463,13 +1536,13 @@ public class Parser {
                                 options = line.substring(optionsStart + 1, i - 1);
                                 // adjust indices to skip options
                                 if (start < optionsStart) {
-                                    flushText(elements, line.substring(start, optionsStart));
+                                    flushText(elements, line, start, optionsStart);
                                 }
                             } else if (start < i) {
-                                flushText(elements, line.substring(start, i));
+                                flushText(elements, line, start, i);
                             }
                         } else if (start < i) {
-                            flushText(elements, line.substring(start, i));
+                            flushText(elements, line, start, i);
                         }
 
                         addTextElements(enclosingDocument, line, i + endString.length() - 1, end, elements, MARK, options, resolver, currentAttributes);
@@ -1481,7 +1554,7 @@ public class Parser {
                     final int end = line.indexOf('`', i + 1);
                     if (end > 0) {
                         if (start != i) {
-                            flushText(elements, line.substring(start, i));
+                            flushText(elements, line, start, i);
                         }
                         final var content = line.substring(i + 1, end);
                         if (isLink(content)) { // this looks like a bad practise but can happen
@@ -1509,7 +1582,7 @@ public class Parser {
                         final int end = line.indexOf(">>", i + 1);
                         if (end > 0) {
                             if (start != i) {
-                                flushText(elements, line.substring(start, i));
+                                flushText(elements, line, start, i);
                             }
                             final var name = line.substring(i + 2, end);
                             final int sep = name.indexOf(',');
@@ -1528,67 +1601,81 @@ public class Parser {
             }
         }
         if (start < line.length()) {
-            flushText(elements, line.substring(start));
+            flushText(elements, line, start, line.length());
         }
         return flattenTexts(elements);
     }
 
-    private boolean isInlineOptionContentMarker(final char c) {
-        return c == '#';
-    }
-
-    private Predicate<ConditionalBlock.Context> parseCondition(final String condition, final Map<String, String> attributeAtParsingTime) {
-        final int sep1 = condition.indexOf(' ');
-        if (sep1 < 0) {
-            throw new IllegalArgumentException("Unknown expression: '" + condition + "'");
+    // line level structures (lists, admonitions), the line classifier avoids to run the patterns on plain text lines
+    private Element parseBlockLine(final Path enclosingDocument, final Reader reader, final String line,
+                                   final ContentResolver resolver, final Map<String, String> currentAttributes,
+                                   final Map<String, String> pendingOptions) {
+        final var admonition = parseAdmonition(enclosingDocument, reader, line, resolver, currentAttributes);
+        if (admonition.isPresent()) {
+            return admonition.orElseThrow();
+        }
+
+        if (LineClassifier.isOrderedListCandidate(line)) {
+            final var matcher = ORDERED_LIST_PREFIX.matcher(line);
+            if (matcher.matches() && matcher.group("dots").length() == 1) {
+                final var prefix = matcher.group("prefix");
+                final var delim = matcher.group("dots");
+                final var style = detectOrderedListStyle(prefix, delim);
+                final var listOpts = new StringBuilder();
+                if (style != null) {
+                    listOpts.append("style=").append(style);
+                }
+                final var startOpt = pendingOptions.get("start");
+                if (startOpt != null) {
+                    if (!listOpts.isEmpty()) listOpts.append(',');
+                    listOpts.append("start=").append(startOpt);
+                }
+                reader.rewind();
+                return parseOrderedList(enclosingDocument, reader, listOpts.isEmpty() ? null : listOpts.toString(), ". ", resolver, currentAttributes);
+            }
         }
-        final int sep2 = condition.lastIndexOf(' ');
-        if (sep2 < 0 || sep2 == sep1) {
-            throw new IllegalArgumentException("Unknown expression: '" + condition + "'");
+
+        if (LineClassifier.isUnorderedListCandidate(line, '*') && UNORDERED_LIST_PREFIX.matcher(line).matches()) {
+            reader.rewind();
+            return parseUnorderedList(enclosingDocument, reader, null, "* ", resolver, currentAttributes, UNORDERED_LIST_PREFIX);
         }
 
-        final var leftOperand = stripQuotes(condition.substring(0, sep1).strip());
-        final var operator = condition.substring(sep1 + 1, sep2).strip();
-        final var rightOperand = stripQuotes(condition.substring(sep2).strip());
-        final var parsingAttributes = !attributeAtParsingTime.isEmpty() ?
-                new HashMap<>(attributeAtParsingTime) :
-                Map.<String, String>of();
-        final Function<ConditionalBlock.Context, Function<String, String>> attributeAccessor = ctx ->
-                // ensure levels and implicit attributes are well evaluated
-                key -> parsingAttributes.getOrDefault(key, ctx.attribute(key));
-        return switch (operator) {
-            case "==" -> context -> eval(leftOperand, rightOperand, attributeAccessor.apply(context), Objects::equals);
-            case "!=" -> context -> !eval(leftOperand, rightOperand, attributeAccessor.apply(context), Objects::equals);
-            case "<" -> context -> evalNumbers(leftOperand, rightOperand, context, (a, b) -> a < b);
-            case "<=" -> context -> {
-                final var attributes = attributeAccessor.apply(context);
-                return Double.parseDouble(earlyAttributeReplacement(leftOperand, attributes)) <=
-                        Double.parseDouble(earlyAttributeReplacement(rightOperand, attributes));
-            };
-            case ">" -> context -> {
-                final var attributes = attributeAccessor.apply(context);
-                return Double.parseDouble(earlyAttributeReplacement(leftOperand, attributes)) >
-                        Double.parseDouble(earlyAttributeReplacement(rightOperand, attributes));
-            };
-            case ">=" -> context -> {
-                final var attributes = attributeAccessor.apply(context);
-                return Double.parseDouble(earlyAttributeReplacement(leftOperand, attributes)) >=
-                        Double.parseDouble(earlyAttributeReplacement(rightOperand, attributes));
-            };
-            default -> throw new IllegalArgumentException("Unknown operator '" + operator + "'");
-        };
-    }
+        if (LineClassifier.isUnorderedListCandidate(line, '-') && UNORDERED_LIST2_PREFIX.matcher(line).matches()) {
+            reader.rewind();
+            return parseUnorderedList(enclosingDocument, reader, null, "- ", resolver, currentAttributes, UNORDERED_LIST2_PREFIX);
+        }
 
-    private boolean eval(final String leftOperand, final String rightOperand, final Function<String, String> context, final BiPredicate<String, String> test) {
-        return test.test(earlyAttributeReplacement(leftOperand, context), earlyAttributeReplacement(rightOperand, context));
+        int doubleColons = line.indexOf("::");
+        if (doubleColons > 0 &&
+                // and is not a macro
+                (line.endsWith("::") || line.startsWith(" ", doubleColons + "::".length()))) {
+            final var matcher = DESCRIPTION_LIST_PREFIX.matcher(line);
+            if (matcher.matches() && "::".equals(matcher.group("marker"))) {
+                reader.rewind();
+                return parseDescriptionList(enclosingDocument, reader, ":: ", resolver, withPendingOptions(currentAttributes, pendingOptions));
+            }
+        }
+        int doubleSemicolons = line.indexOf(";;");
+        if (doubleSemicolons > 0 &&
+                (line.endsWith(";;") || line.startsWith(" ", doubleSemicolons + ";;".length()))) {
+            final var matcher = DESCRIPTION_LIST_PREFIX.matcher(line);
+            if (matcher.matches() && ";;".equals(matcher.group("marker"))) {
+                reader.rewind();
+                return parseDescriptionList(enclosingDocument, reader, ";; ", resolver, withPendingOptions(currentAttributes, pendingOptions));
+            }
+        }
+        return null;
     }
 
-    private boolean evalNumbers(final String leftOperand, final String rightOperand, final ConditionalBlock.Context context, final BiPredicate<Double, Double> test) {
-        return test.test(Double.parseDouble(earlyAttributeReplacement(leftOperand, context::attribute)), Double.parseDouble(earlyAttributeReplacement(rightOperand, context::attribute)));
+    private boolean isInlineOptionContentMarker(final char c) {
+        return c == '#';
     }
 
-    private String stripQuotes(final String strip) {
-        return strip.startsWith("\"") && strip.endsWith("\"") && strip.length() > 1 ? strip.substring(1, strip.length() - 1) : strip;
+    Predicate<ConditionalBlock.Context> parseCondition(final String condition, final Map<String, String> attributeAtParsingTime) {
+        final var parsingAttributes = !attributeAtParsingTime.isEmpty() ?
+                new HashMap<>(attributeAtParsingTime) :
+                Map.<String, String>of();
+        return new Condition(condition, parsingAttributes, CompiledCondition.compile(condition), globalAttributes);
     }
 
     private String earlyAttributeReplacement(final String value, final Map<String, String> attributes) {
@@ -1596,24 +1683,7 @@ public class Parser {
     }
 
     private String earlyAttributeReplacement(final String value, final Function<String, String> attributes) { // todo: handle escaping
-        if (!value.contains("{")) {
-            return value;
-        }
-        final var keys = new HashSet<String>(1);
-        final var matcher = ATTRIBUTE_VALUE.matcher(value);
-        while (matcher.find()) {
-            final var name = matcher.group("name");
-            if (attributes.apply(name) != null || globalAttributes.containsKey(name)) {
-                keys.add(name);
-            }
-        }
-        var out = value;
-        for (final var key : keys) {
-            final var placeholder = '{' + key + '}';
-            final var replacement = attributes.apply(key);
-            out = out.replace(placeholder, replacement == null ? globalAttributes.getOrDefault(key, placeholder) : replacement);
-        }
-        return out;
+        return AttributeTemplate.resolve(value, attributes, globalAttributes);
     }
 
     private IfBlock readIfBlock(final Reader reader) {
@@ -1666,7 +1736,7 @@ public class Parser {
             final var branchCond = ifBlock.branchConditions.get(i - 1);
             final Predicate<ConditionalBlock.Context> branchEval;
             if ("else::[]".equals(branchCond)) {
-                branchEval = ctx -> true;
+                branchEval = ELSE_BRANCH;
             } else {
                 final var elsifLabel = branchCond.substring("elsif::".length(), branchCond.indexOf('['));
                 branchEval = new ConditionalBlock.Ifdef(elsifLabel);
@@ -1846,9 +1916,7 @@ public class Parser {
                                                  final String line,
                                                  final ContentResolver resolver,
                                                  final Map<String, String> currentAttributes) {
-        return Stream.of(Admonition.Level.values())
-                .filter(it -> line.startsWith(it.name() + ": "))
-                .findFirst()
+        return Optional.ofNullable(LineClassifier.admonitionLevel(line))
                 .map(level -> {
                     final var buffer = new ArrayList<String>();
                     buffer.add(line.substring(level.name().length() + 1).stripLeading());
@@ -1875,7 +1943,8 @@ public class Parser {
         final var currentMarker = prefix.trim();
         final int currentLevel = prefix.length() - 1 /*ending space*/;
         Element last = null;
-        while ((next = reader.nextLine()) != null && (matcher = DESCRIPTION_LIST_PREFIX.matcher(next)).matches() && !next.isBlank()) {
+        while ((next = reader.nextLine()) != null && LineClassifier.isDescriptionListCandidate(next) &&
+                (matcher = DESCRIPTION_LIST_PREFIX.matcher(next)).matches() && !next.isBlank()) {
             final var marker = matcher.group("marker");
             final var level = marker.length();
             final var sameFamily = marker.charAt(0) == currentMarker.charAt(0);
@@ -1890,7 +1959,7 @@ public class Parser {
                 }
                 String needed = null;
                 while ((next = reader.nextLine()) != null &&
-                        ((!DESCRIPTION_LIST_PREFIX.matcher(next).matches() &&
+                        ((!(LineClassifier.isDescriptionListCandidate(next) && DESCRIPTION_LIST_PREFIX.matcher(next).matches()) &&
                                 !next.isBlank()) || needed != null)) {
                     buffer.add(next);
                     if (Objects.equals(needed, next)) {
@@ -1905,7 +1974,7 @@ public class Parser {
                 final var element = doParse(enclosingDocument, new Reader(buffer), s -> true, resolver, currentAttributes, true, false);
                 final var unwrapped = unwrapElementIfPossible(element.size() == 1 && element.get(0) instanceof Paragraph p ? p : new Paragraph(element, Map.of()));
                 final var key = doParse(enclosingDocument, new Reader(List.of(matcher.group("name"))), l -> true, resolver, currentAttributes, false, false);
-                children.put(key.size() == 1 ? key.get(0) : new Paragraph(key, Map.of("nowrap", "true")), unwrapped);
+                children.put(key.size() == 1 ? key.get(0) : new Paragraph(key, NOWRAP), unwrapped);
                 last = unwrapped;
             } else { // nested (different family or longer marker)
                 reader.rewind();
@@ -1924,7 +1993,7 @@ public class Parser {
         if (next != null) {
             reader.rewind();
         }
-        return new DescriptionList(children, currentAttributes == null ? Map.of() : currentAttributes);
+        return new DescriptionList(children, currentAttributes == null ? Map.of() : unmodifiableMap(currentAttributes));
     }
 
     private UnOrderedList parseUnorderedList(final Path enclosingDocument, final Reader reader, final String options, final String prefix,
@@ -2028,9 +2097,7 @@ public class Parser {
         }
         Map<String, String> listOptions = options == null ? Map.of() : parseOptions(options);
         if (isChecklist) {
-            final var merged = new HashMap<>(listOptions);
-            merged.put("checklist", "true");
-            listOptions = Map.copyOf(merged);
+            listOptions = merge(listOptions, CHECKLIST);
         }
         return factory.apply(children, listOptions);
     }
@@ -2113,9 +2180,7 @@ public class Parser {
         }
 
         if (id != null && !id.isBlank() && !options.containsKey("id")) {
-            final var opts = new HashMap<>(options);
-            opts.putIfAbsent("id", id);
-            return new Text(styles, text, opts);
+            return new Text(styles, text, merge(options, OptionMaps.of("id", id)));
         }
         return new Text(styles, text, options); // todo: check nested links, email - without escaping
     }
@@ -2123,10 +2188,10 @@ public class Parser {
     private Map<String, String> parseOptions(final String options) {
         // quote/verse blocks: second positional arg is citetitle (not opts)
         if (options.startsWith("quote,")) {
-            return parseQuoteLikeOptions(options, "quote,", "quoteblock");
+            return compact(parseQuoteLikeOptions(options, "quote,", "quoteblock"));
         }
         if (options.startsWith("verse,")) {
-            return parseQuoteLikeOptions(options, "verse,", "verseblock");
+            return compact(parseQuoteLikeOptions(options, "verse,", "verseblock"));
         }
         // handle inline % within positional args: source%linenums,java → source,java + linenums-option
         if (options.contains("%")) {
@@ -2152,7 +2217,7 @@ public class Parser {
                 .or(() -> mapIf("example", "exampleblock", "", options))
                 .or(() -> mapIf("verse", "verseblock", "", options))
                 .or(() -> mapIf("quote", "quoteblock", "attribution", options))
-                .orElseGet(() -> doParseOptions(options, "", true));
+                .orElseGet(() -> compact(doParseOptions(options, "", true)));
     }
 
     private Map<String, String> parseQuoteLikeOptions(final String options, final String prefix, final String type) {
@@ -2175,11 +2240,11 @@ public class Parser {
     private Optional<Map<String, String>> mapIf(final String matcher, final String role,
                                                 final String defaultKey, final String options) {
         if (options.equals(matcher)) {
-            return of(role == null ? Map.of() : Map.of("role", role));
+            return of(role == null ? Map.of() : OptionMaps.of("role", role));
         }
         if (options.startsWith(matcher + ",")) {
             return of(merge(
-                    role == null ? Map.of() : Map.of("role", role),
+                    role == null ? Map.of() : OptionMaps.of("role", role),
                     doParseOptions(options.substring(matcher.length() + ",".length()).strip(), defaultKey, true)));
         }
 
@@ -2212,7 +2277,8 @@ public class Parser {
     }
 
     private Element parseSection(final Path enclosingDocument, final Reader reader, final Map<String, String> options,
-                                 final ContentResolver resolver, final Map<String, String> currentAttributes) {
+                                 final ContentResolver resolver, final Map<String, String> currentAttributes,
+                                 final StreamListener streaming) {
         final var title = reader.skipCommentsAndEmptyLines();
         int i = 0;
         while (i < title.length() && title.charAt(i) == '=') {
@@ -2230,13 +2296,30 @@ public class Parser {
         final var prefix = IntStream.rangeClosed(0, i).mapToObj(idx -> "=").collect(joining());
         final var lineContent = title.substring(i).strip();
         final var titleElement = parseLine(enclosingDocument, new Reader(List.of(lineContent)), lineContent, resolver, currentAttributes, false);
+        final var sectionTitle = titleElement.size() == 1 ? titleElement.get(0) : new Paragraph(titleElement, Map.of("nowrap", "true"));
+        final Predicate<String> continueTest = line -> !line.startsWith("=") || line.startsWith(prefix);
+        if (streaming != null) {
+            final var section = new Section(i, sectionTitle, List.of(), options == null ? Map.of() : options);
+            streaming.onSectionStart(section);
+            doParse(enclosingDocument, reader, continueTest, resolver, currentAttributes, true, false, streamingSink(streaming), streaming);
+            streaming.onSectionEnd(section);
+            return null;
+        }
         return new Section(
                 i,
-                titleElement.size() == 1 ? titleElement.get(0) : new Paragraph(titleElement, Map.of("nowrap", "true")),
-                doParse(enclosingDocument, reader, line -> !line.startsWith("=") || line.startsWith(prefix), resolver, currentAttributes, true, false),
+                sectionTitle,
+                doParse(enclosingDocument, reader, continueTest, resolver, currentAttributes, true, false),
                 options == null ? Map.of() : options);
     }
 
+    private Consumer<Element> streamingSink(final StreamListener listener) {
+        return element -> {
+            if (!(element instanceof Paragraph p) || !p.children().isEmpty()) {
+                listener.onElement(element);
+            }
+        };
+    }
+
     private Element parseFloatingTitle(final Path enclosingDocument, final Reader reader, final Map<String, String> options,
                                        final ContentResolver resolver, final Map<String, String> currentAttributes) {
         final var title = reader.skipCommentsAndEmptyLines();
@@ -2423,7 +2506,12 @@ public class Parser {
     }
 
     private boolean isLink(final String link) {
-        return LINK_PREFIXES.stream().anyMatch(link::startsWith);
+        for (final var prefix : LINK_PREFIXES) {
+            if (link.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private boolean isHorizontalRule(final String stripped) {
@@ -2512,12 +2600,20 @@ public class Parser {
         return map;
     }
 
+    // document attributes can be numerous so keep a hashed lookup (OptionMaps are for small element options),
+    // the scope also keeps the attributes defined in the nested content local to it
+    private Map<String, String> withPendingOptions(final Map<String, String> attributes, final Map<String, String> pendingOptions) {
+        final var scope = new AttributeScope(attributes == null ? Map.of() : attributes);
+        if (pendingOptions != null) {
+            for (final var option : pendingOptions.entrySet()) {
+                scope.putIfAbsent(option.getKey(), option.getValue());
+            }
+        }
+        return scope;
+    }
+
     private Map<String, String> merge(final Map<String, String> options, final Map<String, String> next) {
-        return Stream.of(options, next)
-                .filter(Objects::nonNull)
-                .map(Map::entrySet)
-                .flatMap(Collection::stream)
-                .collect(toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a));
+        return OptionMaps.merge(options, next);
     }
 
     private void addCollapsingChildOnParent(final List<Element> children, final Element elt) {
@@ -2541,64 +2637,115 @@ public class Parser {
     }
 
     private Map<String, String> removeEmptyKey(final Map<String, String> options) {
-        return options.entrySet().stream()
-                .filter(it -> !it.getKey().isBlank())
-                .collect(toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue));
+        boolean hasBlankKey = false;
+        for (final var key : options.keySet()) {
+            if (key.isBlank()) {
+                hasBlankKey = true;
+                break;
+            }
+        }
+        if (!hasBlankKey) {
+            return compact(options);
+        }
+        final var filtered = new LinkedHashMap<String, String>(options.size());
+        for (final var entry : options.entrySet()) {
+            if (!entry.getKey().isBlank()) {
+                filtered.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return compact(filtered);
     }
 
-    private void flushText(final Collection<Element> elements, final String content) {
-        if (content.isEmpty()) {
+    /**
+     * Emits the text run {@code line[from, to[} as text, link and email elements.
+     * It is a single scan of the run: a run without any {@code :} nor {@code @} can't contain a link or an email
+     * so it is emitted as is, else links are located from their colon and emails with a matcher bound to the run region,
+     * this avoids to allocate intermediate substrings (and matchers) for each found element.
+     */
+    private void flushText(final Collection<Element> elements, final String line, final int from, final int to) {
+        if (from >= to) {
             return;
         }
-        int start = 0;
-        while (start < content.length()) {
-            final int nextLink = findNextLink(content, start);
-            final var emailMatcher = EMAIL_PATTERN.matcher(content);
-            final int nextEmail = emailMatcher.find(start) ? emailMatcher.start() : -1;
-            final int next;
-            if (nextLink >= 0 && (nextEmail < 0 || nextLink <= nextEmail)) {
-                next = nextLink;
-            } else if (nextEmail >= 0 && (nextLink < 0 || nextEmail < nextLink)) {
-                next = nextEmail;
-            } else {
-                next = -1;
+
+        int firstColon = -1;
+        int firstAt = -1;
+        for (int i = from; i < to && (firstColon < 0 || firstAt < 0); i++) {
+            final char c = line.charAt(i);
+            if (c == ':' && firstColon < 0) {
+                firstColon = i;
+            } else if (c == '@' && firstAt < 0) {
+                firstAt = i;
             }
+        }
+        if (firstColon < 0 && firstAt < 0) { // plain text, most common case
+            elements.add(newText(List.of(), line.substring(from, to), Map.of()));
+            return;
+        }
+
+        final var emailMatcher = firstAt >= 0 ? EMAIL_PATTERN.matcher(line).region(from, to) : null;
+        int nextEmail = emailMatcher != null && emailMatcher.find() ? emailMatcher.start() : -1;
+        int nextLink = firstColon >= 0 ? findNextLink(line, firstColon, from, to) : -1;
+        int start = from;
+        while (start < to) {
+            final boolean isEmail = nextEmail >= 0 && (nextLink < 0 || nextEmail < nextLink);
+            final int next = isEmail ? nextEmail : nextLink;
             if (next < 0) {
-                elements.add(newText(List.of(), start == 0 ? content : content.substring(start), Map.of()));
+                elements.add(newText(List.of(), line.substring(start, to), Map.of()));
                 break;
             }
 
-            final int end;
-            if (next == nextEmail) {
-                end = emailMatcher.end();
-            } else {
-                end = Stream.of(" ", "\t")
-                        .mapToInt(s -> content.indexOf(s, next))
-                        .filter(i -> i > next)
-                        .min()
-                        .orElseGet(content::length);
-            }
-
+            final int end = isEmail ? emailMatcher.end() : endOfLink(line, next, to);
             if (start != next) {
-                elements.add(newText(List.of(), content.substring(start, next), Map.of()));
+                elements.add(newText(List.of(), line.substring(start, next), Map.of()));
             }
 
-            final var link = content.substring(next, end);
-            elements.add(new Link(next == nextEmail ? "mailto:" + link : link,
-                    new Text(List.of(), link, Map.of("nowrap", "true")), Map.of()));
-            if (end == content.length()) {
+            final var link = line.substring(next, end);
+            elements.add(new Link(isEmail ? "mailto:" + link : link, new Text(List.of(), link, NOWRAP), Map.of()));
+            if (end == to) {
                 break;
             }
             start = end;
+
+            // only move forward the scanner which was consumed or is now behind the cursor
+            if (nextEmail >= 0 && nextEmail < start) {
+                nextEmail = emailMatcher.region(start, to).find() ? emailMatcher.start() : -1;
+            }
+            if (nextLink >= 0 && nextLink < start) {
+                final int colon = line.indexOf(':', start);
+                nextLink = colon >= 0 && colon < to ? findNextLink(line, colon, start, to) : -1;
+            }
+        }
+    }
+
+    // links end at the first whitespace (or at the end of the run)
+    private int endOfLink(final String line, final int from, final int to) {
+        for (int i = from + 1; i < to; i++) {
+            final char c = line.charAt(i);
+            if (c == ' ' || c == '\t') {
+                return i;
+            }
         }
+        return to;
     }
 
-    private int findNextLink(final String line, final int from) {
-        return LINK_PREFIXES.stream()
-                .mapToInt(p -> line.indexOf(p, from))
-                .filter(i -> i >= from)
-                .min()
-                .orElse(-1);
+    // all link prefixes contain a single colon so the first colon matching a prefix gives the first link of the run
+    private int findNextLink(final String line, final int firstColon, final int from, final int to) {
+        int colon = firstColon;
+        while (colon >= 0 && colon < to) {
+            int found = -1;
+            for (final var prefix : LINK_PREFIXES) {
+                final int start = colon - prefix.indexOf(':');
+                if (start >= from && start + prefix.length() <= to && (found < 0 || start < found) &&
+                        line.startsWith(prefix, start)) {
+                    found = start;
+                }
+            }
+            if (found >= 0) {
+                return found;
+            }
+            colon = line.indexOf(':', colon + 1);
+        }
+        return -1;
     }
 
     private List<Element> flattenTexts(final List<Element> elements) {
@@ -2626,19 +2773,20 @@ public class Parser {
     }
 
     private Element mergeTexts(final List<Text> buffer) {
-        return buffer.size() == 1 ?
-                buffer.get(0) :
-                newText(
-                        List.of(),
-                        Stream.of(
-                                        Stream.of(buffer.get(0).value().stripTrailing()),
-                                        buffer.stream().skip(1).limit(buffer.size() - 2)
-                                                .map(Text::value)
-                                                .map(String::strip),
-                                        Stream.of(buffer.get(buffer.size() - 1).value().stripLeading()))
-                                .flatMap(identity())
-                                .collect(joining(" ")),
-                        Map.of());
+        if (buffer.size() == 1) {
+            return buffer.get(0);
+        }
+
+        final int last = buffer.size() - 1;
+        int length = last;
+        for (final var text : buffer) {
+            length += text.value().length();
+        }
+        final var out = new StringBuilder(length).append(buffer.get(0).value().stripTrailing());
+        for (int i = 1; i < last; i++) {
+            out.append(' ').append(buffer.get(i).value().strip());
+        }
+        return newText(List.of(), out.append(' ').append(buffer.get(last).value().stripLeading()).toString(), Map.of());
     }
 
     private void parseTagOption(final String value, final boolean defaultInclude,
@@ -2661,6 +2809,75 @@ public class Parser {
     public record ParserContext(ContentResolver resolver) {
     }
 
+    /**
+     * Evaluates an attribute value at rendering time with the attributes of the parsing.
+     * It is a class and not a lambda to be able to serialize it ({@link DocumentCache}),
+     * it keeps the identity equality of a lambda since attributes are mutable during the parsing.
+     */
+    static final class AttributeEvaluator implements Function<String, List<Element>> {
+        private final Parser parser;
+        private final Path enclosingDocument;
+        private final ContentResolver resolver;
+        private final Map<String, String> attributes;
+
+        AttributeEvaluator(final Parser parser, final Path enclosingDocument,
+                           final ContentResolver resolver, final Map<String, String> attributes) {
+            this.parser = parser;
+            this.enclosingDocument = enclosingDocument;
+            this.resolver = resolver;
+            this.attributes = attributes;
+        }
+
+        Path enclosingDocument() {
+            return enclosingDocument;
+        }
+
+        Map<String, String> attributes() {
+            return attributes;
+        }
+
+        @Override
+        public List<Element> apply(final String value) {
+            return parser.doParse(enclosingDocument, new Reader(List.of(value)), l -> true, resolver, new AttributeScope(attributes), true, false);
+        }
+    }
+
+    /**
+     * An {@code ifeval} condition keeping its source to be serializable ({@link DocumentCache}),
+     * the expression itself is compiled once and shared ({@link CompiledCondition}).
+     */
+    static final class Condition implements Predicate<ConditionalBlock.Context> {
+        private final String expression;
+        private final Map<String, String> attributes;
+        private final CompiledCondition compiled;
+        private final Map<String, String> globalAttributes;
+
+        private Condition(final String expression, final Map<String, String> attributes,
+                          final CompiledCondition compiled, final Map<String, String> globalAttributes) {
+            this.expression = expression;
+            this.attributes = attributes;
+            this.compiled = compiled;
+            this.globalAttributes = globalAttributes;
+        }
+
+        String expression() {
+            return expression;
+        }
+
+        Map<String, String> attributes() {
+            return attributes;
+        }
+
+        boolean[] test(final List<? extends ConditionalBlock.Context> variants) {
+            return compiled.test(variants, attributes, globalAttributes);
+        }
+
+        @Override
+        public boolean test(final ConditionalBlock.Context context) {
+            return compiled.test(context, attributes, globalAttributes);
+        }
+    }
+
     private record ContentWithCalloutIndices(String content, Collection<Integer> callOutReferences) {
     }
 }
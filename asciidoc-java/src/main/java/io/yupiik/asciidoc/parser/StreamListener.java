@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.parser;
+
+import io.yupiik.asciidoc.model.Element;
+import io.yupiik.asciidoc.model.Header;
+import io.yupiik.asciidoc.model.Section;
+
+/**
+ * Consumer of the events of {@link Parser#stream(java.io.BufferedReader, Parser.ParserContext, StreamListener)}.
+ * Any renderer {@code Visitor} is a listener so a renderer can consume a streamed document directly.
+ */
+public interface StreamListener {
+    /**
+     * @param header the document header, always called first.
+     */
+    default void onHeader(final Header header) {
+        // no-op
+    }
+
+    /**
+     * @param element a parsed top level block (or a block of a streamed section), it is no more referenced by the parser.
+     */
+    void onElement(Element element);
+
+    /**
+     * Sections are not materialized when streaming, their children are notified between this call
+     * and {@link #onSectionEnd(Section)} (nested sections are streamed the same way).
+     *
+     * @param section the section without its children.
+     */
+    default void onSectionStart(final Section section) {
+        // no-op
+    }
+
+    /**
+     * @param section the section without its children, closes {@link #onSectionStart(Section)}.
+     */
+    default void onSectionEnd(final Section section) {
+        // no-op
+    }
+}
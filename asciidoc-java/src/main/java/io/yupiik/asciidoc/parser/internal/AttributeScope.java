@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.parser.internal;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Copy on write view of attributes: it reads the parent attributes until a write changes a value.
+ * It avoids to copy all the document attributes when a nested parsing is started but rarely defines attributes.
+ * <p>
+ * IMPORTANT: the parent must not be modified while the scope is used.
+ */
+public class AttributeScope extends AbstractMap<String, String> {
+    private Map<String, String> attributes;
+    private boolean owned;
+
+    public AttributeScope(final Map<String, String> parent) {
+        this.attributes = parent;
+    }
+
+    @Override
+    public int size() {
+        return attributes.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return attributes.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return attributes.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(final Object value) {
+        return attributes.containsValue(value);
+    }
+
+    @Override
+    public String get(final Object key) {
+        return attributes.get(key);
+    }
+
+    @Override
+    public String getOrDefault(final Object key, final String defaultValue) {
+        return attributes.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public String put(final String key, final String value) {
+        if (!owned) {
+            final var existing = attributes.get(key);
+            if (existing != null && Objects.equals(existing, value)) { // unchanged, no need to copy
+                return existing;
+            }
+            copy();
+        }
+        return attributes.put(key, value);
+    }
+
+    @Override
+    public String remove(final Object key) {
+        if (!owned) {
+            if (!attributes.containsKey(key)) {
+                return null;
+            }
+            copy();
+        }
+        return attributes.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        attributes = new HashMap<>();
+        owned = true;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return owned ? attributes.entrySet() : Collections.unmodifiableMap(attributes).entrySet();
+    }
+
+    private void copy() {
+        attributes = new HashMap<>(attributes);
+        owned = true;
+    }
+}
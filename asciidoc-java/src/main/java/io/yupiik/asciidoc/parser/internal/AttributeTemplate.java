@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.parser.internal;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A text with {@code {name}} attribute references precompiled into literal and attribute segments.
+ * Templates are immutable, compiling one is a single scan of the text so it is not cached,
+ * holders reusing a template (compiled conditions) resolve it with a walk over the segments against the current attributes.
+ * Text without any {@code {}} does not need a template, {@link #resolve(String, Function, Map)} returns it as is.
+ */
+public final class AttributeTemplate {
+    private static final int[] NO_SLOT = new int[0];
+    private static final String[] NO_NAME = new String[0];
+
+    private final String source;
+    private final String[] names;
+    private final int[] slots; // start (on '{') and end (after '}') of each reference in source
+
+    private AttributeTemplate(final String source, final String[] names, final int[] slots) {
+        this.source = source;
+        this.names = names;
+        this.slots = slots;
+    }
+
+    /**
+     * @param source     the text to resolve.
+     * @param attributes the attributes to use.
+     * @param defaults   attributes used when {@code attributes} does not define a reference.
+     * @return the source with its known attribute references replaced, unknown ones are kept as is.
+     * If no reference is resolved, {@code source} instance itself is returned.
+     */
+    public static String resolve(final String source, final Function<String, String> attributes, final Map<String, String> defaults) {
+        return source.indexOf('{') < 0 ? source : of(source).resolve(attributes, defaults);
+    }
+
+    /**
+     * @param source the text to compile.
+     * @return the compiled template.
+     */
+    public static AttributeTemplate of(final String source) {
+        return compile(source);
+    }
+
+    public String source() {
+        return source;
+    }
+
+    /**
+     * @return {@code true} if the template references at least one attribute.
+     */
+    public boolean hasAttributes() {
+        return names.length > 0;
+    }
+
+    /**
+     * @param attributes some attributes.
+     * @return {@code true} if all the referenced attributes are defined in {@code attributes}.
+     */
+    public boolean isDefinedBy(final Map<String, String> attributes) {
+        for (final var name : names) {
+            if (attributes.get(name) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param attributes the attributes to use.
+     * @param defaults   attributes used when {@code attributes} does not define a reference.
+     * @return the resolved text, {@link #source()} if no reference is resolved.
+     */
+    public String resolve(final Function<String, String> attributes, final Map<String, String> defaults) {
+        StringBuilder out = null;
+        int last = 0;
+        for (int i = 0; i < names.length; i++) {
+            final var name = names[i];
+            var value = attributes.apply(name);
+            if (value == null) {
+                value = defaults.get(name);
+                if (value == null) { // unknown, kept as is
+                    continue;
+                }
+            }
+            if (out == null) {
+                out = new StringBuilder(source.length() + 16);
+            }
+            out.append(source, last, slots[2 * i]).append(value);
+            last = slots[2 * i + 1];
+        }
+        return out == null ? source : out.append(source, last, source.length()).toString();
+    }
+
+    @Override
+    public String toString() {
+        return "AttributeTemplate[" + source + "]";
+    }
+
+    // same matching as the "\{(?<name>[^ }]+)}" pattern but without a regex
+    private static AttributeTemplate compile(final String source) {
+        ArrayList<String> names = null;
+        ArrayList<Integer> slots = null;
+        int from = source.indexOf('{');
+        while (from >= 0) {
+            int end = from + 1;
+            while (end < source.length() && source.charAt(end) != ' ' && source.charAt(end) != '}') {
+                end++;
+            }
+            if (end > from + 1 && end < source.length() && source.charAt(end) == '}') {
+                if (names == null) {
+                    names = new ArrayList<>(2);
+                    slots = new ArrayList<>(4);
+                }
+                names.add(source.substring(from + 1, end));
+                slots.add(from);
+                slots.add(end + 1);
+                from = source.indexOf('{', end + 1);
+            } else {
+                from = source.indexOf('{', from + 1);
+            }
+        }
+        if (names == null) {
+            return new AttributeTemplate(source, NO_NAME, NO_SLOT);
+        }
+        return new AttributeTemplate(source, names.toArray(String[]::new), slots.stream().mapToInt(Integer::intValue).toArray());
+    }
+}
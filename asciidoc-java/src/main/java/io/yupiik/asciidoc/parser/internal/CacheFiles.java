@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.parser.internal;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Writes disk cache entries (documents, data URIs, diagrams) so concurrent readers never see a partial entry:
+ * the content goes to a temporary sibling file which is then moved (atomically when supported) to the entry.
+ */
+public final class CacheFiles {
+    private CacheFiles() {
+        // no-op
+    }
+
+    /**
+     * Writes an entry, on failure the temporary file is deleted and the error is propagated.
+     *
+     * @param entry  the cache entry to (re)write, its parent directory must exist.
+     * @param writer the content writer.
+     * @throws IOException if the entry can't be written.
+     */
+    public static void write(final Path entry, final EntryWriter writer) throws IOException {
+        final var tmp = entry.resolveSibling(entry.getFileName() + "." + Thread.currentThread().getId() + ".tmp");
+        try {
+            try (final var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                writer.write(out);
+            }
+            try {
+                Files.move(tmp, entry, ATOMIC_MOVE, REPLACE_EXISTING);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(tmp, entry, REPLACE_EXISTING);
+            }
+        } catch (final IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (final IOException ignored) {
+                // no-op
+            }
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    public interface EntryWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
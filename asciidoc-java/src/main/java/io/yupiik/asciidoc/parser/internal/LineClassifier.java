@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.parser.internal;
+
+import io.yupiik.asciidoc.model.Admonition;
+
+/**
+ * Cheap character based checks used by the parser before it runs its regular expressions.
+ * The {@code isXxxCandidate} methods are necessary conditions: when they return {@code false} the related pattern can't match
+ * so the parser skips it, when they return {@code true} the parser still validates the line with the pattern.
+ */
+public final class LineClassifier {
+    private static final Admonition.Level[] ADMONITION_LEVELS = Admonition.Level.values();
+
+    private LineClassifier() {
+        // no-op
+    }
+
+    /**
+     * @param line the line to test.
+     * @return the admonition level if the line starts with {@code LEVEL: }, {@code null} otherwise.
+     */
+    public static Admonition.Level admonitionLevel(final String line) {
+        if (line.length() < 4 || !isUpperAsciiLetter(line.charAt(0))) {
+            return null;
+        }
+        for (final var level : ADMONITION_LEVELS) {
+            final var name = level.name();
+            if (line.startsWith(name) && line.startsWith(": ", name.length())) {
+                return level;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param line the line to test.
+     * @return {@code true} if the line looks like {@code <prefix>. item} or {@code <prefix>) item}.
+     */
+    public static boolean isOrderedListCandidate(final String line) {
+        final int length = line.length();
+        int i = 0;
+        while (i < length && isAsciiLetterOrDigit(line.charAt(i))) {
+            i++;
+        }
+        if (i == length) {
+            return false;
+        }
+
+        final char c = line.charAt(i);
+        if (c == '.') {
+            do {
+                i++;
+            } while (i < length && line.charAt(i) == '.');
+        } else if (c == ')') {
+            i++;
+        } else {
+            return false;
+        }
+        return i + 1 < length && line.charAt(i) == ' ';
+    }
+
+    /**
+     * @param line   the line to test.
+     * @param marker the list marker ({@code *} or {@code -}).
+     * @return {@code true} if the line looks like a first level unordered list item ({@code * item}).
+     */
+    public static boolean isUnorderedListCandidate(final String line, final char marker) {
+        return line.length() > 2 && line.charAt(0) == marker && line.charAt(1) == ' ';
+    }
+
+    /**
+     * @param line the line to test.
+     * @return {@code true} if the line contains a description list marker ({@code ::} or {@code ;;}).
+     */
+    public static boolean isDescriptionListCandidate(final String line) {
+        return line.contains("::") || line.contains(";;");
+    }
+
+    /**
+     * @param line the line to test.
+     * @return {@code true} if the line can start with a cell span specification ({@code 2+}, {@code .2+}).
+     */
+    public static boolean isCellSpecCandidate(final String line) {
+        final int length = line.length();
+        int i = length > 0 && line.charAt(0) == '.' ? 1 : 0;
+        final int digitsStart = i;
+        while (i < length && isDigit(line.charAt(i))) {
+            i++;
+        }
+        return i > digitsStart && i < length && line.charAt(i) == '+';
+    }
+
+    /**
+     * Conservative check used to skip the inline and block parsing of table cells:
+     * letters, digits, spaces and a few punctuation characters the parser never interprets,
+     * starting with a letter or a digit and not looking like a list item nor ending with a hard line break.
+     *
+     * @param value the cell content.
+     * @return {@code true} if the value is parsed as a plain text.
+     */
+    public static boolean isPlainText(final String value) {
+        final int length = value.length();
+        int start = 0;
+        while (start < length && value.charAt(start) == ' ') {
+            start++;
+        }
+        if (start == length || !isLetterOrDigit(value.charAt(start)) || value.endsWith("  ")) {
+            return false;
+        }
+        for (int i = start + 1; i < length; i++) {
+            final char c = value.charAt(i);
+            if (!isLetterOrDigit(c)) {
+                switch (c) {
+                    case ' ', '.', ',', '-', '(', ')', '\'', '"', '/', '%', '?', '=', '&' -> {
+                        // not interpreted
+                    }
+                    default -> {
+                        return false;
+                    }
+                }
+            }
+        }
+        return !isOrderedListCandidate(start == 0 ? value : value.substring(start));
+    }
+
+    /**
+     * Equivalent to {@code ^(\d+|\.\d+)\+$} without compiling the pattern.
+     *
+     * @param value the value to test.
+     * @return {@code true} if the value is exactly a cell span specification.
+     */
+    public static boolean isCellSpec(final String value) {
+        final int length = value.length();
+        int i = length > 0 && value.charAt(0) == '.' ? 1 : 0;
+        final int digitsStart = i;
+        while (i < length && isDigit(value.charAt(i))) {
+            i++;
+        }
+        return i > digitsStart && i == length - 1 && value.charAt(i) == '+';
+    }
+
+    /**
+     * @param line the line to test.
+     * @return {@code true} if the line can be a callout description ({@code <1> text}).
+     */
+    public static boolean isCallOutCandidate(final String line) {
+        return line.length() > 4 && line.charAt(0) == '<' && line.indexOf("> ", 2) > 0;
+    }
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isUpperAsciiLetter(final char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isLetterOrDigit(final char c) {
+        return c < 128 ? isAsciiLetterOrDigit(c) : Character.isLetterOrDigit(c);
+    }
+
+    private static boolean isAsciiLetterOrDigit(final char c) {
+        return isDigit(c) || isUpperAsciiLetter(c) || (c >= 'a' && c <= 'z');
+    }
+}
@@ -15,7 +15,7 @@
  */
 package io.yupiik.asciidoc.parser.internal;
 
-import io.yupiik.asciidoc.parser.resolver.ContentResolver;
+import io.yupiik.asciidoc.parser.resolver.IncludeCache;
 import io.yupiik.asciidoc.parser.resolver.RelativeContentResolver;
 
 import java.io.IOException;
@@ -33,9 +33,19 @@ import static java.util.stream.Collectors.toList;
  */
 public class LocalContextResolver implements RelativeContentResolver {
     private final Path base;
+    private final IncludeCache cache;
 
     public LocalContextResolver(final Path base) {
+        this(base, null);
+    }
+
+    /**
+     * @param base  the base directory to resolve references from.
+     * @param cache an optional cache of the read content, can be shared between resolvers.
+     */
+    public LocalContextResolver(final Path base, final IncludeCache cache) {
         this.base = base;
+        this.cache = cache;
     }
 
     @Override
@@ -60,6 +70,9 @@ public class LocalContextResolver implements RelativeContentResolver {
     }
 
     private Optional<Resolved> doRead(final Charset encoding, final Path resolved) {
+        if (cache != null) {
+            return Optional.of(new Resolved(resolved, cache.read(resolved, encoding)));
+        }
         try (final var reader = Files.newBufferedReader(resolved, encoding == null ? UTF_8 : encoding)) {
             return Optional.of(new Resolved(resolved, reader.lines().collect(toList())));
         } catch (IOException e) {
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.parser.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Lines of a memory mapped UTF-8 file.
+ * Only the offset of each line is kept on heap, line strings are decoded when requested
+ * and not retained so a big (generated) document is not materialized as a list of strings before being parsed.
+ * Lines are split as {@link java.io.BufferedReader#lines()} does ({@code \n}, {@code \r\n} or {@code \r}).
+ * <p>
+ * The file must not be modified while the lines are in use.
+ */
+public final class MappedLines extends AbstractList<String> implements RandomAccess {
+    private final ByteBuffer content;
+    private final int[] starts; // line i is in [starts[i], starts[i + 1][ minus its separator
+
+    private MappedLines(final ByteBuffer content, final int[] starts) {
+        this.content = content;
+        this.starts = starts;
+    }
+
+    /**
+     * @param file the file to read.
+     * @return the lines of the file.
+     */
+    public static MappedLines of(final Path file) {
+        try (final var channel = FileChannel.open(file, READ)) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("File too big to be mapped: '" + file + "' (" + size + " bytes)");
+            }
+            return of(channel.map(FileChannel.MapMode.READ_ONLY, 0, size)); // the mapping survives the channel
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param content the UTF-8 content to index, it is shared and not copied.
+     * @return the lines of the content.
+     */
+    public static MappedLines of(final ByteBuffer content) {
+        final int limit = content.limit();
+        var starts = new int[Math.min(1024, limit / 16 + 2)];
+        int count = 0;
+        int start = 0;
+        int i = 0;
+        while (i < limit) {
+            final byte b = content.get(i);
+            if (b != '\n' && b != '\r') { // UTF-8 multi-bytes sequences never contain ASCII bytes
+                i++;
+                continue;
+            }
+            if (count + 1 >= starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+            }
+            starts[count++] = start;
+            i += b == '\r' && i + 1 < limit && content.get(i + 1) == '\n' ? 2 : 1;
+            start = i;
+        }
+        if (start < limit) { // last line without separator
+            if (count + 1 >= starts.length) {
+                starts = Arrays.copyOf(starts, count + 2);
+            }
+            starts[count++] = start;
+            start = limit;
+        }
+        starts[count] = start;
+        return new MappedLines(content, Arrays.copyOf(starts, count + 1));
+    }
+
+    @Override
+    public String get(final int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+        }
+        final int start = starts[index];
+        int end = starts[index + 1];
+        if (end > start) { // strip the separator if any
+            final byte last = content.get(end - 1);
+            if (last == '\n') {
+                end--;
+                if (end > start && content.get(end - 1) == '\r') {
+                    end--;
+                }
+            } else if (last == '\r') {
+                end--;
+            }
+        }
+        if (end == start) {
+            return "";
+        }
+        final var bytes = new byte[end - start];
+        content.get(start, bytes); // absolute bulk get, thread safe since the buffer position is not used
+        return new String(bytes, UTF_8);
+    }
+
+    @Override
+    public int size() {
+        return starts.length - 1;
+    }
+}
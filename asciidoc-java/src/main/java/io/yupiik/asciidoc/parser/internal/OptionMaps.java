@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.parser.internal;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toUnmodifiableMap;
+
+/**
+ * Compact and shared representations of element options.
+ * Options are built once by the parser and never modified after so they are stored in immutable maps
+ * keeping the iteration order of the built map (renderers can rely on it, ex: data attributes).
+ * Frequent keys are interned and recently used single option maps (ex: {@code language=java}) are shared.
+ */
+public final class OptionMaps {
+    private static final int MAX_SHARED = 1024;
+    private static final int MAX_SHARED_VALUE_LENGTH = 32;
+    private static final Map<String, String> KEYS = Stream.of(
+                    "", "role", "id", "opts", "options", "title", "language", "nowrap", "cols", "attribution",
+                    "citetitle", "colspan", "rowspan", "checklist", "width", "height", "alt", "link", "window",
+                    "start", "format", "subs", "linenums", "indent", "reftext", "caption", "align", "float",
+                    "header-option", "noheader-option", "footer-option", "autowidth-option", "linenums-option",
+                    "unsafeHtml", "collapsible-option", "open-option")
+            .collect(toUnmodifiableMap(Function.identity(), Function.identity()));
+    private static final Map<Map.Entry<String, String>, Map<String, String>> SHARED = new LinkedHashMap<>(16, .75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Map.Entry<String, String>, Map<String, String>> eldest) {
+            return size() > MAX_SHARED; // least recently used, documents of a long lived JVM differ
+        }
+    };
+
+    private OptionMaps() {
+        // no-op
+    }
+
+    /**
+     * @param key an option key.
+     * @return the canonical instance of the key if it is a frequent one, the key itself otherwise.
+     */
+    public static String key(final String key) {
+        final var known = KEYS.get(key);
+        return known == null ? key : known;
+    }
+
+    /**
+     * @param key   the option key.
+     * @param value the option value.
+     * @return a shared single entry map if it is a small value of a frequent key, a new immutable map otherwise.
+     */
+    public static Map<String, String> of(final String key, final String value) {
+        if (key == null || value == null) {
+            return Collections.singletonMap(key, value);
+        }
+        final var knownKey = KEYS.get(key);
+        if (knownKey == null || knownKey.isEmpty() || value.length() > MAX_SHARED_VALUE_LENGTH) { // free text
+            return Map.of(knownKey == null ? key : knownKey, value);
+        }
+        final var entry = Map.entry(knownKey, value);
+        synchronized (SHARED) {
+            return SHARED.computeIfAbsent(entry, e -> Map.of(e.getKey(), e.getValue()));
+        }
+    }
+
+    /**
+     * @param options options to store in an element.
+     * @return an immutable compact equivalent of the options (same iteration order).
+     */
+    public static Map<String, String> compact(final Map<String, String> options) {
+        if (options == null) {
+            return null;
+        }
+        return switch (options.size()) {
+            case 0 -> Map.of();
+            case 1 -> {
+                final var entry = options.entrySet().iterator().next();
+                yield of(entry.getKey(), entry.getValue());
+            }
+            default -> {
+                if (options instanceof ArrayMap) {
+                    yield options;
+                }
+                final var entries = new String[options.size() * 2];
+                int i = 0;
+                for (final var entry : options.entrySet()) {
+                    entries[i++] = key(entry.getKey());
+                    entries[i++] = entry.getValue();
+                }
+                yield new ArrayMap(entries);
+            }
+        };
+    }
+
+    /**
+     * @param options the options.
+     * @param next    options to add if not already in {@code options}.
+     * @return an immutable merge of both maps, {@code options} entries first.
+     */
+    public static Map<String, String> merge(final Map<String, String> options, final Map<String, String> next) {
+        if (next == null || next.isEmpty()) {
+            return options == null ? Map.of() : compact(options);
+        }
+        if (options == null || options.isEmpty()) {
+            return compact(next);
+        }
+        final var entries = new String[(options.size() + next.size()) * 2];
+        int i = 0;
+        for (final var entry : options.entrySet()) {
+            entries[i++] = key(entry.getKey());
+            entries[i++] = entry.getValue();
+        }
+        for (final var entry : next.entrySet()) {
+            if (!options.containsKey(entry.getKey())) {
+                entries[i++] = key(entry.getKey());
+                entries[i++] = entry.getValue();
+            }
+        }
+        if (i == 2) {
+            return of(entries[0], entries[1]);
+        }
+        if (i < entries.length) {
+            final var trimmed = new String[i];
+            System.arraycopy(entries, 0, trimmed, 0, i);
+            return new ArrayMap(trimmed);
+        }
+        return new ArrayMap(entries);
+    }
+
+    /**
+     * Immutable map storing keys and values in a single array, it is very compact for the few entries options have.
+     */
+    private static final class ArrayMap extends AbstractMap<String, String> {
+        private final String[] entries;
+        private Set<Entry<String, String>> entrySet;
+
+        private ArrayMap(final String[] entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public int size() {
+            return entries.length / 2;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return entries.length == 0;
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public String get(final Object key) {
+            final int index = indexOf(key);
+            return index < 0 ? null : entries[index + 1];
+        }
+
+        @Override
+        public String getOrDefault(final Object key, final String defaultValue) {
+            final int index = indexOf(key);
+            return index < 0 ? defaultValue : entries[index + 1];
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            if (entrySet == null) {
+                entrySet = new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<String, String>> iterator() {
+                        return new Iterator<>() {
+                            private int index;
+
+                            @Override
+                            public boolean hasNext() {
+                                return index < entries.length;
+                            }
+
+                            @Override
+                            public Entry<String, String> next() {
+                                if (index >= entries.length) {
+                                    throw new NoSuchElementException();
+                                }
+                                final var entry = new SimpleImmutableEntry<>(entries[index], entries[index + 1]);
+                                index += 2;
+                                return entry;
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return entries.length / 2;
+                    }
+                };
+            }
+            return entrySet;
+        }
+
+        private int indexOf(final Object key) {
+            for (int i = 0; i < entries.length; i += 2) {
+                if (Objects.equals(entries[i], key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -16,17 +16,57 @@
 package io.yupiik.asciidoc.parser.internal;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
  * Simple helper reader for the parser, should rarely (never) be needed by end users and this is not part of the public API.
+ * <p>
+ * Lines are stored as a linked list of segments (ranges of the provided lists) so inserting content
+ * does not shift the remaining lines and provided lists are shared, they must not be modified after being passed to the reader.
+ * <p>
+ * Lines can also be pulled lazily from an iterator, they are then loaded by chunks when the parser reaches them
+ * and already read lines can be released (see {@link #releaseReadLines()}).
  */
 public class Reader {
-    private final List<String> lines;
+    private static final int CHUNK_SIZE = 256;
+    private static final int KEPT_READ_LINES = 8; // enough for the parser rewinds
+
+    private final Iterator<String> source;
+    private boolean releaseReadLines;
+    private boolean released;
+
+    private Segment tail;
+    private int size;
+
+    // cursor, lines are mainly read sequentially so it makes random access O(1) in practise
+    private Segment current;
+    private int currentStart;
+
     private int lineOffset = 0;
 
     public Reader(final List<String> lines) {
-        this.lines = new ArrayList<>(lines);
+        this.source = null;
+        this.tail = new Segment(lines, 0, lines.size());
+        this.current = tail;
+        this.size = lines.size();
+    }
+
+    /**
+     * @param lines the lines to read lazily, they are pulled only when the parsing needs them.
+     */
+    public Reader(final Iterator<String> lines) {
+        this.source = lines;
+        this.tail = new Segment(List.of(), 0, 0);
+        this.current = tail;
+    }
+
+    /**
+     * Enables to release the lines already read when a new chunk is loaded, memory is then bounded by the parsed block
+     * instead of the whole document. Only used for lazy readers, {@link #reset()} can't be used anymore after this call.
+     */
+    public void releaseReadLines() {
+        releaseReadLines = true;
     }
 
     // human indexed
@@ -35,11 +75,33 @@ public class Reader {
     }
 
     public void reset() {
+        if (released) {
+            throw new IllegalStateException("Can't reset a reader which released its lines");
+        }
         lineOffset = 0;
     }
 
     public void insert(final List<String> lines) {
-        this.lines.addAll(lineOffset, lines);
+        if (lines.isEmpty()) {
+            return;
+        }
+
+        final var segment = new Segment(lines, 0, lines.size());
+        if (lineOffset >= size) {
+            insertAfter(tail, segment);
+        } else {
+            seek(lineOffset);
+            final int split = lineOffset - currentStart;
+            if (split == 0) {
+                insertBefore(current, segment);
+            } else {
+                insertAfter(current, current.split(split));
+                insertAfter(current, segment);
+            }
+        }
+        size += lines.size();
+        current = segment;
+        currentStart = lineOffset;
     }
 
     public void rewind() {
@@ -49,26 +111,26 @@ public class Reader {
     }
 
     public String nextLine() {
-        if (lineOffset >= lines.size()) {
+        if (lineOffset >= size && !load()) {
             return null;
         }
 
-        final var line = lines.get(lineOffset);
+        final var line = get(lineOffset);
         lineOffset++;
         return line;
     }
 
     public String skipCommentsAndEmptyLines() {
-        while (lineOffset < lines.size()) {
-            final var line = lines.get(lineOffset);
+        while (lineOffset < size || load()) {
+            final var line = get(lineOffset);
             lineOffset++;
 
             if (line.isBlank()) {
                 continue;
             }
             if (line.startsWith("////")) { // go to the end of the comment
-                for (int i = lineOffset + 1; i < lines.size(); i++) {
-                    if (lines.get(i).startsWith("////")) {
+                for (int i = lineOffset + 1; i < size || load(); i++) {
+                    if (get(i).startsWith("////")) {
                         lineOffset = i + 1;
                         break;
                     }
@@ -91,11 +153,129 @@ public class Reader {
     }
 
     public void setPreviousValue(final String newValue) {
-        lines.set(lineOffset - 1, newValue);
+        final int index = lineOffset - 1;
+        seek(index);
+        if (current.owned) {
+            current.lines.set(current.from + index - currentStart, newValue);
+            return;
+        }
+
+        // provided lists are shared so isolate the line in its own segment instead of mutating them
+        final int offset = index - currentStart;
+        if (offset > 0) {
+            final var end = current.split(offset);
+            insertAfter(current, end);
+            current = end;
+            currentStart = index;
+        }
+        if (current.size() > 1) {
+            insertAfter(current, current.split(1));
+        }
+        current.lines = new ArrayList<>(1);
+        current.lines.add(newValue);
+        current.from = 0;
+        current.to = 1;
+        current.owned = true;
+    }
+
+    // pulls the next chunk of lines from the lazy source if any, returns false when there is no more line
+    private boolean load() {
+        if (source == null || !source.hasNext()) {
+            return false;
+        }
+        if (releaseReadLines) {
+            release();
+        }
+        final var lines = new ArrayList<String>(CHUNK_SIZE);
+        while (lines.size() < CHUNK_SIZE && source.hasNext()) {
+            lines.add(source.next());
+        }
+        final var segment = new Segment(lines, 0, lines.size());
+        segment.owned = true;
+        insertAfter(tail, segment);
+        size += lines.size();
+        return true;
+    }
+
+    // unlinks the segments before the kept read lines, offsets stay absolute so line numbers are unchanged
+    private void release() {
+        final int keepFrom = Math.min(lineOffset, size) - KEPT_READ_LINES;
+        if (keepFrom <= 0) {
+            return;
+        }
+        seek(keepFrom);
+        if (current.previous != null) {
+            current.previous.next = null;
+            current.previous = null;
+            released = true;
+        }
+    }
+
+    private String get(final int index) {
+        seek(index);
+        return current.lines.get(current.from + index - currentStart);
+    }
+
+    private void seek(final int index) {
+        while (index < currentStart) {
+            current = current.previous;
+            currentStart -= current.size();
+        }
+        while (index >= currentStart + current.size()) {
+            currentStart += current.size();
+            current = current.next;
+        }
+    }
+
+    private void insertAfter(final Segment previous, final Segment segment) {
+        segment.previous = previous;
+        segment.next = previous.next;
+        if (previous.next == null) {
+            tail = segment;
+        } else {
+            previous.next.previous = segment;
+        }
+        previous.next = segment;
+    }
+
+    private void insertBefore(final Segment next, final Segment segment) {
+        segment.next = next;
+        segment.previous = next.previous;
+        if (next.previous != null) {
+            next.previous.next = segment;
+        }
+        next.previous = segment;
     }
 
     @Override
     public String toString() {
-        return "Reader[current=" + (lineOffset >= lines.size() ? "<none>" : lines.get(lineOffset)) + ", total=" + lines.size() + ", offset=" + lineOffset + "]";
+        return "Reader[current=" + (lineOffset >= size ? "<none>" : get(lineOffset)) + ", total=" + size + ", offset=" + lineOffset + "]";
+    }
+
+    private static class Segment {
+        private List<String> lines;
+        private int from;
+        private int to;
+        private boolean owned;
+        private Segment previous;
+        private Segment next;
+
+        private Segment(final List<String> lines, final int from, final int to) {
+            this.lines = lines;
+            this.from = from;
+            this.to = to;
+        }
+
+        private int size() {
+            return to - from;
+        }
+
+        // keeps [from, from + at) in this segment and returns the remaining lines as a new (unlinked) segment
+        private Segment split(final int at) {
+            final var end = new Segment(lines, from + at, to);
+            end.owned = owned;
+            to = from + at;
+            return end;
+        }
     }
 }
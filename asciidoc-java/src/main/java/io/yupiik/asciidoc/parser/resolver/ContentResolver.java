@@ -38,4 +38,15 @@ public interface ContentResolver {
     static ContentResolver of(final Path base) {
         return new LocalContextResolver(base);
     }
+
+    /**
+     * Creates a content resolver caching the read files.
+     *
+     * @param base  the base to resolve relative references from.
+     * @param cache the cache to share between resolvers (and parsers).
+     * @return an instance of local content resolver.
+     */
+    static ContentResolver of(final Path base, final IncludeCache cache) {
+        return new LocalContextResolver(base, cache);
+    }
 }
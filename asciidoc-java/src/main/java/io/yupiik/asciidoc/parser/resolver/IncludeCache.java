@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.parser.resolver;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Thread safe cache of the lines of included files.
+ * It can be shared between parsers, documents and threads of a build to avoid to re-read the same partials.
+ * Entries are keyed by normalized absolute path and encoding and validated against last modified time and size
+ * so an updated file is re-read.
+ */
+public class IncludeCache {
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param path     the file to read.
+     * @param encoding the encoding of the file, UTF-8 if null.
+     * @return the (unmodifiable) lines of the file.
+     */
+    public List<String> read(final Path path, final Charset encoding) {
+        final var normalized = path.toAbsolutePath().normalize();
+        final var charset = encoding == null ? UTF_8 : encoding;
+        final BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(normalized, BasicFileAttributes.class);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Can't read '" + path + "'", e);
+        }
+
+        final var key = new Key(normalized, charset);
+        final var lastModified = attributes.lastModifiedTime().toMillis();
+        final var size = attributes.size();
+        final var existing = entries.get(key);
+        if (existing != null && existing.lastModified() == lastModified && existing.size() == size) {
+            hits.increment();
+            return existing.lines();
+        }
+
+        misses.increment();
+        try (final var reader = Files.newBufferedReader(normalized, charset)) {
+            final var lines = reader.lines().toList();
+            entries.put(key, new Entry(lastModified, size, lines));
+            return lines;
+        } catch (final IOException e) {
+            throw new IllegalStateException("Can't read '" + path + "'", e);
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "IncludeCache[hits=" + hits() + ", misses=" + misses() + ", entries=" + size() + ']';
+    }
+
+    private record Key(Path path, Charset charset) {
+    }
+
+    private record Entry(long lastModified, long size, List<String> lines) {
+    }
+}
@@ -43,5 +43,16 @@ public interface RelativeContentResolver extends ContentResolver {
         return new LocalContextResolver(base);
     }
 
+    /**
+     * Creates a content resolver caching the read files.
+     *
+     * @param base  the base to resolve relative references from.
+     * @param cache the cache to share between resolvers (and parsers).
+     * @return an instance of local content resolver.
+     */
+    static RelativeContentResolver of(final Path base, final IncludeCache cache) {
+        return new LocalContextResolver(base, cache);
+    }
+
     record Resolved(Path path, List<String> content) {}
 }
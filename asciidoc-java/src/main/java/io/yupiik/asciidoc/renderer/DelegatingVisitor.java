@@ -86,6 +86,16 @@ public class DelegatingVisitor<T> implements Visitor<T> {
         delegate.visitSection(element);
     }
 
+    @Override
+    public void visitSectionStart(final Section element) {
+        delegate.visitSectionStart(element);
+    }
+
+    @Override
+    public void visitSectionEnd(final Section element) {
+        delegate.visitSectionEnd(element);
+    }
+
     @Override
     public void visitParagraph(final Paragraph element) {
         delegate.visitParagraph(element);
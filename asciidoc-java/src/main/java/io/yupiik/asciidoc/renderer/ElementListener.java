@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.renderer;
+
+import io.yupiik.asciidoc.model.ConditionalBlock;
+import io.yupiik.asciidoc.model.Document;
+import io.yupiik.asciidoc.model.Element;
+
+/**
+ * Callback a visitor notifies around the elements it visits,
+ * it enables to compute another projection of the document during the same traversal.
+ */
+public interface ElementListener {
+    /**
+     * @param document the document being visited.
+     * @param context  the attributes the visitor evaluates conditions and attributes with.
+     */
+    default void onDocument(final Document document, final ConditionalBlock.Context context) {
+        // no-op
+    }
+
+    default void onElementStart(final Element element) {
+        // no-op
+    }
+
+    default void onElementEnd(final Element element) {
+        // no-op
+    }
+}
@@ -41,16 +41,39 @@ import io.yupiik.asciidoc.model.Section;
 import io.yupiik.asciidoc.model.Table;
 import io.yupiik.asciidoc.model.Text;
 import io.yupiik.asciidoc.model.UnOrderedList;
+import io.yupiik.asciidoc.parser.StreamListener;
 
 import java.util.Collection;
 
 /**
  * Basic API to visit a document, it is not required to use it but convenient by multiple methods.
  * It also enables to decorate it with another visitor handling transversal converns (replacements for ex).
+ * <p>
+ * A visitor is also a {@link StreamListener} so it can consume a streamed document.
  *
  * @param <R> the type of result this visitor computes.
  */
-public interface Visitor<R> {
+public interface Visitor<R> extends StreamListener {
+    @Override
+    default void onHeader(final Header header) {
+        visitHeader(header);
+    }
+
+    @Override
+    default void onElement(final Element element) {
+        visitElement(element);
+    }
+
+    @Override
+    default void onSectionStart(final Section section) {
+        visitSectionStart(section);
+    }
+
+    @Override
+    default void onSectionEnd(final Section section) {
+        visitSectionEnd(section);
+    }
+
     default void visit(final Document document) {
         visitHeader(document.header());
         visitBody(document.body());
@@ -130,6 +153,25 @@ public interface Visitor<R> {
         element.children().forEach(this::visitElement);
     }
 
+    /**
+     * Only called when the document is streamed ({@link StreamListener#onSectionStart(Section)}),
+     * children are then visited one by one before {@link #visitSectionEnd(Section)} is called.
+     *
+     * @param element the section without its children.
+     */
+    default void visitSectionStart(final Section element) {
+        // no-op
+    }
+
+    /**
+     * Closes a section opened by {@link #visitSectionStart(Section)}.
+     *
+     * @param element the section without its children.
+     */
+    default void visitSectionEnd(final Section element) {
+        // no-op
+    }
+
     default void visitParagraph(final Paragraph element) {
         element.children().forEach(this::visitElement);
     }
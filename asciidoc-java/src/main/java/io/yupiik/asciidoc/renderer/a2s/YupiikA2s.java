@@ -15,45 +15,174 @@
  */
 package io.yupiik.asciidoc.renderer.a2s;
 
+import io.yupiik.asciidoc.parser.internal.CacheFiles;
 import io.yupiik.tools.ascii2svg.Svg;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Renders ascii diagrams as SVG.
+ * <p>
+ * Rendered diagrams are kept in a bounded in-memory cache keyed by the diagram and its options and can be persisted
+ * in a directory to be reused between builds.
+ */
 public final class YupiikA2s {
-    private static Impl IMPL = null;
-    private static Boolean IS_AVAILABLE = null;
+    private static final int MAX_CACHED = 256;
+    private static final Map<Key, Rendered> CACHE = new LinkedHashMap<>(16, .75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key, Rendered> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
 
     private YupiikA2s() {
         // no-op
     }
 
     public static String svg(final String content, final Map<String, String> options) {
+        return svg(content, options, null);
+    }
+
+    /**
+     * @param content   the diagram.
+     * @param options   the rendering options ({@code tabWidth}, {@code blur}, {@code font}, {@code scaleX}).
+     * @param diskCache optional directory where rendered diagrams are persisted.
+     * @return the SVG.
+     */
+    public static String svg(final String content, final Map<String, String> options, final Path diskCache) {
+        return render(content, options, diskCache).svg();
+    }
+
+    /**
+     * @param content   the diagram.
+     * @param options   the rendering options.
+     * @param diskCache optional directory where rendered diagrams are persisted.
+     * @return the SVG as a data URI.
+     */
+    public static String dataUri(final String content, final Map<String, String> options, final Path diskCache) {
+        return render(content, options, diskCache).dataUri();
+    }
+
+    public static boolean isAvailable() {
+        return Holder.IMPL != null;
+    }
+
+    private static Rendered render(final String content, final Map<String, String> options, final Path diskCache) {
         if (!isAvailable()) {
             throw new IllegalStateException("Ensure to add ascii2svg dependency");
         }
-        return IMPL.toSvg(
+
+        final var key = new Key(
                 content,
                 Integer.parseInt(options.getOrDefault("tabWidth", "8")),
                 Boolean.parseBoolean(options.getOrDefault("blur", "false")),
                 options.getOrDefault("font", "Consolas,Monaco,Anonymous Pro,Anonymous,Bitstream Sans Mono,monospace"),
                 Integer.parseInt(options.getOrDefault("scaleX", "9")),
                 Integer.parseInt(options.getOrDefault("scaleX", "16")));
+        synchronized (CACHE) {
+            final var cached = CACHE.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        final var entry = diskCache == null ? null : diskCache.resolve(key.hash() + ".svg");
+        var svg = entry == null ? null : read(entry);
+        if (svg == null) {
+            svg = Holder.IMPL.toSvg(key.content(), key.tabWidth(), key.blur(), key.font(), key.scaleX(), key.scaleY());
+            if (entry != null) {
+                write(entry, svg);
+            }
+        }
+
+        final var rendered = new Rendered(svg, "data:image/svg+xml;base64," + Base64.getEncoder().encodeToString(svg.getBytes(UTF_8)));
+        synchronized (CACHE) {
+            CACHE.put(key, rendered);
+        }
+        return rendered;
     }
 
-    public static boolean isAvailable() {
-        if (IS_AVAILABLE == null) { // not important if concurrently done
+    private static String read(final Path entry) {
+        try {
+            return Files.readString(entry);
+        } catch (final IOException e) { // missing or corrupted, will be rewritten
+            return null;
+        }
+    }
+
+    private static void write(final Path entry, final String svg) {
+        try {
+            Files.createDirectories(entry.getParent());
+            CacheFiles.write(entry, out -> out.write(svg.getBytes(UTF_8)));
+        } catch (final IOException e) { // cache is best effort
+            // no-op
+        }
+    }
+
+    private record Key(String content, int tabWidth, boolean blur, String font, int scaleX, int scaleY) {
+        private String hash() {
+            try {
+                final var digest = MessageDigest.getInstance("SHA-256");
+                digest.update(Holder.IMPL.version.getBytes(UTF_8));
+                digest.update((byte) 0);
+                digest.update((tabWidth + "\n" + blur + "\n" + font + "\n" + scaleX + "\n" + scaleY).getBytes(UTF_8));
+                digest.update((byte) 0);
+                return HexFormat.of().formatHex(digest.digest(content.getBytes(UTF_8)));
+            } catch (final NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private record Rendered(String svg, String dataUri) {
+    }
+
+    // lazy holder: initialized once, thread safely, at first usage
+    private static final class Holder {
+        private static final Impl IMPL = newImpl();
+
+        private Holder() {
+            // no-op
+        }
+
+        private static Impl newImpl() {
             try {
-                IMPL = new Impl();
-                IS_AVAILABLE = true;
+                return new Impl();
             } catch (final NoClassDefFoundError | RuntimeException e) {
-                IS_AVAILABLE = false;
+                return null;
             }
         }
-        return IS_AVAILABLE;
     }
 
     private static class Impl {
         private final Svg svg = new Svg();
+        private final String version = version();
+
+        // the version is in the disk cache keys, without a manifest use the bytecode
+        private static String version() {
+            final var version = Svg.class.getPackage().getImplementationVersion();
+            if (version != null) {
+                return version;
+            }
+            try (final var in = Svg.class.getResourceAsStream(Svg.class.getSimpleName() + ".class")) {
+                if (in == null) {
+                    throw new IllegalStateException("Can't find bytecode of " + Svg.class);
+                }
+                return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(in.readAllBytes()));
+            } catch (final IOException | NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
 
         public String toSvg(final String content, final int tabWidth, final boolean blur, final String font,
                             final int scaleX, final int scaleY) {
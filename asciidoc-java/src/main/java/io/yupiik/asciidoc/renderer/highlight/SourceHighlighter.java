@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.renderer.highlight;
+
+import io.yupiik.asciidoc.renderer.html.HtmlEscaping;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Highlights source code at build time, it produces the same markup than highlight.js ({@code hljs-*} classes)
+ * so the client side highlighting is no more needed.
+ * <p>
+ * Highlighted snippets are kept in a bounded in-memory cache keyed by language and content.
+ */
+public final class SourceHighlighter {
+    private static final int MAX_CACHED = 512;
+    private static final Map<Key, String> CACHE = new LinkedHashMap<>(16, .75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key, String> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    private static final Rule CALLOUT = new Rule(Pattern.compile("(?m)(?<= )\\([0-9]+\\)(?=[ \\t]*$)"), s -> null);
+    private static final Language JAVA = new Language(List.of(
+            new Rule(Pattern.compile("//[^\n]*|/\\*.*?\\*/", Pattern.DOTALL), s -> "comment"),
+            new Rule(Pattern.compile("\"\"\".*?\"\"\"|\"(?:[^\"\\\\\n]|\\\\.)*\"|'(?:[^'\\\\\n]|\\\\.)+'", Pattern.DOTALL), s -> "string"),
+            new Rule(Pattern.compile("@[A-Za-z_][\\w.]*"), s -> "meta"),
+            new Rule(Pattern.compile("\\b(?:0[xX][0-9a-fA-F_]+|[0-9][0-9_]*(?:\\.[0-9_]+)?(?:[eE][+-]?[0-9]+)?[lLfFdD]?)\\b"), s -> "number"),
+            new Rule(Pattern.compile("[A-Za-z_$][\\w$]*"), words(Map.of(
+                    "keyword", Set.of(
+                            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+                            "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+                            "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+                            "new", "package", "private", "protected", "public", "return", "short", "static", "strictfp",
+                            "super", "switch", "synchronized", "this", "throw", "throws", "transient", "try", "void",
+                            "volatile", "while", "var", "record", "yield", "sealed", "permits"),
+                    "literal", Set.of("true", "false", "null"))))));
+    private static final Language JSON = new Language(List.of(
+            new Rule(Pattern.compile("\"(?:[^\"\\\\\n]|\\\\.)*\"(?=\\s*:)"), s -> "attr"),
+            new Rule(Pattern.compile("\"(?:[^\"\\\\\n]|\\\\.)*\""), s -> "string"),
+            new Rule(Pattern.compile("-?\\b[0-9]+(?:\\.[0-9]+)?(?:[eE][+-]?[0-9]+)?\\b"), s -> "number"),
+            new Rule(Pattern.compile("\\b(?:true|false|null)\\b"), s -> "literal"),
+            new Rule(Pattern.compile("[{}\\[\\],:]"), s -> "punctuation")));
+    private static final Language YAML = new Language(List.of(
+            new Rule(Pattern.compile("(?<![^\\s])#[^\n]*"), s -> "comment"),
+            new Rule(Pattern.compile("(?m)^(?:---|\\.\\.\\.)$"), s -> "meta"),
+            new Rule(Pattern.compile("(?m)(?<=^|^[ \\t]{1,64}|- )[^\\s#:\"'\\-][^\n:#]*(?=:(?:\\s|$))"), s -> "attr"),
+            new Rule(Pattern.compile("(?m)(?<=^[ \\t]{0,64})-(?=\\s)"), s -> "bullet"),
+            new Rule(Pattern.compile("\"(?:[^\"\\\\\n]|\\\\.)*\"|'(?:[^'\n]|'')*'"), s -> "string"),
+            new Rule(Pattern.compile("(?m)(?<=(?:[:\\-][ \\t]|[\\[,])[ \\t]{0,16})(?:true|false|yes|no|on|off|null|~)(?=[ \\t]*(?:$|[,\\]}#]))"), s -> "literal"),
+            new Rule(Pattern.compile("(?m)(?<=(?:[:\\-][ \\t]|[\\[,])[ \\t]{0,16})-?[0-9]+(?:\\.[0-9]+)?(?=[ \\t]*(?:$|[,\\]}#]))"), s -> "number")));
+    private static final Language XML_TAG = new Language(List.of(
+            new Rule(Pattern.compile("\"[^\"]*\"|'[^']*'"), s -> "string"),
+            new Rule(Pattern.compile("(?<=<|</)[\\w:.-]+"), s -> "name"),
+            new Rule(Pattern.compile("[\\w:.-]+"), s -> "attr")));
+    private static final Language XML = new Language(List.of(
+            new Rule(Pattern.compile("<!--.*?-->", Pattern.DOTALL), s -> "comment"),
+            new Rule(Pattern.compile("<!\\[CDATA\\[.*?]]>", Pattern.DOTALL), s -> null),
+            new Rule(Pattern.compile("<[?!](?:\"[^\"]*\"|'[^']*'|[^'\">])*>"), s -> "meta"),
+            new Rule(Pattern.compile("</?[\\w:.-]+(?:\"[^\"]*\"|'[^']*'|[^'\">])*>"), s -> "tag", XML_TAG)));
+    private static final Language BASH = new Language(List.of(
+            new Rule(Pattern.compile("(?m)^#![^\n]*"), s -> "meta"),
+            new Rule(Pattern.compile("(?<![^\\s;|&(])#[^\n]*"), s -> "comment"),
+            new Rule(Pattern.compile("'[^']*'", Pattern.DOTALL), s -> "string"),
+            new Rule(Pattern.compile("\"(?:[^\"\\\\]|\\\\.)*\"", Pattern.DOTALL), s -> "string"),
+            new Rule(Pattern.compile("\\$\\{[^}\n]*}|\\$[A-Za-z_][\\w]*|\\$[0-9@#?*$!-]"), s -> "variable"),
+            new Rule(Pattern.compile("(?<![\\w.-])[0-9]+(?![\\w.])"), s -> "number"),
+            new Rule(Pattern.compile("[A-Za-z_][\\w.-]*"), words(Map.of(
+                    "keyword", Set.of(
+                            "if", "then", "else", "elif", "fi", "for", "while", "until", "in", "do", "done",
+                            "case", "esac", "function", "select", "time", "return", "break", "continue"),
+                    "built_in", Set.of(
+                            "alias", "cd", "echo", "eval", "exec", "exit", "export", "local", "printf", "pwd",
+                            "read", "readonly", "set", "shift", "source", "test", "trap", "unset", "declare"),
+                    "literal", Set.of("true", "false"))))));
+    private static final Language PROPERTIES = new Language(List.of(
+            new Rule(Pattern.compile("(?m)(?<=^[ \\t]{0,64})[#!][^\n]*"), s -> "comment"),
+            new Rule( // key, separator and value (with line continuations)
+                    Pattern.compile("(?m)(?<=^[ \\t]{0,64})((?:[^\\s=:\\\\#!]|\\\\.)(?:[^\\s=:\\\\]|\\\\.)*)(?:([ \\t]*[=:][ \\t]*)|[ \\t]+)?((?:[^\n\\\\]|\\\\(?:.|\n))*)"),
+                    Arrays.asList("attr", "punctuation", "string"))));
+    private static final Map<String, Language> LANGUAGES = Map.ofEntries(
+            Map.entry("java", JAVA),
+            Map.entry("json", JSON),
+            Map.entry("yaml", YAML),
+            Map.entry("yml", YAML),
+            Map.entry("xml", XML),
+            Map.entry("html", XML),
+            Map.entry("bash", BASH),
+            Map.entry("sh", BASH),
+            Map.entry("shell", BASH),
+            Map.entry("properties", PROPERTIES));
+
+    private SourceHighlighter() {
+        // no-op
+    }
+
+    public static boolean supports(final String language) {
+        return language != null && LANGUAGES.containsKey(language.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @param language the language of the code.
+     * @param code     the raw code.
+     * @return the escaped code with highlight.js spans or {@code null} if the language is not supported.
+     */
+    public static String highlight(final String language, final String code) {
+        if (language == null) {
+            return null;
+        }
+        final var normalized = language.toLowerCase(Locale.ROOT);
+        final var impl = LANGUAGES.get(normalized);
+        if (impl == null) {
+            return null;
+        }
+
+        final var key = new Key(normalized, code);
+        synchronized (CACHE) {
+            final var cached = CACHE.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        final var out = new StringBuilder(code.length() + (code.length() >> 1));
+        tokenize(impl, code, 0, code.length(), out);
+        final var html = out.toString();
+        synchronized (CACHE) {
+            CACHE.put(key, html);
+        }
+        return html;
+    }
+
+    private static void tokenize(final Language language, final String code, final int start, final int end, final StringBuilder out) {
+        final var rules = language.rules();
+        final var matchers = new Matcher[rules.size()];
+        for (int r = 0; r < matchers.length; r++) {
+            matchers[r] = rules.get(r).pattern().matcher(code).useTransparentBounds(true).useAnchoringBounds(false);
+        }
+
+        int plain = start;
+        int i = start;
+        while (i < end) {
+            if (Character.isWhitespace(code.charAt(i))) { // no token starts with a space
+                i++;
+                continue;
+            }
+
+            Rule rule = null;
+            Matcher matcher = null;
+            for (int r = 0; r < matchers.length; r++) {
+                final var candidate = matchers[r].region(i, end);
+                if (candidate.lookingAt() && candidate.end() > i) {
+                    rule = rules.get(r);
+                    matcher = candidate;
+                    break;
+                }
+            }
+            if (rule == null) {
+                i++;
+                continue;
+            }
+
+            final int tokenEnd = matcher.end();
+            final var style = rule.style() == null ? "" : rule.style().apply(code.substring(i, tokenEnd));
+            if (style == null) {
+                i = tokenEnd;
+                continue;
+            }
+
+            HtmlEscaping.INSTANCE.appendTo(out, code.subSequence(plain, i));
+            if (rule.groups() != null) {
+                int from = i;
+                for (int g = 1; g <= matcher.groupCount(); g++) {
+                    if (matcher.start(g) < 0 || matcher.start(g) == matcher.end(g)) {
+                        continue;
+                    }
+                    HtmlEscaping.INSTANCE.appendTo(out, code.subSequence(from, matcher.start(g)));
+                    span(rule.groups().get(g - 1), code, matcher.start(g), matcher.end(g), out);
+                    from = matcher.end(g);
+                }
+                HtmlEscaping.INSTANCE.appendTo(out, code.subSequence(from, tokenEnd));
+            } else if (rule.inner() != null) {
+                final var inner = new StringBuilder();
+                tokenize(rule.inner(), code, i, tokenEnd, inner);
+                wrap(style, inner, out);
+            } else {
+                span(style, code, i, tokenEnd, out);
+            }
+            i = tokenEnd;
+            plain = i;
+        }
+        HtmlEscaping.INSTANCE.appendTo(out, code.subSequence(plain, end));
+    }
+
+    // inner spans never cross lines so the highlighted content can be split per line too
+    private static void wrap(final String style, final CharSequence html, final StringBuilder out) {
+        int from = 0;
+        while (from < html.length()) {
+            int eol = from;
+            while (eol < html.length() && html.charAt(eol) != '\n') {
+                eol++;
+            }
+            if (eol > from) {
+                out.append("<span class=\"hljs-").append(style).append("\">").append(html, from, eol).append("</span>");
+            }
+            if (eol < html.length()) {
+                out.append('\n');
+            }
+            from = eol + 1;
+        }
+    }
+
+    // spans never cross lines to keep the output splittable per line (linenums)
+    private static void span(final String style, final String code, final int start, final int end, final StringBuilder out) {
+        int from = start;
+        while (from < end) {
+            final int eol = code.indexOf('\n', from);
+            final int to = eol < 0 || eol >= end ? end : eol;
+            if (to > from) {
+                out.append("<span class=\"hljs-").append(style).append("\">");
+                HtmlEscaping.INSTANCE.appendTo(out, code.subSequence(from, to));
+                out.append("</span>");
+            }
+            if (to < end) {
+                out.append('\n');
+            }
+            from = to + 1;
+        }
+    }
+
+    private static Function<String, String> words(final Map<String, Set<String>> styles) {
+        return word -> {
+            for (final var style : styles.entrySet()) {
+                if (style.getValue().contains(word)) {
+                    return style.getKey();
+                }
+            }
+            return null;
+        };
+    }
+
+    private record Key(String language, String content) {
+    }
+
+    private record Language(List<Rule> rules) {
+        private Language { // callouts stay plain text whatever the language, see highlightCallOuts of the renderer
+            rules = Stream.concat(Stream.of(CALLOUT), rules.stream()).toList();
+        }
+    }
+
+    /**
+     * @param pattern the token pattern.
+     * @param style   the highlight.js class (without {@code hljs-} prefix) for a token, {@code null} for plain text.
+     * @param inner   the language of the token content if it is highlighted too.
+     * @param groups  if set, the class of each capturing group of the pattern, {@code style} is then ignored.
+     */
+    private record Rule(Pattern pattern, Function<String, String> style, Language inner, List<String> groups) {
+        private Rule(final Pattern pattern, final Function<String, String> style) {
+            this(pattern, style, null, null);
+        }
+
+        private Rule(final Pattern pattern, final Function<String, String> style, final Language inner) {
+            this(pattern, style, inner, null);
+        }
+
+        private Rule(final Pattern pattern, final List<String> groups) {
+            this(pattern, null, null, groups);
+        }
+    }
+}
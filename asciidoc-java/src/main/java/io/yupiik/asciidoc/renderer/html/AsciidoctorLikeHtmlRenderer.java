@@ -24,6 +24,7 @@ import io.yupiik.asciidoc.model.Code;
 import io.yupiik.asciidoc.model.ConditionalBlock;
 import io.yupiik.asciidoc.model.DescriptionList;
 import io.yupiik.asciidoc.model.Document;
+import io.yupiik.asciidoc.model.DocumentIndex;
 import io.yupiik.asciidoc.model.Element;
 import io.yupiik.asciidoc.model.FloatingTitle;
 import io.yupiik.asciidoc.model.Header;
@@ -46,13 +47,15 @@ import io.yupiik.asciidoc.parser.Parser;
 import io.yupiik.asciidoc.parser.internal.LocalContextResolver;
 import io.yupiik.asciidoc.parser.internal.Reader;
 import io.yupiik.asciidoc.parser.resolver.ContentResolver;
+import io.yupiik.asciidoc.renderer.ElementListener;
 import io.yupiik.asciidoc.renderer.Visitor;
 import io.yupiik.asciidoc.renderer.a2s.YupiikA2s;
+import io.yupiik.asciidoc.renderer.highlight.SourceHighlighter;
 import io.yupiik.asciidoc.renderer.uri.DataResolver;
-import io.yupiik.asciidoc.renderer.uri.DataUri;
 import lombok.Getter;
 
-import java.io.ByteArrayInputStream;
+import java.io.Flushable;
+import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -62,6 +65,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.IntStream;
@@ -88,6 +94,38 @@ import static java.util.stream.Collectors.toMap;
  * Trivial document renderer as HTML.
  */
 public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
+    // plain table cells are written directly when the text rendering is not customized by a subclass
+    private static final ClassValue<Boolean> DEFAULT_TEXT_RENDERING = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(final Class<?> type) {
+            return isNotOverridden(type, "visitElement", Element.class) &&
+                    isNotOverridden(type, "visitText", Text.class) &&
+                    isNotOverridden(type, "handlePreamble", boolean.class, Element.class, Runnable.class);
+        }
+    };
+
+    private static final ClassValue<Boolean> DEFAULT_TOC = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(final Class<?> type) {
+            return isNotOverridden(type, "visitToc", Body.class) &&
+                    isNotOverridden(type, "visitSection", Section.class) &&
+                    isNotOverridden(type, "visitConditionalBlock", ConditionalBlock.class);
+        }
+    };
+    private static final ClassValue<Boolean> DEFAULT_ESCAPING = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(final Class<?> type) {
+            return isNotOverridden(type, "escape", String.class);
+        }
+    };
+    private static final ClassValue<Boolean> DEFAULT_XREF_CATALOG = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(final Class<?> type) {
+            return isNotOverridden(type, "buildXrefCatalog", List.class) &&
+                    isNotOverridden(type, "extractPlainText", Element.class);
+        }
+    };
+
     protected final StringBuilder builder = new StringBuilder();
     protected final Configuration configuration;
     protected final boolean dataUri;
@@ -96,6 +134,13 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
     protected final Parser subParser;
     protected final ContentResolver subResolver;
     protected boolean usesMermaid;
+    private Appendable output; // when set, builder is only a buffer drained into it
+    private final boolean child; // shares the resources of its parent so must not release them
+    private AsciidoctorLikeHtmlRenderer nested; // reused for titles and inline fragments
+    private TocVisitor.Collector toc; // collects the TOC during the rendering of the body
+    private final ElementListener listener; // only notified by the root renderer
+    private Relocations relocations; // only set on the workers rendering sections concurrently
+    private int flushThreshold;
 
     public AsciidoctorLikeHtmlRenderer() {
         this(new Configuration().setAttributes(Map.of()));
@@ -103,16 +148,44 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
 
     public AsciidoctorLikeHtmlRenderer(final Configuration configuration) {
         this.configuration = configuration;
+        this.child = false;
+        this.listener = configuration.getListener();
 
         final var dataUriValue = configuration.getAttributes().getOrDefault("data-uri", "false");
         this.dataUri = Boolean.parseBoolean(dataUriValue) || dataUriValue.isBlank();
         this.resolver = dataUri ?
-                (configuration.getResolver() == null ? new DataResolver(assetsDir(configuration, "imagesdir")) : configuration.getResolver()) :
+                (configuration.getResolver() == null ? newDataResolver(configuration) : configuration.getResolver()) :
                 null;
-        this.subParser = new Parser(configuration.getAttributes() == null ? Map.of() : configuration.getAttributes());
+        this.subParser = configuration.getParser() != null ?
+                configuration.getParser() :
+                new Parser(configuration.getAttributes() == null ? Map.of() : configuration.getAttributes());
         this.subResolver = new LocalContextResolver(configuration.getAssetsBase());
     }
 
+    private AsciidoctorLikeHtmlRenderer(final AsciidoctorLikeHtmlRenderer parent) {
+        this.configuration = parent.configuration;
+        this.child = true;
+        this.listener = null;
+        this.dataUri = parent.dataUri;
+        this.resolver = parent.resolver;
+        this.subParser = parent.subParser;
+        this.subResolver = parent.subResolver;
+    }
+
+    private Path a2sCache() {
+        final var directory = configuration.getAttributes().get("a2s-cache");
+        return directory == null || directory.isBlank() ? null : Path.of(directory);
+    }
+
+    private DataResolver newDataResolver(final Configuration configuration) {
+        final var resolver = new DataResolver(assetsDir(configuration, "imagesdir"));
+        final var diskCache = configuration.getAttributes().get("data-uri-cache");
+        if (diskCache != null && !diskCache.isBlank()) {
+            resolver.diskCache(Path.of(diskCache));
+        }
+        return resolver;
+    }
+
     private Path assetsDir(final Configuration configuration, final String attribute) {
         final var assetsBase = configuration.getAssetsBase();
         final var attrValue = configuration.getAttributes().get(attribute);
@@ -131,23 +204,32 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
         final var maxWidthAttr = attr("max-width", headerAttrs);
         final var maxWidthStyle = maxWidthAttr != null ? " style=\"max-width: " + maxWidthAttr + ";\"" : "";
 
-        if (!noheader) {
-            if (showToc) {
-                visitToc(body);
-            }
-            if (!configuration.isSkipGlobalContentWrapper()) {
-                builder.append(" </div>\n");
-                builder.append(" <div id=\"content\"").append(maxWidthStyle).append(">\n");
-            }
-        } else {
-            if (showToc) {
-                visitToc(body);
-            }
+        // the TOC is collected while rendering the sections and inserted there at the end
+        final int tocSlot = showToc && DEFAULT_TOC.get(getClass()) ? builder.length() : -1;
+        if (showToc && tocSlot < 0) {
+            visitToc(body);
+        }
+        if (!noheader && !configuration.isSkipGlobalContentWrapper()) {
+            builder.append(" </div>\n");
+            builder.append(" <div id=\"content\"").append(maxWidthStyle).append(">\n");
         }
 
         state.footnoteIndex = 0;
         state.footnotes.clear();
-        state.stackChain(body.children(), () -> Visitor.super.visitBody(body));
+        final int toclevels = tocLevels();
+        if (tocSlot >= 0 && toclevels >= 1) {
+            toc = new TocVisitor.Collector(toclevels, 1);
+            try {
+                state.stackChain(body.children(), () -> visitBodyChildren(body));
+                final var html = new StringBuilder();
+                writeToc(html, newTocVisitor(toclevels).render(toc.result()));
+                builder.insert(tocSlot, html);
+            } finally {
+                toc = null;
+            }
+        } else {
+            state.stackChain(body.children(), () -> visitBodyChildren(body));
+        }
 
         if (!noheader && !configuration.isSkipGlobalContentWrapper()) {
             builder.append(" </div>\n");
@@ -166,21 +248,151 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
         }
     }
 
+    private void visitBodyChildren(final Body body) {
+        if (configuration.getExecutor() == null || child || listener != null || getClass() != AsciidoctorLikeHtmlRenderer.class) {
+            Visitor.super.visitBody(body);
+            return;
+        }
+
+        final var children = body.children();
+        int start = 0;
+        while (start < children.size()) {
+            int end = start + 1;
+            if (children.get(start) instanceof Section first) {
+                while (end < children.size() && children.get(end) instanceof Section next && next.level() == first.level()) {
+                    end++;
+                }
+            }
+            if (end - start > 1) {
+                visitSectionsConcurrently(children.subList(start, end));
+            } else {
+                visitElement(children.get(start));
+            }
+            start = end;
+        }
+    }
+
+    // each section is rendered by a worker sharing the read-only state then merged in order,
+    // a section depending on the rendering of the previous ones is rendered again sequentially
+    private void visitSectionsConcurrently(final List<Element> sections) {
+        ensureXrefCatalog();
+
+        final var sectionNumberCounters = new HashMap<>(state.sectionNumberCounters);
+        final var workers = new ArrayList<CompletableFuture<AsciidoctorLikeHtmlRenderer>>(sections.size());
+        for (final var element : sections) {
+            final var section = (Section) element;
+            final var worker = new AsciidoctorLikeHtmlRenderer(this);
+            worker.relocations = new Relocations(workers.isEmpty() ? state.sawPreamble : true /* it is set by almost any section */);
+            worker.state.document = state.document;
+            worker.state.currentChain = state.currentChain;
+            worker.state.xrefCatalog = state.xrefCatalog;
+            worker.state.sawPreamble = worker.relocations.sawPreamble;
+            worker.state.sectionNumberCounters.putAll(sectionNumberCounters);
+            if (toc != null) {
+                worker.toc = new TocVisitor.Collector(tocLevels(), 1);
+            }
+
+            // children are deeper so the numbering of the next section only depends on this one
+            sectionNumberCounters.merge(section.level(), 1, Integer::sum);
+            sectionNumberCounters.keySet().removeIf(level -> level > section.level());
+
+            workers.add(CompletableFuture.supplyAsync(() -> {
+                worker.visitElement(section);
+                return worker;
+            }, configuration.getExecutor()));
+        }
+
+        for (int i = 0; i < sections.size(); i++) {
+            final AsciidoctorLikeHtmlRenderer worker;
+            try {
+                worker = workers.get(i).join();
+            } catch (final CompletionException ce) {
+                if (ce.getCause() instanceof RuntimeException re) {
+                    throw re;
+                }
+                throw new IllegalStateException(ce.getCause());
+            }
+
+            if (worker.relocations.sequential || worker.relocations.sawPreamble != state.sawPreamble || !worker.state.counters.isEmpty()) {
+                visitElement(sections.get(i));
+            } else {
+                merge(worker);
+            }
+        }
+    }
+
+    private void merge(final AsciidoctorLikeHtmlRenderer worker) {
+        final int footnoteShift = state.footnoteIndex;
+        final int indexTermShift = state.indexTermCount;
+        final var html = worker.builder;
+        int from = 0;
+        for (final var number : worker.relocations.numbers) {
+            builder.append(html, from, number.offset());
+            builder.append(number.value() + (number.footnote() ? footnoteShift : indexTermShift));
+            from = number.offset() + Integer.toString(number.value()).length();
+        }
+        builder.append(html, from, html.length());
+
+        for (final var footnote : worker.state.footnotes) {
+            state.footnotes.add(new FootNote(footnote.index() + footnoteShift, footnote.id(), footnote.text()));
+        }
+        state.footnoteIndex += worker.state.footnoteIndex;
+        state.indexTermCount += worker.state.indexTermCount;
+        state.sectionNumberCounters.clear();
+        state.sectionNumberCounters.putAll(worker.state.sectionNumberCounters);
+        state.sawPreamble = worker.state.sawPreamble;
+        state.hasStem |= worker.state.hasStem;
+        usesMermaid |= worker.usesMermaid;
+        if (toc != null) {
+            toc.append(worker.toc.result());
+        }
+
+        if (output != null && toc == null && builder.length() >= flushThreshold) {
+            drain();
+        }
+    }
+
+    // numbers depending on the previous sections, section workers record them to shift them when merged
+    private void appendNumber(final boolean footnote, final int value) {
+        if (relocations != null) {
+            relocations.numbers.add(new Relocation(builder.length(), value, footnote));
+        }
+        builder.append(value);
+    }
+
     @Override
     public void visitConditionalBlock(final ConditionalBlock element) {
         final var ctx = context();
+        // the TOC evaluates conditions without attributes, keep the same behavior when collecting it while rendering
+        final boolean inToc = toc != null && element.evaluator().test(key -> null);
         if (element.evaluator().test(ctx)) {
-            state.stackChain(element.children(), () -> element.children().forEach(this::visitElement));
+            blockingToc(!inToc, () -> state.stackChain(element.children(), () -> element.children().forEach(this::visitElement)));
         } else {
+            if (inToc) {
+                element.children().forEach(toc::visitElement);
+            }
             for (final var branch : element.elseBranches()) {
                 if (branch.evaluator().test(ctx)) {
-                    state.stackChain(branch.children(), () -> branch.children().forEach(this::visitElement));
+                    blockingToc(true, () -> state.stackChain(branch.children(), () -> branch.children().forEach(this::visitElement)));
                     return;
                 }
             }
         }
     }
 
+    private void blockingToc(final boolean blocked, final Runnable task) {
+        if (toc == null || !blocked) {
+            task.run();
+            return;
+        }
+        toc.block();
+        try {
+            task.run();
+        } finally {
+            toc.exit();
+        }
+    }
+
     @Override
     public ConditionalBlock.Context context() {
         final var attrs = configuration.getAttributes();
@@ -194,6 +406,9 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
 
     @Override
     public void visitElement(final Element element) {
+        if (listener != null) {
+            listener.onElementStart(element);
+        }
         state.lastElement.add(element);
         if (!state.sawPreamble && state.lastElement.size() >= 2 && element.type() != TEXT && element.type() != PARAGRAPH) {
             state.sawPreamble = true;
@@ -203,11 +418,56 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
         } finally {
             state.lastElement.remove(state.lastElement.size() - 1);
         }
+        if (listener != null) {
+            listener.onElementEnd(element);
+        }
+        if (output != null && toc == null && builder.length() >= flushThreshold) { // the TOC slot must stay in the buffer
+            drain();
+        }
+    }
+
+    /**
+     * Renders the document directly in {@code output} instead of keeping the whole HTML in memory,
+     * {@link #result()} is then empty.
+     *
+     * @param document the document to render.
+     * @param output   where to write the HTML, it is flushed at the end if {@link Flushable} but not closed.
+     */
+    public void visit(final Document document, final Appendable output) {
+        visit(document, output, 64 * 1024);
+    }
+
+    /**
+     * @param document       the document to render.
+     * @param output         where to write the HTML, it is flushed at the end if {@link Flushable} but not closed.
+     * @param flushThreshold number of buffered chars triggering a write to {@code output}.
+     */
+    public void visit(final Document document, final Appendable output, final int flushThreshold) {
+        this.output = output;
+        this.flushThreshold = flushThreshold;
+        try {
+            visit(document);
+            drain();
+            if (output instanceof Flushable f) {
+                f.flush();
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            this.output = null;
+            release();
+        }
     }
 
     @Override
     public void visit(final Document document) {
         state.document = document;
+        if (listener != null) {
+            listener.onDocument(document, context());
+        }
+        if (dataUri && !child && !Boolean.parseBoolean(configuration.getAttributes().getOrDefault("data-uri-skip-prefetch", "false"))) {
+            resolver.prefetch(document, context());
+        }
         final var embeddedAttr = attr("embedded", document.header().attributes());
         final boolean contentOnly = Boolean.parseBoolean(configuration.getAttributes().getOrDefault("noheader", "false"))
                 || "true".equals(embeddedAttr) || "".equals(embeddedAttr);
@@ -482,7 +742,7 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
     @Override
     public void visitSection(final Section element) {
         state.stackChain(element.children(), () -> {
-            final var titleRenderer = new AsciidoctorLikeHtmlRenderer(configuration);
+            final var titleRenderer = nested();
             titleRenderer.state.sawPreamble = true;
             titleRenderer.state.nowrap = true;
             titleRenderer.visitElement(element.title());
@@ -520,10 +780,16 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
                 return c == null ? cls : cls + " " + c;
             });
             final var id = element.options().get("id");
+            String tocTitle = null;
+            String tocId = null;
             if (id == null) {
                 final var prefix = docAttrs.getOrDefault("idprefix", configuration.getAttributes().get("idprefix"));
                 final var separator = docAttrs.getOrDefault("idseparator", configuration.getAttributes().get("idseparator"));
                 final var generatedId = IdGenerator.forTitle(title, prefix, separator);
+                if (Objects.equals(prefix, docAttrs.get("idprefix")) && Objects.equals(separator, docAttrs.get("idseparator"))) {
+                    tocTitle = title;
+                    tocId = generatedId;
+                }
                 builder.append(" id=\"").append(generatedId).append('"');
                 final var sectlinks = docAttrs.get("sectlinks");
                 final var sectanchors = docAttrs.get("sectanchors");
@@ -546,7 +812,16 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
             if (!configuration.isSkipSectionBody()) {
                 builder.append(" <div class=\"sectionbody\">\n");
             }
-            Visitor.super.visitSection(element);
+            if (toc != null) {
+                toc.enter(element, tocTitle, tocId);
+                try {
+                    Visitor.super.visitSection(element);
+                } finally {
+                    toc.exit();
+                }
+            } else {
+                Visitor.super.visitSection(element);
+            }
             if (!configuration.isSkipSectionBody()) {
                 builder.append(" </div>\n");
             }
@@ -556,7 +831,7 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
 
     @Override
     public void visitFloatingTitle(final FloatingTitle element) {
-        final var titleRenderer = new AsciidoctorLikeHtmlRenderer(configuration);
+        final var titleRenderer = nested();
         titleRenderer.state.sawPreamble = true;
         titleRenderer.state.nowrap = true;
         titleRenderer.visitElement(element.title());
@@ -655,7 +930,7 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
             }
         }
         if (label instanceof Text t && t.style().isEmpty() && (t.options().isEmpty() || Map.of("nowrap", "true").equals(t.options()))) {
-            builder.append(escape(t.value()));
+            appendEscaped(t.value());
         } else {
             visitElement(label);
         }
@@ -923,7 +1198,7 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
                     builder.append(styleTags.stream().skip(1).map(s -> '<' + s + '>').collect(joining()));
                 }
             }
-            builder.append(escape(element.value()));
+            appendEscaped(element.value());
             builder.append(styleTags.stream().sorted(Comparator.reverseOrder()).map(s -> "</" + s + '>').collect(joining()));
             if (wrap) {
                 builder.append("\n </").append(useP ? "p" : "span").append(">\n");
@@ -938,7 +1213,9 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
     @Override
     public void visitCode(final Code element) {
         if (element.inline()) {
-            builder.append("<code>").append(escape(element.value())).append("</code>");
+            builder.append("<code>");
+            appendEscaped(element.value());
+            builder.append("</code>");
             return;
         }
 
@@ -964,6 +1241,8 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
             builder.append(" <div class=\"listingblock\">\n <div class=\"content\">\n");
             final var linenums = element.options().containsKey("linenums-option");
             builder.append(" <pre class=\"highlightjs highlight").append(linenums ? " linenums" : "").append("\">");
+            final var highlighted = lang != null && DEFAULT_ESCAPING.get(getClass()) && "yupiik".equals(attr("source-highlighter", state.document.header().attributes())) ?
+                    SourceHighlighter.highlight(lang, element.value()) : null;
             builder.append("<code");
             writeCommonAttributes(element.options(), c -> (lang != null ? "language-" + lang + (c != null ? ' ' + c : "") : c) + " hljs");
             if (lang != null) {
@@ -972,8 +1251,11 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
             if (linenums) {
                 builder.append(" data-linenums=\"true\"");
             }
+            if (highlighted != null) { // highlight.js skips it if still loaded
+                builder.append(" data-highlighted=\"yes\"");
+            }
             builder.append(">");
-            var html = escape(element.value());
+            var html = highlighted != null ? highlighted : escape(element.value());
             if (linenums) {
                 final var lines = html.split("\n");
                 final var numbered = new StringBuilder();
@@ -988,7 +1270,7 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
             final var nowrap = element.options().containsKey("nowrap-option") || state.nowrap;
             builder.append(" <div class=\"literalblock\">\n <div class=\"content\">\n");
             builder.append(" <pre").append(nowrap ? " class=\"nowrap\"" : "").append(">");
-            builder.append(escape(element.value()));
+            appendEscaped(element.value());
             builder.append("</pre>\n </div>\n </div>\n");
         }
 
@@ -1069,32 +1351,28 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
             }
             builder.append("  </colgroup>\n");
 
+            // computed once per column and not per cell, generated tables can have thousands of rows
+            final var halignClasses = new String[haligns.size()];
+            for (int i = 0; i < halignClasses.length; i++) {
+                halignClasses[i] = "halign-" + haligns.get(i);
+            }
+
             if (!element.options().containsKey("noheader-option")) {
                 builder.append("  <thead>\n");
                 builder.append("   <tr>\n");
-                int colIdx = 0;
-                for (final var it : firstRow) {
-                    final var halign = colIdx < haligns.size() ? haligns.get(colIdx) : "left";
-                    writeTableCell("th", it, halign, "halign-" + halign);
-                    colIdx++;
-                }
+                writeTableRow("th", firstRow, haligns, halignClasses);
                 builder.append("   </tr>\n");
                 builder.append("  </thead>\n");
             }
 
             if (element.options().containsKey("noheader-option") || element.elements().size() > 1) {
-                final var startRow = element.options().containsKey("noheader-option") ? 0 : 1;
+                final var rows = element.elements();
                 builder.append("  <tbody>\n");
-                element.elements().stream().skip(startRow).forEach(row -> {
+                for (int i = element.options().containsKey("noheader-option") ? 0 : 1; i < rows.size(); i++) {
                     builder.append("   <tr>\n");
-                    int colIdx = 0;
-                    for (final var col : row) {
-                        final var halign = colIdx < haligns.size() ? haligns.get(colIdx) : "left";
-                        writeTableCell("td", col, halign, "halign-" + halign);
-                        colIdx++;
-                    }
+                    writeTableRow("td", rows.get(i), haligns, halignClasses);
                     builder.append("   </tr>\n");
-                });
+                }
                 builder.append("  </tbody>\n");
             }
         }
@@ -1265,14 +1543,14 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
                 if (configuration.isDataUriForAscii2Svg()) {
                     visitImage(new Macro(
                             "image",
-                            new DataUri(() -> new ByteArrayInputStream(YupiikA2s.svg(element.value(), element.options()).getBytes(UTF_8)), "image/svg+xml").base64(),
+                            YupiikA2s.dataUri(element.value(), element.options(), a2sCache()),
                             element.options(), false));
                 } else {
                     final var clazz = element.options().get("role");
                     if (clazz != null) {
                         builder.append(" <div class=\"").append(clazz.replace('.', ' ').strip()).append("\">\n");
                     }
-                    visitPassthroughBlock(new PassthroughBlock(YupiikA2s.svg(element.value(), element.options()), Map.of()));
+                    visitPassthroughBlock(new PassthroughBlock(YupiikA2s.svg(element.value(), element.options(), a2sCache()), Map.of()));
                     if (clazz != null) {
                         builder.append(" </div>\n");
                     }
@@ -1293,7 +1571,9 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
     public void visitMacro(final Macro element) {
         if ("indexterm".equals(element.name()) || "indexterm2".equals(element.name())) {
             state.indexTermCount++;
-            builder.append(" <a id=\"indexterm-").append(state.indexTermCount).append("\"></a>\n");
+            builder.append(" <a id=\"indexterm-");
+            appendNumber(false, state.indexTermCount);
+            builder.append("\"></a>\n");
             return;
         }
         if ("counter".equals(element.name())) {
@@ -1386,21 +1666,33 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
     }
 
     protected void visitToc(final Body body) {
-        final int toclevels = Integer.parseInt(attr("toclevels", "toclevels", "2", state.document.header().attributes()));
+        final int toclevels = tocLevels();
         if (toclevels < 1) {
             return;
         }
 
-        builder.append(" <div id=\"toc\" class=\"").append(attr("toc-class", "toc-class", "toc", state.document.header().attributes())).append("\">\n");
+        final var toc = newTocVisitor(toclevels);
+        toc.visitBody(body);
+        writeToc(builder, toc.result());
+    }
+
+    private int tocLevels() {
+        return Integer.parseInt(attr("toclevels", "toclevels", "2", state.document.header().attributes()));
+    }
+
+    private TocVisitor newTocVisitor(final int toclevels) {
+        final var docAttrs = state.document.header().attributes();
+        return new TocVisitor(toclevels, 1, docAttrs.get("idprefix"), docAttrs.get("idseparator"));
+    }
+
+    private void writeToc(final StringBuilder out, final CharSequence list) {
+        out.append(" <div id=\"toc\" class=\"").append(attr("toc-class", "toc-class", "toc", state.document.header().attributes())).append("\">\n");
         final var tocTitle = attr("toc-title", "toc-title", "Table of Contents", state.document.header().attributes());
         if (tocTitle != null && !tocTitle.isBlank()) {
-            builder.append("  <div id=\"toctitle\">").append(tocTitle).append("</div>\n");
+            out.append("  <div id=\"toctitle\">").append(tocTitle).append("</div>\n");
         }
-        final var docAttrs = state.document.header().attributes();
-        final var toc = new TocVisitor(toclevels, 1, docAttrs.get("idprefix"), docAttrs.get("idseparator"));
-        toc.visitBody(body);
-        builder.append(toc.result());
-        builder.append(" </div>\n");
+        out.append(list);
+        out.append(" </div>\n");
     }
 
     // todo: enhance
@@ -1442,26 +1734,50 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
     }
 
     private AsciidoctorLikeHtmlRenderer render(final Body body) {
-        final var nested = new AsciidoctorLikeHtmlRenderer(configuration);
+        final var nested = nested();
         nested.state.sawPreamble = true;
-        (body.children().size() == 1 && body.children().get(0) instanceof Paragraph p ?
-                p.children() :
-                body.children()).stream()
-                .map(e -> e instanceof Text t ?
-                        new Text(t.style(), t.value(), Stream.concat(
-                                        t.options().entrySet().stream(),
-                                        Stream.of(entry("nowrap", "true")))
-                                .collect(toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> b))) :
-                        e)
-                .forEach(nested::visitElement);
+        for (final var e : body.children().size() == 1 && body.children().get(0) instanceof Paragraph p ? p.children() : body.children()) {
+            if (e instanceof Text t) {
+                final var options = new HashMap<>(t.options());
+                options.put("nowrap", "true");
+                nested.visitElement(new Text(t.style(), t.value(), options));
+            } else {
+                nested.visitElement(e);
+            }
+        }
         return nested;
     }
 
+    /**
+     * @return a renderer sharing the configuration, parser and resolvers of this one, reset and reused between calls.
+     */
+    private AsciidoctorLikeHtmlRenderer nested() {
+        if (nested == null) {
+            nested = new AsciidoctorLikeHtmlRenderer(this);
+        } else {
+            nested.reset();
+        }
+        return nested;
+    }
+
+    /**
+     * Clears the output and state to reuse this renderer for another fragment.
+     */
+    void reset() {
+        builder.setLength(0);
+        state.close();
+        state.hasStem = false;
+        state.nowrap = false;
+        state.visitingWrapperLink = false;
+        state.xrefCatalog = null;
+        usesMermaid = false;
+    }
+
     // todo: enhance
     protected void visitImage(final Macro element) {
         if (dataUri && !element.label().startsWith("data:") && !element.options().containsKey("skip-data-uri")) {
             visitImage(new Macro(
-                    element.name(), resolver.apply(element.label()).base64(),
+                    element.name(), resolver.base64(element.label()),
                     !element.options().containsKey("") ?
                             Stream.of(element.options(), Map.of("", element.label()))
                                     .filter(Objects::nonNull)
@@ -1694,9 +2010,15 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
             if (existing.isPresent()) {
                 final var fn = existing.get();
                 builder.append(" <sup class=\"footnoteref\">[");
-                builder.append("<a class=\"footnote\" href=\"#_footnotedef_").append(fn.index).append("\" title=\"View footnote.\">");
-                builder.append(fn.index).append("</a>]</sup>\n");
+                builder.append("<a class=\"footnote\" href=\"#_footnotedef_");
+                appendNumber(true, fn.index);
+                builder.append("\" title=\"View footnote.\">");
+                appendNumber(true, fn.index);
+                builder.append("</a>]</sup>\n");
             } else {
+                if (relocations != null) { // can be defined in a previous section
+                    relocations.sequential = true;
+                }
                 builder.append(" <sup class=\"footnoteref red\" title=\"Unresolved footnote reference.\">[");
                 builder.append(escape(id)).append("]</sup>\n");
             }
@@ -1709,14 +2031,32 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
                 builder.append(" id=\"_footnote_").append(escape(fn.id)).append("\"");
             }
             builder.append(">[");
-            builder.append("<a id=\"_footnoteref_").append(fn.index).append("\" class=\"footnote\" href=\"#_footnotedef_").append(fn.index).append("\" title=\"View footnote.\">");
-            builder.append(fn.index).append("</a>]</sup>\n");
+            builder.append("<a id=\"_footnoteref_");
+            appendNumber(true, fn.index);
+            builder.append("\" class=\"footnote\" href=\"#_footnotedef_");
+            appendNumber(true, fn.index);
+            builder.append("\" title=\"View footnote.\">");
+            appendNumber(true, fn.index);
+            builder.append("</a>]</sup>\n");
         }
     }
 
     protected record FootNote(int index, String id, String text) {
     }
 
+    private record Relocation(int offset, int value, boolean footnote) {
+    }
+
+    private static final class Relocations {
+        private final boolean sawPreamble; // assumed value before the section
+        private final List<Relocation> numbers = new ArrayList<>();
+        private boolean sequential; // the section depends on the previous ones
+
+        private Relocations(final boolean sawPreamble) {
+            this.sawPreamble = sawPreamble;
+        }
+    }
+
     protected void visitIcon(final Macro element) {
         if (!element.inline()) {
             builder.append(' ');
@@ -1866,11 +2206,11 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
         final var valign = cellOptions.get("valign");
         final var colspan = cellOptions.get("colspan");
         final var rowspan = cellOptions.get("rowspan");
-        var classes = "tableblock " + baseClass;
+        builder.append("    <").append(tagName).append(" class=\"tableblock ").append(baseClass);
         if (valign != null) {
-            classes += " valign-" + valign;
+            builder.append(" valign-").append(valign);
         }
-        builder.append("    <").append(tagName).append(" class=\"").append(classes).append("\"");
+        builder.append('"');
         if (colspan != null) {
             builder.append(" colspan=\"").append(colspan).append('"');
         }
@@ -1886,13 +2226,42 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
         if (!isHeader) {
             builder.append("<p class=\"tableblock\">\n");
         }
-        visitElement(isHeader && cell instanceof Code c ? new Text(List.of(), c.value(), c.options()) : cell);
+        final var content = isHeader && cell instanceof Code c ? new Text(List.of(), c.value(), c.options()) : cell;
+        if (content instanceof Text t && t.style().isEmpty() && t.options().isEmpty() && !state.inCallOut &&
+                DEFAULT_TEXT_RENDERING.get(getClass())) { // what visitText writes for a plain text in a table
+            appendEscaped(t.value());
+        } else {
+            visitElement(content);
+        }
         if (!isHeader) {
             builder.append("</p>\n");
         }
         builder.append("    </").append(tagName).append(">\n");
     }
 
+    private void writeTableRow(final String tagName, final List<Element> row,
+                               final List<String> haligns, final String[] halignClasses) {
+        for (int colIdx = 0; colIdx < row.size(); colIdx++) {
+            if (colIdx < halignClasses.length) {
+                writeTableCell(tagName, row.get(colIdx), haligns.get(colIdx), halignClasses[colIdx]);
+            } else {
+                writeTableCell(tagName, row.get(colIdx), "left", "halign-left");
+            }
+        }
+    }
+
+    private static boolean isNotOverridden(final Class<?> type, final String name, final Class<?>... parameterTypes) {
+        for (var current = type; current != null && current != AsciidoctorLikeHtmlRenderer.class; current = current.getSuperclass()) {
+            try {
+                current.getDeclaredMethod(name, parameterTypes);
+                return false;
+            } catch (final NoSuchMethodException e) {
+                // check parent
+            }
+        }
+        return true;
+    }
+
     private Map<String, String> getCellOptions(final Element cell) {
         return switch (cell.type()) {
             case TEXT -> ((Text) cell).options();
@@ -1921,6 +2290,14 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
         return HtmlEscaping.INSTANCE.apply(name);
     }
 
+    private void appendEscaped(final String value) {
+        if (DEFAULT_ESCAPING.get(getClass())) {
+            HtmlEscaping.INSTANCE.appendTo(builder, value);
+        } else {
+            builder.append(escape(value));
+        }
+    }
+
     private String voidSlash() {
         final var attrs = state.document == null ? Map.<String, String>of() : state.document.header().attributes();
         final var htmlsyntax = attr("htmlsyntax", attrs);
@@ -1954,69 +2331,48 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
     }
 
     protected String extractPlainText(final Element element) {
-        if (element instanceof Text t) {
-            return t.value();
-        }
-        if (element instanceof Paragraph p) {
+        if (element instanceof Paragraph p) { // children can be customized by subclasses
             final var sb = new StringBuilder();
             for (final var child : p.children()) {
                 sb.append(extractPlainText(child));
             }
             return sb.toString();
         }
-        if (element instanceof Code c) {
-            return c.value();
-        }
         if (element instanceof Link l) {
             return extractPlainText(l.label());
         }
-        if (element instanceof Macro m) {
-            return m.label();
-        }
-        return "";
+        return DocumentIndex.plainText(element);
     }
 
     protected Map<String, String> buildXrefCatalog(final List<Element> children) {
-        final var catalog = new HashMap<String, String>();
-        buildXrefCatalog(children, catalog);
-        return Map.copyOf(catalog);
+        return DocumentIndex.of(new Body(children), this::extractPlainText).labels();
     }
 
-    private void buildXrefCatalog(final List<Element> children, final HashMap<String, String> catalog) {
-        for (final var child : children) {
-            if (child instanceof Section s) {
-                final var id = s.options().get("id");
-                if (id != null) {
-                    catalog.putIfAbsent(id, extractPlainText(s.title()).strip());
-                }
-                buildXrefCatalog(s.children(), catalog);
-            } else if (child instanceof FloatingTitle ft) {
-                final var id = ft.options().get("id");
-                if (id != null) {
-                    catalog.putIfAbsent(id, extractPlainText(ft.title()).strip());
-                }
-            } else if (child instanceof OpenBlock ob) {
-                buildXrefCatalog(ob.children(), catalog);
-            } else if (child instanceof Quote q) {
-                buildXrefCatalog(q.children(), catalog);
-            } else if (child instanceof Paragraph p) {
-                final var id = p.options().get("id");
-                if (id != null) {
-                    catalog.putIfAbsent(id, extractPlainText(p).strip());
-                }
-            }
+    protected Map<String, String> buildXrefCatalog(final Document document) {
+        if (document.index() != null && DEFAULT_XREF_CATALOG.get(getClass())) {
+            return document.index().labels(); // computed once per document and reused by all renderings
         }
+        return buildXrefCatalog(document.body().children());
     }
 
     protected void ensureXrefCatalog() {
         if (state.xrefCatalog == null && state.document != null) {
-            state.xrefCatalog = buildXrefCatalog(state.document.body().children());
+            state.xrefCatalog = buildXrefCatalog(state.document);
         }
     }
 
+    private void drain() {
+        try {
+            output.append(builder);
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        builder.setLength(0);
+    }
+
     private void release() {
         state.close();
-        if (resolver != null) {
+        if (resolver != null && !child) {
             resolver.close();
         }
     }
@@ -2069,6 +2425,9 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
         private DataResolver resolver;
         private Path assetsBase;
         private Map<String, String> attributes = Map.of();
+        private Parser parser;
+        private ElementListener listener;
+        private Executor executor;
 
         public Configuration setDataUriForAscii2Svg(final boolean dataUriForAscii2Svg) {
             this.dataUriForAscii2Svg = dataUriForAscii2Svg;
@@ -2113,6 +2472,38 @@ public class AsciidoctorLikeHtmlRenderer implements Visitor<String> {
             this.attributes = attributes;
             return this;
         }
+
+        /**
+         * @param parser the parser to use for inline content (labels), it enables to reuse the parser of the document.
+         *               If not set a parser using the configuration attributes is created.
+         * @return this.
+         */
+        public Configuration setParser(final Parser parser) {
+            this.parser = parser;
+            return this;
+        }
+
+        /**
+         * @param listener notified of the elements rendered (with attributes and conditions evaluated),
+         *                 enables to compute another projection in the same traversal,
+         *                 see {@link io.yupiik.asciidoc.renderer.text.PlainTextVisitor}.
+         * @return this.
+         */
+        public Configuration setListener(final ElementListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * @param executor if set, consecutive top level sections are rendered concurrently on this executor
+         *                 then concatenated in order (numbering stays the one of a sequential rendering).
+         *                 Ignored by subclasses and when a listener is set.
+         * @return this.
+         */
+        public Configuration setExecutor(final Executor executor) {
+            this.executor = executor;
+            return this;
+        }
     }
 
     protected static class State implements AutoCloseable {
@@ -27,7 +27,7 @@ public class HtmlEscaping implements Function<String, String> {
     public static final HtmlEscaping INSTANCE = new HtmlEscaping();
 
     // taken from commons-value
-    private final Map<Character, String> escaped = Map.ofEntries(
+    private static final Map<Character, String> ESCAPED = Map.ofEntries(
             entry('"', "&quot;"),
             entry('&', "&amp;"),
             entry('<', "&lt;"),
@@ -281,21 +281,58 @@ public class HtmlEscaping implements Function<String, String> {
             entry('\u203A', "&rsaquo;"),
             entry('\u20AC', "&euro;"));
 
+    // dense lookup table indexed by the char, null when the char is written as is
+    private static final String[] REPLACEMENTS = new String[ESCAPED.keySet().stream().mapToInt(c -> c).max().orElseThrow() + 1];
+
+    static {
+        ESCAPED.forEach((c, replacement) -> REPLACEMENTS[c] = replacement);
+    }
+
     @Override
     public String apply(final String value) {
-        StringBuilder result = null;
-        for (int i = 0; i < value.length(); i++) {
+        final int first = firstEscaped(value);
+        if (first < 0) {
+            return value;
+        }
+        final var result = new StringBuilder(value.length() + 16).append(value, 0, first);
+        doAppend(result, value, first);
+        return result.toString();
+    }
+
+    /**
+     * Escapes {@code value} directly in {@code output}, avoiding the intermediate string {@link #apply(String)} creates.
+     *
+     * @param output where to write the escaped value.
+     * @param value  the value to escape.
+     */
+    public void appendTo(final StringBuilder output, final CharSequence value) {
+        doAppend(output, value, 0);
+    }
+
+    private void doAppend(final StringBuilder output, final CharSequence value, final int from) {
+        int start = from;
+        final int length = value.length();
+        for (int i = from; i < length; i++) {
             final var c = value.charAt(i);
-            final var replacement = escaped.get(c);
-            if (replacement != null) {
-                if (result == null) {
-                    result = new StringBuilder(value.substring(0, i));
+            if (c < REPLACEMENTS.length) {
+                final var replacement = REPLACEMENTS[c];
+                if (replacement != null) {
+                    output.append(value, start, i).append(replacement);
+                    start = i + 1;
                 }
-                result.append(replacement);
-            } else if (result != null) {
-                result.append(c);
             }
         }
-        return result == null ? value : result.toString();
+        output.append(value, start, length);
+    }
+
+    private int firstEscaped(final CharSequence value) {
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            final var c = value.charAt(i);
+            if (c < REPLACEMENTS.length && REPLACEMENTS[c] != null) {
+                return i;
+            }
+        }
+        return -1;
     }
 }
@@ -15,20 +15,20 @@
  */
 package io.yupiik.asciidoc.renderer.html;
 
-import io.yupiik.asciidoc.model.Body;
 import io.yupiik.asciidoc.model.Element;
 import io.yupiik.asciidoc.model.Section;
 import io.yupiik.asciidoc.model.Text;
 import io.yupiik.asciidoc.renderer.Visitor;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
 
 import static java.util.Locale.ROOT;
-import static java.util.Optional.ofNullable;
-import static java.util.stream.Collectors.joining;
 
 public class TocVisitor implements Visitor<StringBuilder> {
     private static final Pattern DROP_ANCHOR_RX = Pattern.compile("<(?:a\\b[^>]*|/a)>");
@@ -37,6 +37,7 @@ public class TocVisitor implements Visitor<StringBuilder> {
     private final String idprefix;
     private final String idseparator;
     private final Collection<Section> sections = new ArrayList<>();
+    private AsciidoctorLikeHtmlRenderer titleRenderer; // shared with nested levels
 
     public TocVisitor(final int toclevels, final int currentLevel) {
         this(toclevels, currentLevel, null, null);
@@ -58,41 +59,58 @@ public class TocVisitor implements Visitor<StringBuilder> {
 
     @Override
     public StringBuilder result() {
+        final var collector = new Collector(maxLevel, currentLevel);
+        sections.forEach(collector::visitElement);
+        return render(collector.result());
+    }
+
+    /**
+     * Renders entries collected by a {@link Collector} created with the same levels as this visitor.
+     *
+     * @param entries the sections to list.
+     * @return the TOC list.
+     */
+    StringBuilder render(final List<Entry> entries) {
+        return render(entries, currentLevel);
+    }
+
+    private StringBuilder render(final List<Entry> entries, final int level) {
         final var builder = new StringBuilder();
-        if (sections.isEmpty()) {
+        if (entries.isEmpty()) {
             return builder;
         }
 
-        builder.append(" <ul class=\"sectlevel").append(currentLevel).append("\">\n");
-        if (currentLevel == maxLevel) {
-            builder.append(sections.stream()
-                    .map(it -> {
-                        final var title = title(it.title());
-                        return " <li><a href=\"#" + id(it, title) + "\">" + title + "</a></li>";
-                    })
-                    .collect(joining("\n", "", "\n")));
-        } else {
-            builder.append(sections.stream()
-                    .map(it -> {
-                        final var tocVisitor = new TocVisitor(maxLevel, currentLevel + 1, idprefix, idseparator);
-                        tocVisitor.visitBody(new Body(it.children()));
-                        final var children = tocVisitor.result().toString();
-                        final var title = title(it.title());
-                        return " <li><a href=\"#" + id(it, title) + "\">" + title + "</a>\n" + children + " </li>";
-                    })
-                    .collect(joining("\n", "", "\n")));
+        builder.append(" <ul class=\"sectlevel").append(level).append("\">\n");
+        for (final var entry : entries) {
+            final var title = title(entry.section().title());
+            builder.append(" <li><a href=\"#").append(id(entry, title)).append("\">").append(title).append("</a>");
+            if (level == maxLevel) {
+                builder.append("</li>\n");
+            } else {
+                builder.append('\n').append(render(entry.children(), level + 1)).append(" </li>\n");
+            }
         }
         builder.append(" </ul>\n");
         return builder;
     }
 
-    private String id(final Section section, final String title) {
-        return ofNullable(section.options().get("id"))
-                .orElseGet(() -> IdGenerator.forTitle(title, idprefix, idseparator));
+    private String id(final Entry entry, final String title) {
+        final var explicit = entry.section().options().get("id");
+        if (explicit != null) {
+            return explicit;
+        }
+        if (entry.id() != null && title.equals(entry.title())) { // already generated by the renderer
+            return entry.id();
+        }
+        return IdGenerator.forTitle(title, idprefix, idseparator);
     }
 
     private String title(final Element title) {
-        final var titleRenderer = new AsciidoctorLikeHtmlRenderer(new AsciidoctorLikeHtmlRenderer.Configuration());
+        if (titleRenderer == null) {
+            titleRenderer = new AsciidoctorLikeHtmlRenderer(new AsciidoctorLikeHtmlRenderer.Configuration());
+        } else {
+            titleRenderer.reset();
+        }
         titleRenderer.visitElement(title instanceof Text t && t.options().isEmpty() && t.style().isEmpty() ?
                 new Text(t.style(), t.value(), Map.of("nowrap", "")) :
                 title);
@@ -102,4 +120,82 @@ public class TocVisitor implements Visitor<StringBuilder> {
         }
         return result;
     }
+
+    /**
+     * A section listed in the TOC.
+     *
+     * @param section  the section.
+     * @param title    the title used to generate {@code id} if known.
+     * @param id       the generated id if known, reused when the TOC title is the same.
+     * @param children nested entries.
+     */
+    record Entry(Section section, String title, String id, List<Entry> children) {
+    }
+
+    /**
+     * Collects the TOC entries with the same rules as the visitor (levels, conditional blocks evaluated without
+     * attributes) but can be fed by another traversal through {@link #enter(Section, String, String)} and {@link #exit()}.
+     */
+    static class Collector implements Visitor<List<Entry>> {
+        private static final Frame BLOCKED = new Frame(-1, null);
+
+        private final int maxLevel;
+        private final List<Entry> entries = new ArrayList<>();
+        private final Deque<Frame> frames = new ArrayDeque<>();
+
+        Collector(final int maxLevel, final int currentLevel) {
+            this.maxLevel = maxLevel;
+            this.frames.push(new Frame(currentLevel, entries));
+        }
+
+        void enter(final Section section, final String title, final String id) {
+            final var frame = frames.peek();
+            if (frame.entries() != null && section.level() == frame.level() + 1) {
+                final var entry = new Entry(section, title, id, new ArrayList<>());
+                frame.entries().add(entry);
+                frames.push(new Frame(frame.level() + 1, frame.level() == maxLevel ? null : entry.children()));
+            } else {
+                frames.push(BLOCKED);
+            }
+        }
+
+        /**
+         * Ignores the sections until the matching {@link #exit()}.
+         */
+        void block() {
+            frames.push(BLOCKED);
+        }
+
+        void exit() {
+            frames.pop();
+        }
+
+        /**
+         * Adds entries collected by another collector at the current level.
+         */
+        void append(final List<Entry> collected) {
+            final var frame = frames.peek();
+            if (frame.entries() != null) {
+                frame.entries().addAll(collected);
+            }
+        }
+
+        @Override
+        public void visitSection(final Section element) {
+            enter(element, null, null);
+            try {
+                Visitor.super.visitSection(element);
+            } finally {
+                exit();
+            }
+        }
+
+        @Override
+        public List<Entry> result() {
+            return entries;
+        }
+
+        private record Frame(int level, List<Entry> entries) {
+        }
+    }
 }
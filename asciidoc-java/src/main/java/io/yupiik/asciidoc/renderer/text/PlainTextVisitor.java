@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.renderer.text;
+
+import io.yupiik.asciidoc.model.Admonition;
+import io.yupiik.asciidoc.model.Attribute;
+import io.yupiik.asciidoc.model.Code;
+import io.yupiik.asciidoc.model.ConditionalBlock;
+import io.yupiik.asciidoc.model.DescriptionList;
+import io.yupiik.asciidoc.model.Document;
+import io.yupiik.asciidoc.model.Element;
+import io.yupiik.asciidoc.model.FloatingTitle;
+import io.yupiik.asciidoc.model.Link;
+import io.yupiik.asciidoc.model.Listing;
+import io.yupiik.asciidoc.model.Macro;
+import io.yupiik.asciidoc.model.OpenBlock;
+import io.yupiik.asciidoc.model.OrderedList;
+import io.yupiik.asciidoc.model.Paragraph;
+import io.yupiik.asciidoc.model.Quote;
+import io.yupiik.asciidoc.model.Section;
+import io.yupiik.asciidoc.model.Table;
+import io.yupiik.asciidoc.model.Text;
+import io.yupiik.asciidoc.model.UnOrderedList;
+import io.yupiik.asciidoc.renderer.ElementListener;
+import io.yupiik.asciidoc.renderer.Visitor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes a plain text projection of a document: its title and the text of its blocks with their section path.
+ * It avoids to render HTML and parse it back when only the text is needed (search index, chunking).
+ * <p>
+ * It can be used as a {@link Visitor} or be registered as the {@link ElementListener} of a renderer
+ * to get the HTML and the text in a single traversal.
+ * Not thread safe, create an instance per document.
+ */
+public class PlainTextVisitor implements Visitor<PlainTextVisitor.Projection>, ElementListener {
+    private final Map<String, String> attributes;
+    private final List<String> path = new ArrayList<>(4);
+    private final List<Chunk> chunks = new ArrayList<>();
+    private final StringBuilder text = new StringBuilder();
+    private ConditionalBlock.Context context;
+    private Element capturing; // block being flattened, its nested elements are ignored
+    private String title = "";
+
+    public PlainTextVisitor() {
+        this(Map.of());
+    }
+
+    /**
+     * @param attributes attributes used to evaluate conditional blocks and attributes when used as a visitor.
+     */
+    public PlainTextVisitor(final Map<String, String> attributes) {
+        this.attributes = attributes;
+        this.context = attributes::get;
+    }
+
+    @Override
+    public void visit(final Document document) {
+        final var docAttributes = document.header().attributes();
+        final var merged = new HashMap<>(attributes);
+        merged.putAll(docAttributes);
+        onDocument(document, merged::get);
+        visitBody(document.body());
+    }
+
+    @Override
+    public void visitElement(final Element element) {
+        onElementStart(element);
+        try {
+            switch (element.type()) { // only containers are visited, blocks are flattened when started
+                case SECTION, OPEN_BLOCK, CONDITIONAL_BLOCK, ATTRIBUTE -> Visitor.super.visitElement(element);
+                default -> {
+                    // no-op
+                }
+            }
+        } finally {
+            onElementEnd(element);
+        }
+    }
+
+    @Override
+    public ConditionalBlock.Context context() {
+        return context;
+    }
+
+    @Override
+    public void onDocument(final Document document, final ConditionalBlock.Context context) {
+        this.context = context;
+        this.title = document.header().title();
+    }
+
+    @Override
+    public void onElementStart(final Element element) {
+        if (capturing != null) {
+            return;
+        }
+        switch (element.type()) {
+            case SECTION -> {
+                final var section = (Section) element;
+                final var buffer = new StringBuilder();
+                flatten(section.title(), buffer);
+                path.add(buffer.toString().strip());
+            }
+            case OPEN_BLOCK, CONDITIONAL_BLOCK, ATTRIBUTE, ANCHOR, PAGE_BREAK, HORIZONTAL_RULE, PASS_BLOCK, LINE_BREAK -> {
+                // containers (children are notified) or elements without text
+            }
+            case CODE -> capture(element, ((Code) element).inline() ? Kind.TEXT : Kind.CODE);
+            case LISTING -> capture(element, Kind.CODE);
+            default -> capture(element, Kind.TEXT);
+        }
+    }
+
+    @Override
+    public void onElementEnd(final Element element) {
+        if (capturing != null) {
+            if (capturing == element) {
+                capturing = null;
+            }
+            return;
+        }
+        if (element.type() == Element.ElementType.SECTION && !path.isEmpty()) {
+            path.remove(path.size() - 1);
+        }
+    }
+
+    @Override
+    public Projection result() {
+        return new Projection(title, text.toString(), List.copyOf(chunks));
+    }
+
+    private void capture(final Element element, final Kind kind) {
+        capturing = element;
+
+        final var buffer = new StringBuilder();
+        if (kind == Kind.CODE) {
+            buffer.append(element instanceof Code c ? c.value() : ((Listing) element).value());
+        } else {
+            flatten(element, buffer);
+        }
+        final var value = buffer.toString().strip();
+        if (value.isEmpty()) {
+            return;
+        }
+
+        if (!text.isEmpty()) {
+            text.append("\n\n");
+        }
+        chunks.add(new Chunk(kind, List.copyOf(path), value, text.length()));
+        text.append(value);
+    }
+
+    private void flatten(final Element element, final StringBuilder out) {
+        switch (element.type()) {
+            case TEXT -> out.append(((Text) element).value());
+            case CODE -> out.append(((Code) element).value());
+            case LISTING -> out.append(((Listing) element).value());
+            case LINE_BREAK -> out.append('\n');
+            case LINK -> {
+                final var link = (Link) element;
+                if (link.label() != null) {
+                    flatten(link.label(), out);
+                } else {
+                    out.append(link.url());
+                }
+            }
+            case MACRO -> macro((Macro) element, out);
+            case ATTRIBUTE -> {
+                final var attribute = (Attribute) element;
+                final var value = context.attribute(attribute.attribute());
+                if (value != null) {
+                    attribute.evaluator().apply(value).forEach(e -> flatten(e, out));
+                }
+            }
+            case CONDITIONAL_BLOCK -> {
+                final var conditional = (ConditionalBlock) element;
+                if (conditional.evaluator().test(context)) {
+                    lines(conditional.children(), out);
+                }
+            }
+            case PARAGRAPH -> ((Paragraph) element).children().forEach(e -> flatten(e, out));
+            case ADMONITION -> {
+                final var admonition = (Admonition) element;
+                out.append(admonition.level().name()).append(": ");
+                flatten(admonition.content(), out);
+            }
+            case UNORDERED_LIST -> lines(((UnOrderedList) element).children(), out);
+            case ORDERED_LIST -> lines(((OrderedList) element).children(), out);
+            case QUOTE -> lines(((Quote) element).children(), out);
+            case DESCRIPTION_LIST -> ((DescriptionList) element).children().forEach((key, value) -> {
+                if (!out.isEmpty() && out.charAt(out.length() - 1) != '\n') {
+                    out.append('\n');
+                }
+                flatten(key, out);
+                out.append(": ");
+                flatten(value, out);
+            });
+            case TABLE -> {
+                for (final var row : ((Table) element).elements()) {
+                    if (!out.isEmpty() && out.charAt(out.length() - 1) != '\n') {
+                        out.append('\n');
+                    }
+                    for (int i = 0; i < row.size(); i++) {
+                        if (i > 0) {
+                            out.append(" | ");
+                        }
+                        flatten(row.get(i), out);
+                    }
+                }
+            }
+            case FLOATING_TITLE -> flatten(((FloatingTitle) element).title(), out);
+            case SECTION -> {
+                final var section = (Section) element;
+                flatten(section.title(), out);
+                lines(section.children(), out);
+            }
+            case OPEN_BLOCK -> lines(((OpenBlock) element).children(), out);
+            default -> {
+                // no text
+            }
+        }
+    }
+
+    private void lines(final List<Element> elements, final StringBuilder out) {
+        for (final var element : elements) {
+            if (!out.isEmpty() && out.charAt(out.length() - 1) != '\n') {
+                out.append('\n');
+            }
+            flatten(element, out);
+        }
+    }
+
+    private void macro(final Macro macro, final StringBuilder out) {
+        switch (macro.name()) {
+            case "image" -> out.append(macro.options().getOrDefault("alt", ""));
+            case "link", "xref" -> out.append(macro.options().getOrDefault("", macro.label()));
+            case "footnote", "footnoteref", "doublefootnote", "icon", "audio", "video" -> {
+                // not part of the text flow
+            }
+            default -> out.append(macro.label());
+        }
+    }
+
+    public enum Kind {
+        TEXT, CODE
+    }
+
+    /**
+     * @param kind   the type of content.
+     * @param path   titles of the enclosing sections, outermost first.
+     * @param text   the plain text of the block.
+     * @param offset position of {@code text} in {@link Projection#text()}.
+     */
+    public record Chunk(Kind kind, List<String> path, String text, int offset) {
+    }
+
+    /**
+     * @param title  the document title.
+     * @param text   all the chunks separated by an empty line.
+     * @param chunks the blocks of the document in order.
+     */
+    public record Projection(String title, String text, List<Chunk> chunks) {
+    }
+}
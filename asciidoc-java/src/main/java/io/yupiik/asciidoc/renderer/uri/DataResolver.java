@@ -15,16 +15,37 @@
  */
 package io.yupiik.asciidoc.renderer.uri;
 
+import io.yupiik.asciidoc.model.ConditionalBlock;
+import io.yupiik.asciidoc.model.Document;
+import io.yupiik.asciidoc.model.Link;
+import io.yupiik.asciidoc.model.Macro;
+import io.yupiik.asciidoc.parser.internal.CacheFiles;
+import io.yupiik.asciidoc.renderer.Visitor;
+
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -33,11 +54,26 @@ import static java.net.http.HttpClient.newBuilder;
 import static java.net.http.HttpResponse.BodyHandlers.ofByteArray;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Locale.ROOT;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
+/**
+ * Resolves images (local or remote) as data URIs.
+ * <p>
+ * Encoded values are memoized and can be persisted in a directory (see {@link #diskCache(Path)}) to be reused
+ * between builds: local files are keyed by path, last modification time and size, remote ones by URL and revalidated
+ * with their {@code ETag}.
+ */
 public class DataResolver implements Function<String, DataUri>, AutoCloseable {
+    private static final int MAGIC = 0x59414455; // YADU
+    private static final String EXTENSION = ".datauri";
+    private static final int MAX_PREFETCH_THREADS = 8;
+
     private final Path base;
     private final Map<String, DataUri> cache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<String>> encoded = new ConcurrentHashMap<>();
+    private Path diskCache;
     private HttpClient httpClient;
+    private ExecutorService prefetchExecutor;
 
     public DataResolver(final Path base) {
         this.base = base;
@@ -52,22 +88,190 @@ public class DataResolver implements Function<String, DataUri>, AutoCloseable {
         return this;
     }
 
+    /**
+     * @param directory where to persist encoded data URIs, {@code null} to disable the persistence.
+     * @return this.
+     */
+    public DataResolver diskCache(final Path directory) {
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+            } catch (final IOException e) {
+                throw new IllegalStateException("Can't create data-uri cache '" + directory + "'", e);
+            }
+        }
+        this.diskCache = directory;
+        return this;
+    }
+
     @Override
     public DataUri apply(final String path) {
-        return cache.computeIfAbsent(path, k -> {
-            if (k.startsWith("http://") || k.startsWith("https://")) {
-                return resolveHttp(k);
+        final var cached = cache.get(path);
+        if (cached != null) {
+            return cached;
+        }
+        // resolved outside of the map to not lock other entries during a download
+        final var resolved = isHttp(path) ? resolveHttp(path) : resolveLocal(path);
+        final var concurrent = cache.putIfAbsent(path, resolved);
+        return concurrent == null ? resolved : concurrent;
+    }
+
+    /**
+     * @param path the image path or URL.
+     * @return the data URI of the image ({@code data:<mime>;base64,...}), computed once per path.
+     */
+    public String base64(final String path) {
+        final var existing = encoded.get(path);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        // concurrent callers wait for the same encoding but it runs outside of the map
+        final var future = new CompletableFuture<String>();
+        final var concurrent = encoded.putIfAbsent(path, future);
+        if (concurrent != null) {
+            return await(concurrent);
+        }
+        try {
+            final var value = encode(path);
+            future.complete(value);
+            return value;
+        } catch (final RuntimeException re) { // not cached, next call retries
+            encoded.remove(path, future);
+            future.completeExceptionally(re);
+            throw re;
+        }
+    }
+
+    /**
+     * Same as {@link #prefetch(Document, ConditionalBlock.Context)} evaluating conditional blocks with the document attributes.
+     *
+     * @param document the document to scan for image macros.
+     */
+    public void prefetch(final Document document) {
+        prefetch(document, document.header().attributes()::get);
+    }
+
+    /**
+     * Resolves concurrently the images of the document so the rendering does not fetch them one after the other.
+     * It is best effort: an image failing to resolve is ignored there and will fail during the rendering.
+     *
+     * @param document the document to scan for image macros.
+     * @param context  the context used to evaluate conditional blocks, the one of the rendering.
+     */
+    public void prefetch(final Document document, final ConditionalBlock.Context context) {
+        final var collector = new ImageCollector(context);
+        collector.visit(document);
+        prefetch(collector.images);
+    }
+
+    /**
+     * @param paths images to resolve concurrently, see {@link #prefetch(Document)}.
+     */
+    public void prefetch(final Collection<String> paths) {
+        final var missing = paths.stream().filter(it -> !encoded.containsKey(it)).toList();
+        if (missing.size() < 2) { // nothing to parallelize, rendering will resolve it
+            return;
+        }
+
+        final var executor = prefetchExecutor();
+        CompletableFuture.allOf(missing.stream()
+                        .map(path -> CompletableFuture.runAsync(() -> {
+                            try {
+                                base64(path);
+                            } catch (final RuntimeException re) {
+                                // no-op, will fail during rendering if really broken
+                            }
+                        }, executor))
+                        .toArray(CompletableFuture<?>[]::new))
+                .join();
+    }
+
+    // shared by all the prefetches of this resolver (one per page in a site), idle threads are released
+    private synchronized ExecutorService prefetchExecutor() {
+        if (prefetchExecutor == null) {
+            final var executor = new ThreadPoolExecutor(
+                    MAX_PREFETCH_THREADS, MAX_PREFETCH_THREADS, 30, SECONDS, new LinkedBlockingQueue<>(), r -> {
+                final var thread = new Thread(r, DataResolver.class.getName() + "-prefetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+            prefetchExecutor = executor;
+        }
+        return prefetchExecutor;
+    }
+
+    private String await(final CompletableFuture<String> future) {
+        try {
+            return future.join();
+        } catch (final CompletionException ce) {
+            if (ce.getCause() instanceof RuntimeException re) {
+                throw re;
             }
-            return resolveLocal(path);
-        });
+            throw new IllegalStateException(ce.getCause());
+        }
     }
 
-    private DataUri resolveLocal(final String path) { // todo: log
-        var local = Path.of(path);
-        if (!local.isAbsolute()) {
-            local = base.resolve(local);
+    private String encode(final String path) {
+        if (diskCache == null || cache.containsKey(path)) {
+            return encodeDataUri(path).value();
+        }
+        if (isHttp(path)) {
+            return encodeHttp(path);
+        }
+        return encodeLocal(path);
+    }
+
+    private String encodeLocal(final String path) {
+        final var local = localPath(path);
+        final BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(local, BasicFileAttributes.class);
+        } catch (final IOException e) { // let the default resolution fail
+            return encodeDataUri(path).value();
         }
-        final var ref = local;
+
+        final var entry = diskCache.resolve(key(local.toAbsolutePath().normalize() + "\n" +
+                attributes.lastModifiedTime().toMillis() + "\n" + attributes.size()) + EXTENSION);
+        final var cached = read(entry);
+        if (cached != null) {
+            return cached.value();
+        }
+
+        final var encodedEntry = encodeDataUri(path);
+        write(entry, encodedEntry);
+        return encodedEntry.value();
+    }
+
+    // apply() stays the resolution extension point but once encoded the (possibly downloaded) content is not kept
+    private Entry encodeDataUri(final String path) {
+        final var known = cache.containsKey(path);
+        final var dataUri = apply(path);
+        try {
+            return new Entry(null, dataUri.mimeType(), dataUri.base64());
+        } finally {
+            if (!known) {
+                cache.remove(path, dataUri);
+            }
+        }
+    }
+
+    private String encodeHttp(final String url) {
+        final var entry = diskCache.resolve(key(url) + EXTENSION);
+        final var cached = read(entry);
+        final var res = fetch(url, cached == null ? null : cached.etag());
+        if (cached != null && res.statusCode() == 304) {
+            return cached.value();
+        }
+        final var dataUri = toDataUri(url, res);
+        final var value = dataUri.base64();
+        res.headers().firstValue("ETag").ifPresent(etag -> write(entry, new Entry(etag, dataUri.mimeType(), value)));
+        return value;
+    }
+
+    private DataUri resolveLocal(final String path) { // todo: log
+        final var ref = localPath(path);
         return new DataUri(() -> {
             try {
                 return Files.newInputStream(ref);
@@ -87,23 +291,33 @@ public class DataResolver implements Function<String, DataUri>, AutoCloseable {
         }));
     }
 
+    private Path localPath(final String path) {
+        final var local = Path.of(path);
+        return local.isAbsolute() ? local : base.resolve(local);
+    }
+
     private DataUri resolveHttp(final String url) {
-        if (httpClient == null) {
-            httpClient = newBuilder().followRedirects(ALWAYS).build();
+        return toDataUri(url, fetch(url, null));
+    }
+
+    private DataUri toDataUri(final String url, final HttpResponse<byte[]> res) {
+        if (res.statusCode() >= 400) {
+            throw new IllegalArgumentException("Invalid url: '" + url + "': " + res);
+        }
+        return new DataUri(
+                () -> new ByteArrayInputStream(res.body()),
+                findMimeType(url, () -> Arrays.copyOf(res.body(), Math.min(256, res.body().length))));
+    }
+
+    private HttpResponse<byte[]> fetch(final String url, final String etag) {
+        final var request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(url));
+        if (etag != null) {
+            request.header("If-None-Match", etag);
         }
         try {
-            final var res = httpClient.send(
-                    HttpRequest.newBuilder()
-                            .GET()
-                            .uri(URI.create(url))
-                            .build(),
-                    ofByteArray());
-            if (res.statusCode() >= 400) {
-                throw new IllegalArgumentException("Invalid url: '" + url + "': " + res);
-            }
-            return new DataUri(
-                    () -> new ByteArrayInputStream(res.body()),
-                    findMimeType(url, () -> Arrays.copyOf(res.body(), Math.min(256, res.body().length))));
+            return httpClient().send(request.build(), ofByteArray());
         } catch (final IOException e) {
             throw new IllegalStateException(e);
         } catch (final InterruptedException e) {
@@ -112,6 +326,56 @@ public class DataResolver implements Function<String, DataUri>, AutoCloseable {
         }
     }
 
+    private synchronized HttpClient httpClient() {
+        if (httpClient == null) {
+            httpClient = newBuilder().followRedirects(ALWAYS).build();
+        }
+        return httpClient;
+    }
+
+    private boolean isHttp(final String path) {
+        return path.startsWith("http://") || path.startsWith("https://");
+    }
+
+    private Entry read(final Path entry) {
+        try (final var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+            if (in.readInt() != MAGIC) {
+                return null;
+            }
+            final var etag = in.readBoolean() ? in.readUTF() : null;
+            final var mimeType = in.readUTF();
+            return new Entry(etag, mimeType, new String(in.readNBytes(in.readInt()), UTF_8));
+        } catch (final IOException e) { // missing or corrupted, will be rewritten
+            return null;
+        }
+    }
+
+    private void write(final Path entry, final Entry value) {
+        try {
+            CacheFiles.write(entry, out -> {
+                out.writeInt(MAGIC);
+                out.writeBoolean(value.etag() != null);
+                if (value.etag() != null) {
+                    out.writeUTF(value.etag());
+                }
+                out.writeUTF(value.mimeType());
+                final var bytes = value.value().getBytes(UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            });
+        } catch (final IOException e) { // cache is best effort
+            // no-op
+        }
+    }
+
+    private static String key(final String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(UTF_8)));
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     private String findMimeType(final Path ref, final Supplier<byte[]> content) {
         try {
             final var found = Files.probeContentType(ref);
@@ -146,6 +410,12 @@ public class DataResolver implements Function<String, DataUri>, AutoCloseable {
 
     @Override
     public void close() {
+        synchronized (this) {
+            if (prefetchExecutor != null) {
+                prefetchExecutor.shutdownNow();
+                prefetchExecutor = null;
+            }
+        }
         if (httpClient instanceof AutoCloseable c) {
             try {
                 c.close();
@@ -157,4 +427,44 @@ public class DataResolver implements Function<String, DataUri>, AutoCloseable {
         }
         httpClient = null;
     }
+
+    private record Entry(String etag, String mimeType, String value) {
+    }
+
+    private static class ImageCollector implements Visitor<Void> {
+        private final Collection<String> images = new LinkedHashSet<>();
+        private final ConditionalBlock.Context context;
+
+        private ImageCollector(final ConditionalBlock.Context context) {
+            this.context = context;
+        }
+
+        @Override
+        public void visitMacro(final Macro element) {
+            if ("image".equals(element.name()) && !element.label().startsWith("data:") && !element.options().containsKey("skip-data-uri")) {
+                images.add(element.label());
+            }
+        }
+
+        @Override
+        public void visitLink(final Link element) {
+            if (element.label() != null) {
+                visitElement(element.label());
+            }
+        }
+
+        @Override
+        public void visitConditionalBlock(final ConditionalBlock element) { // only the rendered branch, as the renderer does
+            if (element.evaluator().test(context)) {
+                element.children().forEach(this::visitElement);
+                return;
+            }
+            for (final var branch : element.elseBranches()) {
+                if (branch.evaluator().test(context)) {
+                    branch.children().forEach(this::visitElement);
+                    return;
+                }
+            }
+        }
+    }
 }
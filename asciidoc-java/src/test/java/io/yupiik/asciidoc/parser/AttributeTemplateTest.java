@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.parser;
+
+import io.yupiik.asciidoc.parser.internal.AttributeTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AttributeTemplateTest {
+    @Test
+    void resolve() {
+        final var attributes = Map.of("product", "Yupiik", "version", "1.2");
+        final var defaults = Map.of("edition", "pro");
+        assertEquals("Yupiik 1.2 (pro)", AttributeTemplate.resolve("{product} {version} ({edition})", attributes::get, defaults));
+        assertEquals("Yupiik {unknown} {not an attribute} {} Yupiik", AttributeTemplate.resolve(
+                "{product} {unknown} {not an attribute} {} {product}", attributes::get, defaults));
+        assertEquals("{{product}", AttributeTemplate.resolve("{{product}", attributes::get, defaults)); // "{product" reference
+    }
+
+    @Test
+    void noAllocationWhenUnresolved() {
+        final var plain = "no attribute";
+        assertSame(plain, AttributeTemplate.resolve(plain, key -> "x", Map.of()));
+
+        final var unknown = "{unknown} attribute";
+        assertSame(unknown, AttributeTemplate.resolve(unknown, key -> null, Map.of()));
+    }
+
+    @Test
+    void template() {
+        final var template = AttributeTemplate.of("v{version}");
+        assertEquals("v{version}", template.source());
+        assertTrue(template.hasAttributes());
+        assertFalse(AttributeTemplate.of("{ nope }").hasAttributes());
+        assertTrue(template.isDefinedBy(Map.of("version", "1")));
+        assertFalse(template.isDefinedBy(Map.of()));
+        assertEquals("v1", template.resolve(Map.of("version", "1")::get, Map.of()));
+        assertEquals("v2", template.resolve(key -> null, Map.of("version", "2")));
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.parser;
+
+import io.yupiik.asciidoc.parser.internal.CacheFiles;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CacheFilesTest {
+    @Test
+    void write(@TempDir final Path work) throws IOException {
+        final var entry = work.resolve("entry");
+        CacheFiles.write(entry, out -> out.write("first".getBytes(UTF_8)));
+        CacheFiles.write(entry, out -> out.write("second".getBytes(UTF_8)));
+        assertEquals("second", Files.readString(entry));
+        try (final var files = Files.list(work)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void failureKeepsPreviousEntry(@TempDir final Path work) throws IOException {
+        final var entry = work.resolve("entry");
+        CacheFiles.write(entry, out -> out.write("first".getBytes(UTF_8)));
+        assertThrows(IllegalArgumentException.class, () -> CacheFiles.write(entry, out -> {
+            out.write("partial".getBytes(UTF_8));
+            throw new IllegalArgumentException("not serializable");
+        }));
+        assertEquals("first", Files.readString(entry));
+        try (final var files = Files.list(work)) {
+            assertEquals(1, files.count());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.parser;
+
+import io.yupiik.asciidoc.model.ConditionalBlock;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompiledConditionTest {
+    @Test
+    void compile() {
+        assertSame(CompiledCondition.compile("{version} >= 2"), CompiledCondition.compile("{version} >= 2"));
+        assertThrows(IllegalArgumentException.class, () -> CompiledCondition.compile("{version}"));
+        assertThrows(IllegalArgumentException.class, () -> CompiledCondition.compile("{version} ~ 2"));
+    }
+
+    @Test
+    void cacheKeepsRecentExpressions() {
+        for (int i = 0; i < 2_000; i++) { // more than the cache size
+            CompiledCondition.compile("{generated} == " + i);
+        }
+        assertSame(CompiledCondition.compile("{version} == 3"), CompiledCondition.compile("{version} == 3"));
+    }
+
+    @Test
+    void evaluate() {
+        final ConditionalBlock.Context context = Map.of("version", "2", "edition", "pro")::get;
+        assertTrue(test("{version} >= 2", context, Map.of()));
+        assertTrue(test("{version} > 1.5", context, Map.of()));
+        assertFalse(test("{version} <= 1", context, Map.of()));
+        assertTrue(test("\"{edition}\" == \"pro\"", context, Map.of()));
+        assertTrue(test("{edition}-{version} == pro-2", context, Map.of()));
+        assertFalse(test("{edition} != pro", context, Map.of()));
+        assertTrue(test("{missing} == {missing}", context, Map.of()));
+
+        // parsing time attributes win except for < which only reads the rendering ones
+        assertTrue(test("{version} == 1", context, Map.of("version", "1")));
+        assertThrows(NumberFormatException.class, () -> test("{version} < 3", key -> null, Map.of("version", "1")));
+        assertTrue(test("{version} < 3", context, Map.of("version", "5")));
+    }
+
+    @Test
+    void select() {
+        final var block = new ConditionalBlock(
+                new ConditionalBlock.Ifeval(new Parser().parseCondition("{edition} == pro", Map.of())),
+                List.of(),
+                List.of(
+                        new ConditionalBlock(new ConditionalBlock.Ifdef("edition"), List.of(), Map.of()),
+                        new ConditionalBlock(Parser.ELSE_BRANCH, List.of(), Map.of())),
+                Map.of());
+        final List<ConditionalBlock.Context> variants = List.of(
+                Map.of("edition", "pro")::get,
+                Map.of("edition", "community")::get,
+                key -> null);
+        assertArrayEquals(new int[]{0, 1, 2}, CompiledCondition.select(block, variants));
+        assertArrayEquals(new boolean[]{true, false, false}, CompiledCondition.test(block.evaluator(), variants));
+    }
+
+    private boolean test(final String expression, final ConditionalBlock.Context context, final Map<String, String> parsing) {
+        final var compiled = CompiledCondition.compile(expression);
+        final var single = compiled.test(context, parsing, Map.of());
+        assertArrayEquals(new boolean[]{single}, compiled.test(List.of(context), parsing, Map.of()));
+        return single;
+    }
+}
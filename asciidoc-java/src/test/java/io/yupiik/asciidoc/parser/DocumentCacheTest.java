@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.parser;
+
+import io.yupiik.asciidoc.model.Document;
+import io.yupiik.asciidoc.renderer.html.AsciidoctorLikeHtmlRenderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentCacheTest {
+    @Test
+    void roundTrip(@TempDir final Path work) {
+        final var lines = List.of("""
+                = Title
+                :toc:
+                :version: 1.0
+
+                == Section {version}
+
+                [source,java]
+                ----
+                public class Foo { // <1>
+                }
+                ----
+                <1> A class.
+
+                NOTE: an *admonition* with a https://yupiik.io[link].
+
+                ifeval::["{version}" == "1.0"]
+                Version one.
+                endif::[]
+
+                ifdef::missing[]
+                Not there.
+                else::[]
+                Else branch.
+                endif::[]
+
+                Evaluated {lazy}.
+
+                term:: description
+                other:: _value_
+
+                [cols="1,1"]
+                |===
+                | a | b
+                | c | d
+                |===
+
+                :late: at the end
+                """.split("\\n"));
+        final var parser = new Parser(Map.of("global", "yes"));
+        final var context = new Parser.ParserContext((ref, encoding) -> Optional.empty());
+        final var cache = new DocumentCache(work, Long.MAX_VALUE);
+
+        final var expected = render(parser.parse(lines, context));
+        assertEquals(expected, render(cache.parse(parser, null, lines, context)));
+        assertEquals(0, cache.hits());
+        assertEquals(1, cache.misses());
+
+        final var html = render(cache.parse(parser, null, lines, context));
+        assertEquals(expected, html);
+        assertEquals(1, cache.hits());
+        assertTrue(html.contains("Evaluated at the end."), html);
+        assertTrue(html.contains("Version one."), html);
+
+        // global attributes are part of the key
+        cache.parse(new Parser(Map.of("global", "no")), null, lines, context);
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    void includeChange(@TempDir final Path work) {
+        final var includes = new HashMap<String, List<String>>();
+        includes.put("partial.adoc", List.of("First version."));
+        final var context = new Parser.ParserContext((ref, encoding) -> Optional.ofNullable(includes.get(ref)));
+        final var lines = List.of("= Title", "", "include::partial.adoc[]");
+        final var parser = new Parser();
+        final var cache = new DocumentCache(work, Long.MAX_VALUE);
+
+        assertTrue(render(cache.parse(parser, null, lines, context)).contains("First version."));
+        assertTrue(render(cache.parse(parser, null, lines, context)).contains("First version."));
+        assertEquals(1, cache.hits());
+
+        includes.put("partial.adoc", List.of("Second version."));
+        assertTrue(render(cache.parse(parser, null, lines, context)).contains("Second version."));
+        assertEquals(1, cache.hits());
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    void file(@TempDir final Path work) throws Exception {
+        final var document = Files.writeString(work.resolve("doc.adoc"), "= Title\n\nSome *content*.\n");
+        final var parser = new Parser();
+        final var context = new Parser.ParserContext(null);
+        final var cache = new DocumentCache(work.resolve("cache"), Long.MAX_VALUE);
+
+        final var expected = render(parser.parse(document, context));
+        assertEquals(expected, render(cache.parse(parser, document, context)));
+        assertEquals(expected, render(cache.parse(parser, document, context)));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void eviction(@TempDir final Path work) throws Exception {
+        final var parser = new Parser();
+        final var context = new Parser.ParserContext(null);
+        final var cache = new DocumentCache(work, 1);
+        cache.parse(parser, null, List.of("first"), context);
+        cache.parse(parser, null, List.of("second"), context);
+        assertTrue(cache.size() <= 1, cache::toString);
+        try (final var entries = Files.list(work)) {
+            assertEquals(0, entries.count());
+        }
+
+        final var bigger = new DocumentCache(work, Long.MAX_VALUE);
+        bigger.parse(parser, null, List.of("first"), context);
+        bigger.parse(parser, null, List.of("second"), context);
+        assertNotEquals(0, bigger.size());
+        assertEquals(bigger.size(), new DocumentCache(work, Long.MAX_VALUE).size());
+        bigger.clear();
+        assertEquals(0, bigger.size());
+    }
+
+    private String render(final Document document) {
+        final var renderer = new AsciidoctorLikeHtmlRenderer(new AsciidoctorLikeHtmlRenderer.Configuration()
+                .setAttributes(Map.of("lazy", "{late}")));
+        renderer.visit(document);
+        return renderer.result();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.parser;
+
+import io.yupiik.asciidoc.model.Document;
+import io.yupiik.asciidoc.renderer.html.AsciidoctorLikeHtmlRenderer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalParserTest {
+    private static final List<String> DOCUMENT = List.of("""
+            = Title
+            :attr: value
+
+            preamble
+
+            == Section 1
+
+            content 1 {attr}
+
+            === Section 1.1
+
+            * item 1
+            * item 2
+
+            == Section 2
+
+            content 2
+
+            == Section 3
+
+            content 3 {attr}
+            """.split("\n"));
+
+    @Test
+    void unchanged() {
+        final var parser = newParser();
+        final var first = parser.parse(null, DOCUMENT);
+        assertEquals(4, parser.reparsedBlocks());
+        assertEquals(first, parser.parse(null, new ArrayList<>(DOCUMENT)));
+        assertEquals(0, parser.reparsedBlocks());
+    }
+
+    @Test
+    void changeOneSection() {
+        assertIncremental(DOCUMENT, replace(DOCUMENT, "content 2", "content 2 updated"), 1);
+    }
+
+    @Test
+    void addSection() {
+        final var updated = new ArrayList<>(DOCUMENT);
+        final var index = updated.indexOf("== Section 2");
+        updated.addAll(index, List.of("== New", "", "new content", ""));
+        // section 1 (its end changed), new section and section 2 (sectnumlevels differs after a level 2 section)
+        assertIncremental(DOCUMENT, updated, 3);
+    }
+
+    @Test
+    void removeSectionTitle() {
+        assertIncremental(DOCUMENT, replace(DOCUMENT, "== Section 2", "Section 2 is now a paragraph"), 2);
+    }
+
+    @Test
+    void attributeChangePropagates() {
+        final var updated = new ArrayList<>(DOCUMENT);
+        updated.add(updated.indexOf("content 2") + 1, ":attr: changed");
+        assertIncremental(DOCUMENT, updated, 2);
+    }
+
+    @Test
+    void headerChange() {
+        assertIncremental(DOCUMENT, replace(DOCUMENT, ":attr: value", ":attr: other"), 4);
+    }
+
+    @Test
+    void lateAttributeChange() {
+        final var document = List.of("""
+                = Title
+
+                == A
+
+                value: {lazy}
+
+                == B
+
+                content b
+
+                == C
+
+                :late: one
+                """.split("\n"));
+        final var parser = newParser();
+        assertEquals(render(new Parser().parse(document, new Parser.ParserContext(null))), render(parser.parse(null, document)));
+
+        final var updated = replace(document, ":late: one", ":late: two");
+        final var html = render(parser.parse(null, updated));
+        assertEquals(1, parser.reparsedBlocks());
+        assertTrue(html.contains("value: two"), html);
+        assertEquals(render(new Parser().parse(updated, new Parser.ParserContext(null))), html);
+    }
+
+    private void assertIncremental(final List<String> original, final List<String> updated, final int reparsed) {
+        final var parser = newParser();
+        parser.parse(null, original);
+        final var incremental = parser.parse(null, updated);
+        assertEquals(reparsed, parser.reparsedBlocks());
+        final var expected = new Parser().parse(updated, new Parser.ParserContext(null));
+        assertEquals(expected, incremental);
+        assertEquals(render(expected), render(incremental));
+    }
+
+    private String render(final Document document) {
+        final var renderer = new AsciidoctorLikeHtmlRenderer(new AsciidoctorLikeHtmlRenderer.Configuration()
+                .setAttributes(Map.of("lazy", "{late}")));
+        renderer.visit(document);
+        return renderer.result();
+    }
+
+    private List<String> replace(final List<String> lines, final String from, final String to) {
+        return lines.stream().map(it -> it.equals(from) ? to : it).toList();
+    }
+
+    private IncrementalParser newParser() {
+        return new IncrementalParser(new Parser(), new Parser.ParserContext(null));
+    }
+}
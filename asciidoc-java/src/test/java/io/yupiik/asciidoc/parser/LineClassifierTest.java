@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.parser;
+
+import io.yupiik.asciidoc.model.Admonition;
+import io.yupiik.asciidoc.parser.internal.LineClassifier;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LineClassifierTest {
+    private static final List<String> LINES = List.of(
+            "", "a", "1", "1.", "1. ", "1. item", "a. item", "ii. item", "IV) item", ".. item", ". item", "1.. item",
+            "abc. item", "1.item", "Some text. More", "* item", "** item", "*bold*", "- item", "-- item", "--",
+            "name:: value", "name;; value", "http://foo", "<1> callout", "<.> callout", "<1>", "< 1> callout",
+            "NOTE: text", "NOTE:text", "TIP: text", "Tip: text", "2+", ".2+", "2+foo", ".+", "+", "12+", "1.2+");
+
+    @Test
+    void orderedList() {
+        final var pattern = Pattern.compile("^(?<prefix>(?:[0-9]+|[a-zA-Z]|[ivxIVX]+)?)(?<dots>\\.+|\\)) .+");
+        for (final var line : LINES) {
+            if (pattern.matcher(line).matches()) {
+                assertTrue(LineClassifier.isOrderedListCandidate(line), line);
+            }
+        }
+        assertFalse(LineClassifier.isOrderedListCandidate("Some text. More"));
+    }
+
+    @Test
+    void unorderedList() {
+        final var pattern = Pattern.compile("^(?<wildcard>\\*+) .+");
+        for (final var line : LINES) {
+            final var matcher = pattern.matcher(line);
+            assertEquals(matcher.matches() && matcher.group("wildcard").length() == 1, LineClassifier.isUnorderedListCandidate(line, '*'), line);
+        }
+    }
+
+    @Test
+    void descriptionList() {
+        final var pattern = Pattern.compile("^(?<name>(?!::).*)(?<marker>(?:::+|;;))(?<content>.*)");
+        for (final var line : LINES) {
+            if (pattern.matcher(line).matches()) {
+                assertTrue(LineClassifier.isDescriptionListCandidate(line), line);
+            }
+        }
+    }
+
+    @Test
+    void callOut() {
+        final var pattern = Pattern.compile("^<(?<number>[\\d+.]+)> (?<description>.+)$");
+        for (final var line : LINES) {
+            if (pattern.matcher(line).matches()) {
+                assertTrue(LineClassifier.isCallOutCandidate(line), line);
+            }
+        }
+    }
+
+    @Test
+    void cellSpec() {
+        final var pattern = Pattern.compile("^(\\d+|\\.\\d+)\\+$");
+        for (final var line : LINES) {
+            assertEquals(pattern.matcher(line).matches(), LineClassifier.isCellSpec(line), line);
+        }
+    }
+
+    @Test
+    void cellSpecCandidate() {
+        final var pattern = Pattern.compile("^(?:(?<colspan>\\d+)\\+)?(?:\\.(?<rowspan>\\d+)\\+)?(?<content>.*)");
+        for (final var line : LINES) {
+            final var matcher = pattern.matcher(line);
+            if (matcher.matches() && (matcher.group("colspan") != null || matcher.group("rowspan") != null)) {
+                assertTrue(LineClassifier.isCellSpecCandidate(line), line);
+            }
+        }
+        assertFalse(LineClassifier.isCellSpecCandidate("12.5"));
+    }
+
+    @Test
+    void plainText() {
+        for (final var line : LINES) { // markup lines are never plain text
+            assertEquals(List.of("a", "1", "1.", "1. ", "1.item", "Some text. More").contains(line), LineClassifier.isPlainText(line), line);
+        }
+        assertTrue(LineClassifier.isPlainText(" my.config-key (default) "));
+        assertTrue(LineClassifier.isPlainText("Clé publique, 50% = 'demi'"));
+        assertFalse(LineClassifier.isPlainText(" a hard break  "));
+        assertFalse(LineClassifier.isPlainText(" "));
+        assertFalse(LineClassifier.isPlainText("a. item"));
+        assertFalse(LineClassifier.isPlainText("with {attribute}"));
+        assertFalse(LineClassifier.isPlainText("with `code`"));
+    }
+
+    @Test
+    void admonition() {
+        assertEquals(Admonition.Level.NOTE, LineClassifier.admonitionLevel("NOTE: text"));
+        assertEquals(Admonition.Level.TIP, LineClassifier.admonitionLevel("TIP: text"));
+        assertNull(LineClassifier.admonitionLevel("NOTE:text"));
+        assertNull(LineClassifier.admonitionLevel("Tip: text"));
+        assertNull(LineClassifier.admonitionLevel("NOTED: text"));
+    }
+}
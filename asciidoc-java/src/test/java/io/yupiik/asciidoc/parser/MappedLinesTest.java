@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.parser;
+
+import io.yupiik.asciidoc.parser.internal.MappedLines;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MappedLinesTest {
+    @Test
+    void sameLinesAsBufferedReader() throws IOException {
+        for (final var content : List.of(
+                "", "\n", "a", "a\n", "a\n\n", "a\r\nb\rc\n\rd", "\r\n\r\n", "é€ 😀\nligne 2")) {
+            try (final var reader = new BufferedReader(new StringReader(content))) {
+                assertEquals(reader.lines().toList(), MappedLines.of(ByteBuffer.wrap(content.getBytes(UTF_8))), content);
+            }
+        }
+    }
+
+    @Test
+    void parseFile(@TempDir final Path work) throws IOException {
+        final var file = Files.writeString(work.resolve("doc.adoc"), """
+                = Title
+                :attr: value
+
+                == Section
+
+                Some *bold* {attr}.
+                """);
+        final var parser = new Parser();
+        assertEquals(
+                parser.parse(Files.readString(file), new Parser.ParserContext(null)),
+                parser.parse(file, new Parser.ParserContext(null)));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.parser;
+
+import io.yupiik.asciidoc.parser.internal.AttributeScope;
+import io.yupiik.asciidoc.parser.internal.OptionMaps;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OptionMapsTest {
+    @Test
+    void compact() {
+        final var options = new LinkedHashMap<String, String>();
+        options.put("zz", "1");
+        options.put(new String("role"), "a");
+        options.put("id", "b");
+
+        final var compact = OptionMaps.compact(options);
+        assertEquals(options, compact);
+        assertEquals(options.hashCode(), compact.hashCode());
+        assertEquals(List.of("zz", "role", "id"), List.copyOf(compact.keySet())); // iteration order is kept
+        assertSame("role", compact.keySet().stream().filter("role"::equals).findFirst().orElseThrow()); // interned
+        assertEquals("b", compact.get("id"));
+        assertEquals("none", compact.getOrDefault("missing", "none"));
+        assertThrows(UnsupportedOperationException.class, () -> compact.put("other", "value"));
+
+        assertSame(Map.of(), OptionMaps.compact(new HashMap<>()));
+        assertSame(OptionMaps.compact(new HashMap<>(Map.of("language", "java"))), OptionMaps.of("language", "java"));
+        assertNotSame(OptionMaps.of("", "free text"), OptionMaps.of("", "free text"));
+
+        for (int i = 0; i < 2_000; i++) { // more than the shared maps, recently used ones are still shared
+            OptionMaps.of("role", "generated-" + i);
+        }
+        assertSame(OptionMaps.of("role", "recent"), OptionMaps.of("role", "recent"));
+    }
+
+    @Test
+    void merge() {
+        final var merged = OptionMaps.merge(Map.of("role", "first"), new LinkedHashMap<>(Map.of("role", "second", "id", "foo")));
+        assertEquals(Map.of("role", "first", "id", "foo"), merged);
+        assertEquals(List.of("role", "id"), List.copyOf(merged.keySet()));
+        assertEquals(Map.of(), OptionMaps.merge(null, null));
+        assertEquals(Map.of("id", "foo"), OptionMaps.merge(Map.of(), Map.of("id", "foo")));
+    }
+
+    @Test
+    void attributeScope() {
+        final var parent = Map.of("a", "1", "b", "2");
+        final var scope = new AttributeScope(parent);
+        assertEquals(parent, scope);
+
+        scope.put("a", "1"); // unchanged
+        scope.remove("missing");
+        assertEquals(parent, scope);
+
+        scope.put("a", "updated");
+        scope.remove("b");
+        assertEquals(Map.of("a", "updated"), scope);
+        assertEquals(Map.of("a", "1", "b", "2"), parent);
+
+        scope.clear();
+        assertEquals(Map.of(), scope);
+    }
+}
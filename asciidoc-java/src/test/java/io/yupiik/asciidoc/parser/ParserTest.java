@@ -23,6 +23,7 @@ import io.yupiik.asciidoc.model.CallOut;
 import io.yupiik.asciidoc.model.Code;
 import io.yupiik.asciidoc.model.ConditionalBlock;
 import io.yupiik.asciidoc.model.DescriptionList;
+import io.yupiik.asciidoc.model.Document;
 import io.yupiik.asciidoc.model.Element;
 import io.yupiik.asciidoc.model.HorizontalRule;
 import io.yupiik.asciidoc.model.LineBreak;
@@ -40,16 +41,24 @@ import io.yupiik.asciidoc.model.Text;
 import io.yupiik.asciidoc.model.UnOrderedList;
 import io.yupiik.asciidoc.parser.internal.Reader;
 import io.yupiik.asciidoc.parser.resolver.ContentResolver;
+import io.yupiik.asciidoc.renderer.Visitor;
+import io.yupiik.asciidoc.renderer.html.AsciidoctorLikeHtmlRenderer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.StringReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static io.yupiik.asciidoc.model.Admonition.Level.WARNING;
@@ -66,6 +75,7 @@ import static java.util.Map.entry;
 import static java.util.stream.Collectors.toMap;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ParserTest {
     @Test
@@ -372,6 +382,22 @@ class ParserTest {
                 new Parser().parseBody(new Reader(List.of("in a sentence https://yupiik.io and multiple https://www.yupiik.io links.")), null).children());
     }
 
+    @Test
+    void linksAndEmailsInText() {
+        assertEquals(
+                List.of(new Paragraph(
+                        List.of(
+                                new Text(List.of(), "write to ", Map.of()),
+                                new Link("mailto:foo@bar.com", new Text(List.of(), "foo@bar.com", Map.of("nowrap", "true")), Map.of()),
+                                new Text(List.of(), " or see ", Map.of()),
+                                new Link("ftp://x.y", new Text(List.of(), "ftp://x.y", Map.of("nowrap", "true")), Map.of()),
+                                new Text(List.of(), " at 10:30 then ", Map.of()),
+                                new Link("mailto:bob@yupiik.io", new Text(List.of(), "bob@yupiik.io", Map.of("nowrap", "true")), Map.of()),
+                                new Text(List.of(), ".", Map.of())),
+                        Map.of())),
+                new Parser().parseBody(new Reader(List.of("write to foo@bar.com or see ftp://x.y at 10:30 then bob@yupiik.io.")), null).children());
+    }
+
     @Test
     void linkInCode() {
         final var body = new Parser().parseBody(new Reader(List.of("`https://yupiik.io[Yupiik OSS]`")), null);
@@ -992,6 +1018,20 @@ class ParserTest {
                 body.children());
     }
 
+    @Test
+    void descriptionListWithOptions() {
+        final var body = new Parser().parseBody(new Reader(List.of("""
+                [horizontal]
+                CPU:: The brain of the computer.
+                """.split("\n"))), null);
+        assertEquals(1, body.children().size());
+        final var list = assertInstanceOf(DescriptionList.class, body.children().get(0));
+        assertEquals("horizontal", list.options().get(""));
+        assertEquals(
+                Map.of(new Text(List.of(), "CPU", Map.of()), new Text(List.of(), "The brain of the computer.", Map.of())),
+                list.children());
+    }
+
     @Test
     void descriptionListWithSemicolons() {
         final var body = new Parser().parseBody(new Reader(List.of("""
@@ -1937,4 +1977,166 @@ class ParserTest {
                 List.of(new Text(List.of(), "snippet b", Map.of())),
                 body.children());
     }
+
+    @Test
+    void sharedParser() throws Exception {
+        final var parser = new Parser(Map.of("product", "yupiik"));
+        final var documents = new ArrayList<String>();
+        for (int i = 0; i < 16; i++) {
+            documents.add("""
+                    = Page %d
+                    :page: %d
+
+                    == Section {product}
+
+                    Page {page} of {product}.
+
+                    ifeval::[{page} > 8]
+                    Last pages.
+                    endif::[]
+
+                    [cols="1,1"]
+                    |===
+                    | a | b
+                    |===
+                    """.formatted(i, i));
+        }
+        final var expected = documents.stream().map(it -> render(parser.parse(it, new Parser.ParserContext(null)))).toList();
+
+        final var pool = new ForkJoinPool(4);
+        try {
+            for (int iteration = 0; iteration < 5; iteration++) {
+                final var tasks = documents.stream()
+                        .map(it -> pool.submit(() -> render(parser.parse(it, new Parser.ParserContext(null)))))
+                        .toList();
+                for (int i = 0; i < tasks.size(); i++) {
+                    assertEquals(expected.get(i), tasks.get(i).get());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void parallelParse() {
+        final var lines = new ArrayList<String>();
+        lines.add("= Title");
+        lines.add(":attr: header");
+        lines.add("");
+        lines.add("preamble {attr}");
+        for (int section = 0; section < 60; section++) {
+            lines.add("");
+            lines.add("== Section " + section + " {attr}");
+            lines.add("");
+            if (section % 7 == 0) {
+                lines.add(":attr: value " + section);
+                lines.add("");
+            }
+            if (section % 11 == 0) { // attributes defined in includes are only known at parsing time
+                lines.add("include::partial.adoc[]");
+                lines.add("");
+            }
+            if (section == 1) { // evaluated at rendering time with the attributes of the end of the parsing
+                lines.add("lazy value: {lazy}");
+                lines.add("");
+            }
+            for (int i = 0; i < 10; i++) {
+                lines.add("=== Subsection " + section + "." + i);
+                lines.add("");
+                lines.add("----");
+                lines.add("== not a section");
+                lines.add("----");
+                lines.add("");
+                lines.add("content {attr} {fromInclude}");
+                lines.add("");
+            }
+        }
+
+        lines.add(":late: defined at the end");
+
+        final var parser = new Parser();
+        final var context = new Parser.ParserContext((ref, encoding) -> Optional.of(List.of(":fromInclude: " + ref.length())));
+        final var pool = new ForkJoinPool(4);
+        try {
+            final var parallel = parser.parse(null, lines, context, pool);
+            assertEquals(61 /* preamble + sections */, parallel.body().children().size());
+
+            final var html = render(parallel);
+            assertEquals(render(parser.parse(lines, context)), html);
+            assertTrue(html.contains("lazy value: defined at the end"), html);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private String render(final Document document) {
+        final var renderer = new AsciidoctorLikeHtmlRenderer(new AsciidoctorLikeHtmlRenderer.Configuration()
+                .setAttributes(Map.of("lazy", "{late}")));
+        renderer.visit(document);
+        return renderer.result();
+    }
+
+    @Test
+    void stream() {
+        final var events = new ArrayList<String>();
+        final var header = new Parser().stream(new BufferedReader(new StringReader("""
+                = Title
+
+                preamble
+
+                == Section 1
+
+                content 1
+
+                === Section 1.1
+
+                content 1.1
+
+                == Section 2
+
+                * item
+                """)), new Parser.ParserContext(null), new Visitor<Void>() {
+            @Override
+            public void visitSectionStart(final Section element) {
+                events.add("start " + ((Text) element.title()).value() + " (" + element.children().size() + ")");
+            }
+
+            @Override
+            public void visitSectionEnd(final Section element) {
+                events.add("end " + ((Text) element.title()).value());
+            }
+
+            @Override
+            public void visitElement(final Element element) {
+                events.add(element.type().name());
+            }
+        });
+        assertEquals("Title", header.title());
+        assertEquals(List.of(
+                "TEXT",
+                "start Section 1 (0)", "TEXT",
+                "start Section 1.1 (0)", "TEXT", "end Section 1.1",
+                "end Section 1",
+                "start Section 2 (0)", "UNORDERED_LIST", "end Section 2"), events);
+    }
+
+    @Test
+    void streamReadsLazily() {
+        final var pulled = new AtomicInteger();
+        final var pulledAtFirstElement = new AtomicInteger(-1);
+        final var elements = new AtomicInteger();
+        final var header = new Parser().stream(null, Stream.concat(
+                        Stream.of("= Title", ""),
+                        IntStream.range(0, 2_000).mapToObj(i -> "paragraph " + i + "\n"))
+                .flatMap(it -> Stream.of(it.split("\n", -1)))
+                .peek(it -> pulled.incrementAndGet())
+                .iterator(), new Parser.ParserContext(null), element -> {
+            pulledAtFirstElement.compareAndSet(-1, pulled.get());
+            elements.incrementAndGet();
+        });
+        assertEquals("Title", header.title());
+        assertEquals(2_000, elements.get());
+        assertTrue(pulledAtFirstElement.get() < 1_000, () -> Integer.toString(pulledAtFirstElement.get()));
+    }
 }
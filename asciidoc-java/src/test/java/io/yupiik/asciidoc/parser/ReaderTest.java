@@ -18,10 +18,15 @@ package io.yupiik.asciidoc.parser;
 import io.yupiik.asciidoc.parser.internal.Reader;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ReaderTest {
     @Test
@@ -48,4 +53,106 @@ class ReaderTest {
         assertEquals("b", reader.nextLine());
         assertNull(reader.nextLine());
     }
+
+    @Test
+    void insert() {
+        final var reader = new Reader(List.of("a", "b", "c"));
+        assertEquals("a", reader.nextLine());
+        reader.insert(List.of("1", "2"));
+        assertEquals("1", reader.nextLine());
+        reader.insert(List.of());
+        reader.insert(List.of("3"));
+        assertEquals("3", reader.nextLine());
+        assertEquals("2", reader.nextLine());
+        reader.rewind();
+        reader.rewind();
+        assertEquals("3", reader.nextLine());
+        assertEquals("2", reader.nextLine());
+        assertEquals("b", reader.nextLine());
+        assertEquals("c", reader.nextLine());
+        reader.insert(List.of("end"));
+        assertEquals("end", reader.nextLine());
+        assertNull(reader.nextLine());
+
+        reader.reset();
+        final var all = new ArrayList<String>();
+        String line;
+        while ((line = reader.nextLine()) != null) {
+            all.add(line);
+        }
+        assertEquals(List.of("a", "1", "3", "2", "b", "c", "end"), all);
+    }
+
+    @Test
+    void setPreviousValueDoesNotModifyProvidedLines() {
+        final var lines = new ArrayList<>(List.of("a", "b", "c"));
+        final var reader = new Reader(lines);
+        assertEquals("a", reader.nextLine());
+        assertEquals("b", reader.nextLine());
+        reader.setPreviousValue("B");
+        reader.setPreviousValue("BB");
+        assertEquals("c", reader.nextLine());
+        reader.reset();
+        assertEquals("a", reader.nextLine());
+        assertEquals("BB", reader.nextLine());
+        assertEquals("c", reader.nextLine());
+        assertEquals(List.of("a", "b", "c"), lines);
+    }
+
+    @Test
+    void skipCommentsAcrossInsertedLines() {
+        final var reader = new Reader(List.of("start", "", "here"));
+        assertEquals("start", reader.nextLine());
+        reader.insert(List.of("////", "comment", "////"));
+        reader.insert(List.of("", "// foo"));
+        assertEquals("here", reader.skipCommentsAndEmptyLines());
+        assertNull(reader.skipCommentsAndEmptyLines());
+    }
+
+    @Test
+    void lazy() {
+        final var pulled = new AtomicInteger();
+        final var reader = new Reader(IntStream.range(0, 1_000)
+                .mapToObj(Integer::toString)
+                .peek(it -> pulled.incrementAndGet())
+                .iterator());
+        assertEquals("0", reader.nextLine());
+        assertTrue(pulled.get() < 1_000, () -> Integer.toString(pulled.get()));
+        reader.insert(List.of("inserted"));
+        assertEquals("inserted", reader.nextLine());
+        reader.rewind();
+        assertEquals("inserted", reader.nextLine());
+
+        int count = 0;
+        String last = null;
+        String line;
+        while ((line = reader.nextLine()) != null) {
+            last = line;
+            count++;
+        }
+        assertEquals(999, count);
+        assertEquals("999", last);
+        assertEquals(1_000, pulled.get());
+
+        reader.reset(); // nothing released
+        assertEquals("0", reader.nextLine());
+    }
+
+    @Test
+    void lazyReleaseReadLines() {
+        final var reader = new Reader(IntStream.range(0, 1_000).mapToObj(Integer::toString).iterator());
+        reader.releaseReadLines();
+        for (int i = 0; i < 600; i++) {
+            assertEquals(Integer.toString(i), reader.nextLine());
+        }
+        reader.rewind();
+        reader.rewind();
+        assertEquals("598", reader.nextLine());
+        assertEquals(600, reader.getLineNumber());
+        reader.setPreviousValue("updated");
+        reader.rewind();
+        assertEquals("updated", reader.nextLine());
+        assertEquals("599", reader.nextLine());
+        assertThrows(IllegalStateException.class, reader::reset);
+    }
 }
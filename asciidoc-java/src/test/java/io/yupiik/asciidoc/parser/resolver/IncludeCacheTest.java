@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.parser.resolver;
+
+import io.yupiik.asciidoc.model.Body;
+import io.yupiik.asciidoc.model.Text;
+import io.yupiik.asciidoc.parser.Parser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class IncludeCacheTest {
+    @Test
+    void cache(@TempDir final Path work) throws IOException {
+        final var partial = Files.writeString(work.resolve("partial.adoc"), "first\nsecond\n");
+        final var cache = new IncludeCache();
+
+        final var lines = cache.read(partial, UTF_8);
+        assertEquals(List.of("first", "second"), lines);
+        assertEquals(0, cache.hits());
+        assertEquals(1, cache.misses());
+
+        assertSame(lines, cache.read(work.resolve("sub/../partial.adoc"), null));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+
+        cache.read(partial, ISO_8859_1); // another encoding is another entry
+        assertEquals(2, cache.misses());
+        assertEquals(2, cache.size());
+
+        Files.writeString(partial, "updated\n");
+        Files.setLastModifiedTime(partial, FileTime.fromMillis(Files.getLastModifiedTime(partial).toMillis() + 10_000));
+        assertEquals(List.of("updated"), cache.read(partial, UTF_8));
+        assertEquals(3, cache.misses());
+    }
+
+    @Test
+    void sharedBetweenDocuments(@TempDir final Path work) throws IOException {
+        Files.writeString(work.resolve("partial.adoc"), "included");
+        final var cache = new IncludeCache();
+        final var parser = new Parser();
+        for (int i = 0; i < 3; i++) {
+            try (final var reader = new BufferedReader(new StringReader("include::partial.adoc[]\n\ninclude::partial.adoc[]"))) {
+                final var body = parser.parse(reader, new Parser.ParserContext(ContentResolver.of(work, cache))).body();
+                assertEquals(
+                        new Body(List.of(
+                                new Text(List.of(), "included", Map.of()),
+                                new Text(List.of(), "included", Map.of()))),
+                        body);
+            }
+        }
+        assertEquals(1, cache.misses());
+        assertEquals(5, cache.hits());
+    }
+}
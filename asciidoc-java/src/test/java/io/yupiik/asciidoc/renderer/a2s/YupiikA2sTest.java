@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.renderer.a2s;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class YupiikA2sTest {
+    private static final String DIAGRAM = """
+            .-------.    .-----.
+            | a2s   |--->| svg |
+            '-------'    '-----'
+            """;
+
+    @Test
+    void memoized() {
+        final var svg = YupiikA2s.svg(DIAGRAM, Map.of());
+        assertTrue(svg.contains("<svg"), svg);
+        assertSame(svg, YupiikA2s.svg(DIAGRAM, Map.of()));
+        assertEquals(
+                "data:image/svg+xml;base64," + Base64.getEncoder().encodeToString(svg.getBytes(UTF_8)),
+                YupiikA2s.dataUri(DIAGRAM, Map.of(), null));
+        assertNotEquals(svg, YupiikA2s.svg(DIAGRAM, Map.of("font", "monospace")));
+    }
+
+    @Test
+    void diskCache(@TempDir final Path work) throws IOException {
+        final var diagram = DIAGRAM.replace("svg", "SVG"); // not yet in memory
+        final var svg = YupiikA2s.svg(diagram, Map.of(), work);
+        try (final var entries = Files.list(work)) {
+            final var files = entries.toList();
+            assertEquals(1, files.size());
+            assertEquals(svg, Files.readString(files.get(0)));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.renderer.highlight;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SourceHighlighterTest {
+    @Test
+    void java() {
+        assertEquals("""
+                        <span class="hljs-meta">@Override</span>
+                        <span class="hljs-keyword">public</span> String run() { <span class="hljs-comment">/* a</span>
+                        <span class="hljs-comment">b */</span>
+                            <span class="hljs-keyword">return</span> <span class="hljs-string">&quot;&lt;x&gt;&quot;</span> + <span class="hljs-number">1L</span> + <span class="hljs-literal">null</span> + interfaceName;
+                        }""",
+                SourceHighlighter.highlight("java", """
+                        @Override
+                        public String run() { /* a
+                        b */
+                            return "<x>" + 1L + null + interfaceName;
+                        }"""));
+    }
+
+    @Test
+    void json() {
+        assertEquals("<span class=\"hljs-punctuation\">{</span>" +
+                        "<span class=\"hljs-attr\">&quot;a&quot;</span><span class=\"hljs-punctuation\">:</span> " +
+                        "<span class=\"hljs-number\">-1.5</span><span class=\"hljs-punctuation\">,</span> " +
+                        "<span class=\"hljs-attr\">&quot;b&quot;</span><span class=\"hljs-punctuation\">:</span> " +
+                        "<span class=\"hljs-string\">&quot;x&quot;</span><span class=\"hljs-punctuation\">}</span>",
+                SourceHighlighter.highlight("json", "{\"a\": -1.5, \"b\": \"x\"}"));
+    }
+
+    @Test
+    void yaml() {
+        assertEquals("""
+                        <span class="hljs-comment"># c</span>
+                        <span class="hljs-attr">name</span>: value
+                        <span class="hljs-attr">items</span>:
+                          <span class="hljs-bullet">-</span> <span class="hljs-attr">port</span>: <span class="hljs-number">8080</span>
+                          <span class="hljs-bullet">-</span> <span class="hljs-string">&quot;quoted&quot;</span>
+                        <span class="hljs-attr">enabled</span>: <span class="hljs-literal">true</span>""",
+                SourceHighlighter.highlight("yaml", """
+                        # c
+                        name: value
+                        items:
+                          - port: 8080
+                          - "quoted"
+                        enabled: true"""));
+    }
+
+    @Test
+    void xml() {
+        assertEquals("<span class=\"hljs-comment\">&lt;!-- c --&gt;</span>\n" +
+                        "<span class=\"hljs-tag\">&lt;<span class=\"hljs-name\">a</span> <span class=\"hljs-attr\">b</span>=<span class=\"hljs-string\">&quot;c&quot;</span>&gt;</span>" +
+                        "t &amp;amp; u" +
+                        "<span class=\"hljs-tag\">&lt;/<span class=\"hljs-name\">a</span>&gt;</span>",
+                SourceHighlighter.highlight("xml", "<!-- c -->\n<a b=\"c\">t &amp; u</a>"));
+    }
+
+    @Test
+    void bash() {
+        assertEquals("<span class=\"hljs-comment\"># c</span>\n" +
+                        "<span class=\"hljs-keyword\">if</span> [ -z <span class=\"hljs-string\">&quot;$1&quot;</span> ]; " +
+                        "<span class=\"hljs-keyword\">then</span> <span class=\"hljs-built_in\">echo</span> <span class=\"hljs-variable\">${HOME}</span>; " +
+                        "<span class=\"hljs-keyword\">fi</span>",
+                SourceHighlighter.highlight("sh", "# c\nif [ -z \"$1\" ]; then echo ${HOME}; fi"));
+    }
+
+    @Test
+    void properties() {
+        assertEquals("<span class=\"hljs-comment\"># c</span>\n" +
+                        "<span class=\"hljs-attr\">a.b</span><span class=\"hljs-punctuation\">=</span><span class=\"hljs-string\">c \\</span>\n" +
+                        "<span class=\"hljs-string\">  d</span>\n" +
+                        "<span class=\"hljs-attr\">e</span> <span class=\"hljs-string\">f</span>",
+                SourceHighlighter.highlight("properties", "# c\na.b=c \\\n  d\ne f"));
+    }
+
+    @Test
+    void unsupported() {
+        assertFalse(SourceHighlighter.supports("cobol"));
+        assertTrue(SourceHighlighter.supports("Java"));
+        assertNull(SourceHighlighter.highlight("cobol", "MOVE A TO B."));
+    }
+
+    @Test
+    void cached() {
+        final var code = "public class Cached {}";
+        assertSame(SourceHighlighter.highlight("java", code), SourceHighlighter.highlight("java", code));
+    }
+}
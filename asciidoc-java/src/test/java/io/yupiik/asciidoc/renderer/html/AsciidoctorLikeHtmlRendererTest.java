@@ -18,6 +18,7 @@ package io.yupiik.asciidoc.renderer.html;
 import io.yupiik.asciidoc.parser.Parser;
 import io.yupiik.asciidoc.model.Body;
 import io.yupiik.asciidoc.model.Document;
+import io.yupiik.asciidoc.model.Element;
 import io.yupiik.asciidoc.parser.internal.Reader;
 import io.yupiik.asciidoc.parser.resolver.ContentResolver;
 import org.junit.jupiter.api.Test;
@@ -30,8 +31,12 @@ import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static java.util.Locale.ROOT;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class AsciidoctorLikeHtmlRendererTest {
@@ -1053,6 +1058,217 @@ class AsciidoctorLikeHtmlRendererTest {
     }
 
 
+    @Test
+    void xrefIndex() {
+        final var parser = new Parser();
+        final var other = parser.parse("""
+                = Other
+
+                [#install]
+                == Installation
+
+                Content.
+                """, new Parser.ParserContext(null));
+        final var document = parser.parse("""
+                = Page
+                :noheader:
+
+                [#usage]
+                == Usage
+
+                See xref:usage[] and xref:other.adoc#install[].
+                """, new Parser.ParserContext(null));
+        assertEquals("Usage", document.index().label("usage"));
+
+        final var merged = document.index().merge("other.html", other.index());
+        assertEquals("Installation", merged.label("other.html#install"));
+
+        final var renderer = new AsciidoctorLikeHtmlRenderer();
+        renderer.visit(new Document(document.header(), document.body(), merged));
+        final var html = renderer.result();
+        assertTrue(html.contains(" <a href=\"usage\">Usage</a>\n"), html);
+        assertTrue(html.contains(" <a href=\"other.html#install\">Installation</a>\n"), html);
+    }
+
+    @Test
+    void xrefCatalogOverrideWithIndex() {
+        final var document = new Parser().parse("""
+                = Page
+                :noheader:
+
+                [#usage]
+                == Usage
+
+                See xref:usage[].
+                """, new Parser.ParserContext(null));
+        assertEquals("Usage", document.index().label("usage"));
+
+        final var renderer = new AsciidoctorLikeHtmlRenderer() {
+            @Override
+            protected Map<String, String> buildXrefCatalog(final List<Element> children) {
+                return Map.of("usage", "Custom");
+            }
+        };
+        renderer.visit(document);
+        final var html = renderer.result();
+        assertTrue(html.contains(" <a href=\"usage\">Custom</a>\n"), html);
+    }
+
+    @Test
+    void xrefLabelsUsePlainTextOverride() {
+        final var document = new Parser().parse("""
+                = Page
+                :noheader:
+
+                [#usage]
+                == Usage
+
+                See xref:usage[].
+                """, new Parser.ParserContext(null));
+        final var renderer = new AsciidoctorLikeHtmlRenderer() {
+            @Override
+            protected String extractPlainText(final Element element) {
+                return super.extractPlainText(element).toUpperCase(ROOT);
+            }
+        };
+        renderer.visit(document);
+        final var html = renderer.result();
+        assertTrue(html.contains(" <a href=\"usage\">USAGE</a>\n"), html);
+    }
+
+    @Test
+    void nestedRenderingIsIsolated() {
+        final var document = new Parser().parse("""
+                = Page
+                :toc:
+
+                == First *title*
+
+                See link:https://yupiik.io[image:logo.png[Logo]].
+
+                == Second `title`
+
+                Text.
+                """, new Parser.ParserContext(null));
+        final var renderer = new AsciidoctorLikeHtmlRenderer();
+        renderer.visit(document);
+        final var html = renderer.result();
+        assertTrue(html.contains("<h2>First <strong>title</strong></h2>"), html);
+        assertTrue(html.contains("<h2>Second <code>title</code></h2>"), html);
+        assertTrue(html.contains("<li><a href=\"#_second_title\">Second <code>title</code></a>"), html);
+    }
+
+    @Test
+    void tocCollectedWhileRendering() {
+        final var document = new Parser().parse("""
+                = Page
+                :toc:
+                :toclevels: 2
+                :sectnums:
+
+                == First
+
+                === Nested
+
+                ==== Too deep
+
+                [[custom]]
+                == Second
+
+                ifndef::foo[]
+                == Conditional
+                endif::[]
+
+                == Last
+                """, new Parser.ParserContext(null));
+        final var toc = new TocVisitor(2, 1);
+        toc.visitBody(document.body());
+
+        final var renderer = new AsciidoctorLikeHtmlRenderer();
+        renderer.visit(document);
+        final var html = renderer.result();
+        assertTrue(html.contains(toc.result()), html);
+        assertFalse(html.contains("<a href=\"#_too_deep\">"), html);
+    }
+
+    @Test
+    void concurrentSections() {
+        final var adoc = new StringBuilder("""
+                = Manual
+                :toc:
+                :sectnums:
+
+                Preamble with a footnote:[in the preamble].
+
+                """);
+        for (int i = 0; i < 24; i++) {
+            adoc.append("== Section ").append(i).append("\n\n")
+                    .append("Text footnote:[note ").append(i).append("] and footnote:n").append(i).append("[named ").append(i).append("]")
+                    .append(" then footnote:n").append(i).append("[] and <<_").append(i == 0 ? 23 : i - 1).append("_section_").append(i == 0 ? 23 : i - 1).append(">>.\n\n")
+                    .append("indexterm::[term").append(i).append("]\n\n")
+                    .append("=== Sub ").append(i).append("\n\n* item\n\n");
+            if (i == 5) {
+                adoc.append("Refers to footnote:n1[].\n\n"); // defined in another section
+            }
+            if (i == 7) {
+                adoc.append("Counter {counter:c}.\n\n");
+            }
+        }
+        final var document = new Parser().parse(adoc.toString(), new Parser.ParserContext(null));
+
+        final var sequential = new AsciidoctorLikeHtmlRenderer();
+        sequential.visit(document);
+
+        final var tasks = new AtomicInteger();
+        final var executor = Executors.newFixedThreadPool(4);
+        try {
+            final var concurrent = new AsciidoctorLikeHtmlRenderer(new AsciidoctorLikeHtmlRenderer.Configuration()
+                    .setAttributes(Map.of())
+                    .setExecutor(task -> {
+                        tasks.incrementAndGet();
+                        executor.execute(task);
+                    }));
+            concurrent.visit(document);
+            assertEquals(sequential.result(), concurrent.result());
+            assertEquals(24, tasks.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void streaming() {
+        final var document = new Parser().parse("""
+                = Page
+                :toc:
+
+                == First
+
+                A paragraph with a footnote:[the note].
+
+                [cols="1,1"]
+                |===
+                |a |b
+                |c |d
+                |===
+
+                == Second
+
+                * item 1
+                * item 2
+                """, new Parser.ParserContext(null));
+
+        final var inMemory = new AsciidoctorLikeHtmlRenderer();
+        inMemory.visit(document);
+        final var expected = inMemory.result();
+
+        final var out = new StringBuilder();
+        final var streaming = new AsciidoctorLikeHtmlRenderer();
+        streaming.visit(document, out, 16); // small threshold to force intermediate writes
+        assertEquals(expected, out.toString());
+        assertEquals("", streaming.result());
+    }
+
     @Test
     void embeddedImage(@TempDir final Path work) throws IOException {
         final var base64 = "iVBORw0KGgoAAAANSUhEUgAAACQAAAAkCAYAAADhAJiYAAAAAXNSR0IArs4c6QAAAIRlWElmTU0AKgAAAAgABQESAAMAAAABAAEAAAEaAAUAAAABAAAASgEbAAUAAAABAAAAUgEoAAMAAAABAAIAAIdpAAQAAAABAAAAWgAAAAAAAACWAAAAAQAAAJYAAAABAAOgAQADAAAAAQABAACgAgAEAAAAAQAAACSgAwAEAAAAAQAAACQAAAAAWFiVFgAAAAlwSFlzAAAXEgAAFxIBZ5/SUgAAAVlpVFh0WE1MOmNvbS5hZG9iZS54bXAAAAAAADx4OnhtcG1ldGEgeG1sbnM6eD0iYWRvYmU6bnM6bWV0YS8iIHg6eG1wdGs9IlhNUCBDb3JlIDUuNC4wIj4KICAgPHJkZjpSREYgeG1sbnM6cmRmPSJodHRwOi8vd3d3LnczLm9yZy8xOTk5LzAyLzIyLXJkZi1zeW50YXgtbnMjIj4KICAgICAgPHJkZjpEZXNjcmlwdGlvbiByZGY6YWJvdXQ9IiIKICAgICAgICAgICAgeG1sbnM6dGlmZj0iaHR0cDovL25zLmFkb2JlLmNvbS90aWZmLzEuMC8iPgogICAgICAgICA8dGlmZjpPcmllbnRhdGlvbj4xPC90aWZmOk9yaWVudGF0aW9uPgogICAgICA8L3JkZjpEZXNjcmlwdGlvbj4KICAgPC9yZGY6UkRGPgo8L3g6eG1wbWV0YT4KTMInWQAACC9JREFUWAm1WHuMXFUZ/92Zfczszmu7rlowgCZC20TXpA1afND6QqFbEGlNFF8pUohRREGqS0wLcWspJkI0kbd/NIKLJs7e2ZZX3YKPaG01qCGoaazBUOxj595578zcOf6+c++5Ozu7Lbs1Pcmde+53vu873/t8Z4D/Z2xXkXnkagHYPKRzATDCPFcYhO38nM9+2CdX6K3GVfRcbHlmnlOqSyPY+Sx+qxQO8LGdl2aJlDU7X/xsvskXQyvCrLeayLlXIJbYiLyrUOSTSK+E7X5VszgEX+DF8GvDOTuBRBgZSu1CjPu28AfOJ6G5qe/gKXcZ1lgNGLe2bfh606ULdEh1a6Y59yvoTw2jJrKpbVD1G1CglZLpQdTV3RpnOc5xLBmNxQI59ziel7hxs6HWOWd3EEst2PlhDV9igC/NQkbjRusuJFJDKBYagHVHKFB/egeKzjGk0gxo654Qfk4mRtN9pXcym1qBJe7Ve0mQP3DId6XtfAn7PYVn6grZ/LXh+iKFWpqFhGmzuVtboFh4Fa3GDr1PEn6Ki0tHMg+hUjyIXsoXiYwx2CM6I9XZlYGF9ZitOZ/QmosFxBIyxlVPSLR9yk/1vcXLsa+sMKVr0za9bpIhRD7bidFMtLedl/1Adg5qdibIs/mNDO7PaJg5Omzn8QDXxVMnls/BP4Msr++yw0GBW+1+k4XvElQqzPLo7f4GlmTT1zGQyWIgtQc558ewCJMRYSkouBW6N4V615iGXe5XKj0/qx9jgV9Qw5zjBBo/EfLKls+j1WqYLCpMOB6emaErT60N1yfyO7TbJgtcP/UeDTfJESLNnZzZQssP+4Wtp/u7tE5aa9yk5mZEmjuRTvei5Z1kWB9DN8PJ6tptltF1coxHylEkkgL3y8BLUOH6kiZTQYBOuu/WFpAAzbl+Vgkju7BWw18gfCL/NUy6H8OvOH+uKXjXh3vZ7qc1rB3+QFDtQ6TFTMLgzL+gXTXh/At7VW9ImnN/E7jwCPb+04dPOM8HsKN0VSzEncjPwg0Pkywhkj9Z2GVS5CQ4JXPiyfej4dHk1iiutGY0mZ3/HGL970Wd55iGv92Hw7oNxSLo3gtRcr4d7mVFbg/hnnOnhptkCZFONzGSiyY5WkXOqxw1N2P8lTgD+d+BJaY0WILfuMHOPxqslTFZvdCQkeaRAF5hArxVw40XQiQmZ9vcnz4YpLlXGKWmF6FEjZXlp7lgxJJ38kS/gOeYUPvwVTqkaUaOenMUBafAdO9jB/A9DZOfSH2UAe4SHueXDz9wYP7+IYFMxsf9rBINbKfia5T/SYiTc97GgK0G59hDGm7OMPkw1XjS2aYDPMd2xHY+FNLbzrd0GdhXkTLxQQ03yRMgdUi4KQCrHbRCnGnuIKZuCRkq7EIyFaOmDnqioxp+bLVvGflYDWmOgD+m70HZPYLzU/xos+5IZidK7suI00gRdZfGXbeO9LPn3Nw2c1NQIyxLnMDBZr0WeRy56Z1ANIVo13UBxi5ckTyu42YrO0MzLEvxbItis+WxLNyK/xRXYCTt1yV7+n3cdytR34imlmGlzk6LiSJxq/ej+IaXfhtmWecjjI+f0UoDkKPTKQNes4TevgRmyn/DyMA7NL6462JW6fXrfcsI/RB5mhZXkHKOqHkremJrkWR1EPELbpOwm7Ax80iogGbYKZAAJWO2M+Wffq0f9Z7P0rY3oS85DIverUiAq9f47EF35GF8PPV3zUc0fJIqiGVkZE+cx8p8A0vCFvSlLkCL8taqsvYPWKSt1x7GtW8+7luGVm0bcy1kFoylzPcvT12GaIRHhjWCTNqHOtSS+vP5IXug/Ro46ayBp75MQa7jkZLQ9i/XaJUZD9FoFJ63mrh/0ride2jgQhYKFiC9zXa6YiL/BTL+M930IvYWV8Fr3UwzXY94IsMGTCwGVEu/47uEnt6P0jV0L41RLdW5+ARa1h4G8GNIZ86H6+TIZ2Re7Jk9T/sW6WWIAE9Xlb4ImvuWIZKG3uYJL6f9sw2l21bbmWF1l7Psp9rlBtfO36LLgLS1dmFEg03TZ3CCd0fad6x63r2IUeNp979s6h/Uq1m6xc7/gEF5DS0UoaV6Uat4tEgDsb4edLF1Va0PoBG7nz31ek0zMnAfy8BhxGXN84uiDvzZdDc7z48hcysVTWLxCbYWrL61G+ndF0l0Nzl+GMvSER0fpwpyhh3gs44x1ktXSSwNYzD9Br4B9mdoNn7PxBij2xpoqRwzN8pz7jZsGPi+vhhsXTNbNkgyVyBdD4JaEnf/inj/SlTLJeIdofbD6KOGjAwyfJWke9jk34dIb52Z8wotFUO5dCm6jv8FraFv0IKfZ3ZejBidIDRF3vst602MsUE0ai5mGivxyaFjYVYTRcZcl0nqyujLX4Z+3tOrpSqZJDCQHtbBO02zl92tqDYuYbbcgauHePNQGZ2+EtyK8yt58m/IjKGaXoVqcTPdPYUKdRrMrKI7eautlXiepdHTfZXey9z19Ac6/hDYxFu6jAqopXMUyzIX8Y+EFqYdG1HrRxTi2YCOAc9uQNoRS9GnfMS1URUUSHYEm60qcZ/Uj+1einzhZsbWp5htCRQKNbQiv9a8boQHqd/BmGshKf1SGDcvcxHtXgvH2QKrNYyNA9fgKgojLpXqLO+Duub6bKLdfehnSVdSPWW8RVLe4kHaRVze1dIHsSH9RcJWsBPYAq/+LlzNoip7mUuBT3iaX0FsH1IGOk5lvaHBkTSXnil7gs0zhwjcPjQ9hWsfnXu0ry04FwLfGnOFm4PcsbGsdQrTjr8Inv8D6yTlAwxy6EMAAAAASUVORK5CYII=";
@@ -1487,6 +1703,96 @@ class AsciidoctorLikeHtmlRendererTest {
                 """);
     }
 
+    @Test
+    void sourceHighlighter() {
+        assertRenderingContent("""
+                        :source-highlighter: yupiik
+
+                        [source,properties]
+                        ----
+                        # the version
+                        prefix.version = 1.2.3 <1>
+                        ----
+                        <.> Version.""",
+                """
+                 <div class="listingblock">
+                 <div class="content">
+                 <pre class="highlightjs highlight"><code class="language-properties hljs" data-lang="properties" data-highlighted="yes"><span class="hljs-comment"># the version</span>
+                <span class="hljs-attr">prefix.version</span><span class="hljs-punctuation"> = </span><span class="hljs-string">1.2.3 <b class="conum">(1)</b></span>
+                </code></pre>
+                 </div>
+                 </div>
+                 <div class="colist arabic">
+                  <ol>
+                   <li>
+                 <span>
+                Version.
+                 </span>
+                   </li>
+                  </ol>
+                 </div>
+                """);
+    }
+
+    @Test
+    void sourceHighlighterCallOuts() {
+        assertRenderingContent("""
+                        :source-highlighter: yupiik
+
+                        [source,java]
+                        ----
+                        int a = 1; // <1>
+                        foo(2); <2>
+                        ----
+                        <1> One.
+                        <2> Two.""",
+                """
+                 <div class="listingblock">
+                 <div class="content">
+                 <pre class="highlightjs highlight"><code class="language-java hljs" data-lang="java" data-highlighted="yes"><span class="hljs-keyword">int</span> a = <span class="hljs-number">1</span>; <span class="hljs-comment">// <b class="conum">(1)</b></span>
+                foo(<span class="hljs-number">2</span>); <b class="conum">(2)</b>
+                </code></pre>
+                 </div>
+                 </div>
+                 <div class="colist arabic">
+                  <ol>
+                   <li>
+                 <span>
+                One.
+                 </span>
+                   </li>
+                   <li>
+                 <span>
+                Two.
+                 </span>
+                   </li>
+                  </ol>
+                 </div>
+                """);
+    }
+
+    @Test
+    void sourceHighlighterLinenums() {
+        assertRenderingContent("""
+                        :source-highlighter: yupiik
+
+                        [%linenums]
+                        [source,xml]
+                        ----
+                        <a
+                          b="c">d</a>
+                        ----""",
+                """
+                 <div class="listingblock">
+                 <div class="content">
+                 <pre class="highlightjs highlight linenums"><code class="language-xml hljs" data-lang="xml" data-linenums="true" data-highlighted="yes"><span class="linenums">1</span><span class="hljs-tag">&lt;<span class="hljs-name">a</span></span>
+                <span class="linenums">2</span><span class="hljs-tag">  <span class="hljs-attr">b</span>=<span class="hljs-string">&quot;c&quot;</span>&gt;</span>d<span class="hljs-tag">&lt;/<span class="hljs-name">a</span>&gt;</span>
+                </code></pre>
+                 </div>
+                 </div>
+                """);
+    }
+
     @Test
     void jsonSchemaMinisiteGeneratorSupport() {
         assertRenderingContent("= io.yupiik.test.MyRootObject\n" +
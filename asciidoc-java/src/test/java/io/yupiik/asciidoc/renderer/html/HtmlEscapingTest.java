@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.renderer.html;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class HtmlEscapingTest {
+    @Test
+    void noEscaping() {
+        final var value = "nothing to escape here 😀";
+        assertSame(value, HtmlEscaping.INSTANCE.apply(value));
+    }
+
+    @Test
+    void apply() {
+        assertEquals("&lt;a href=&quot;x&quot;&gt;caf&eacute; &amp; &euro;&lt;/a&gt;", HtmlEscaping.INSTANCE.apply("<a href=\"x\">café & €</a>"));
+        assertEquals("&hearts;", HtmlEscaping.INSTANCE.apply("♥"));
+        assertEquals("♧", HtmlEscaping.INSTANCE.apply("♧"));
+    }
+
+    @Test
+    void appendTo() {
+        final var out = new StringBuilder("prefix:");
+        HtmlEscaping.INSTANCE.appendTo(out, "a < b, c");
+        assertEquals("prefix:a &lt; b, c", out.toString());
+    }
+}
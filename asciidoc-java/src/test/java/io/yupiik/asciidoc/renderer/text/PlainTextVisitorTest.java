@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.renderer.text;
+
+import io.yupiik.asciidoc.parser.Parser;
+import io.yupiik.asciidoc.renderer.html.AsciidoctorLikeHtmlRenderer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static io.yupiik.asciidoc.renderer.text.PlainTextVisitor.Kind.CODE;
+import static io.yupiik.asciidoc.renderer.text.PlainTextVisitor.Kind.TEXT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlainTextVisitorTest {
+    private static final String DOC = """
+            = The Title
+            :product: Yupiik
+
+            Intro for {product}.
+
+            == Install
+
+            Run the *installer* from link:https://yupiik.io[the site].
+
+            [source,bash]
+            ----
+            ./install.sh
+            ----
+
+            === Check
+
+            * first
+            * second
+
+            ifdef::missing[]
+            Hidden.
+            endif::[]
+
+            == Usage
+
+            |===
+            |a |b
+            |===
+
+            NOTE: done.
+            """;
+
+    @Test
+    void visitor() {
+        final var document = new Parser().parse(DOC, new Parser.ParserContext(null));
+        final var visitor = new PlainTextVisitor();
+        visitor.visit(document);
+        final var projection = visitor.result();
+        assertEquals("The Title", projection.title());
+        assertEquals(List.of(
+                new PlainTextVisitor.Chunk(TEXT, List.of(), "Intro for Yupiik.", 0),
+                new PlainTextVisitor.Chunk(TEXT, List.of("Install"), "Run the installer from the site.", 19),
+                new PlainTextVisitor.Chunk(CODE, List.of("Install"), "./install.sh", 53),
+                new PlainTextVisitor.Chunk(TEXT, List.of("Install", "Check"), "first\nsecond", 67),
+                new PlainTextVisitor.Chunk(TEXT, List.of("Usage"), "a | b", 81),
+                new PlainTextVisitor.Chunk(TEXT, List.of("Usage"), "NOTE: done.", 88)
+        ), projection.chunks());
+        for (final var chunk : projection.chunks()) {
+            assertEquals(chunk.text(), projection.text().substring(chunk.offset(), chunk.offset() + chunk.text().length()));
+        }
+    }
+
+    @Test
+    void listener() {
+        final var document = new Parser().parse(DOC, new Parser.ParserContext(null));
+        final var expected = new PlainTextVisitor();
+        expected.visit(document);
+
+        final var text = new PlainTextVisitor();
+        final var html = new AsciidoctorLikeHtmlRenderer(new AsciidoctorLikeHtmlRenderer.Configuration()
+                .setAttributes(Map.of())
+                .setListener(text));
+        html.visit(document);
+        assertTrue(html.result().contains("<strong>installer</strong>"), html.result());
+        assertEquals(expected.result(), text.result());
+    }
+}
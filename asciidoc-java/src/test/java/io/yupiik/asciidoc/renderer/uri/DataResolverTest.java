@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2020 - present - Yupiik SAS - https://www.yupiik.com
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.yupiik.asciidoc.renderer.uri;
+
+import com.sun.net.httpserver.HttpServer;
+import io.yupiik.asciidoc.parser.Parser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DataResolverTest {
+    @Test
+    void memoized(@TempDir final Path work) throws IOException {
+        Files.writeString(work.resolve("img.svg"), "<svg/>");
+        final var resolver = new DataResolver(work);
+        assertEquals(svg("PHN2Zy8+"), resolver.base64("img.svg"));
+
+        Files.delete(work.resolve("img.svg"));
+        assertEquals(svg("PHN2Zy8+"), resolver.base64("img.svg"));
+    }
+
+    @Test
+    void localDiskCache(@TempDir final Path work) throws IOException {
+        final var image = Files.writeString(work.resolve("img.svg"), "<svg/>");
+        final var cache = work.resolve("cache");
+        assertEquals(svg("PHN2Zy8+"), new DataResolver(work).diskCache(cache).base64("img.svg"));
+
+        final var reads = new AtomicInteger();
+        final var cached = new DataResolver(work) {
+            @Override
+            public DataUri apply(final String path) {
+                reads.incrementAndGet();
+                return super.apply(path);
+            }
+        }.diskCache(cache);
+        assertEquals(svg("PHN2Zy8+"), cached.base64("img.svg"));
+        assertEquals(0, reads.get());
+
+        // a modified file is read again
+        Files.writeString(image, "<svg></svg>");
+        Files.setLastModifiedTime(image, FileTime.fromMillis(Files.getLastModifiedTime(image).toMillis() + 10_000));
+        assertEquals(svg("PHN2Zz48L3N2Zz4="), new DataResolver(work).diskCache(cache).base64("img.svg"));
+    }
+
+    @Test
+    void httpDiskCache(@TempDir final Path work) throws IOException {
+        final var requests = new AtomicInteger();
+        final var server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/logo.svg", exchange -> {
+            requests.incrementAndGet();
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            final var body = "<svg/>".getBytes(UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (final var out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        try {
+            final var url = "http://localhost:" + server.getAddress().getPort() + "/logo.svg";
+            final var cache = work.resolve("cache");
+            try (final var resolver = new DataResolver(work).diskCache(cache)) {
+                assertEquals("data:image/svg;base64,PHN2Zy8+", resolver.base64(url));
+                assertEquals("data:image/svg;base64,PHN2Zy8+", resolver.base64(url));
+            }
+            assertEquals(1, requests.get());
+
+            try (final var resolver = new DataResolver(work).diskCache(cache)) { // revalidated, not downloaded
+                assertEquals("data:image/svg;base64,PHN2Zy8+", resolver.base64(url));
+            }
+            assertEquals(2, requests.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void concurrentEncoding(@TempDir final Path work) throws Exception {
+        final var requests = new AtomicInteger();
+        final var server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/logo.svg", exchange -> {
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(200); // let the other callers wait for this fetch
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            final var body = "<svg/>".getBytes(UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (final var out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        final var executor = Executors.newFixedThreadPool(4);
+        try (final var resolver = new DataResolver(work)) {
+            final var url = "http://localhost:" + server.getAddress().getPort() + "/logo.svg";
+            final var results = new ArrayList<Future<String>>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> resolver.base64(url)));
+            }
+            for (final var result : results) {
+                assertEquals("data:image/svg;base64,PHN2Zy8+", result.get());
+            }
+            assertEquals(1, requests.get());
+            assertTrue(resolver.cache().isEmpty(), () -> resolver.cache().toString()); // only the encoded value is kept
+        } finally {
+            executor.shutdownNow();
+            server.stop(0);
+            ((ExecutorService) server.getExecutor()).shutdownNow();
+        }
+    }
+
+    @Test
+    void prefetch(@TempDir final Path work) throws IOException {
+        Files.writeString(work.resolve("a.svg"), "<svg/>");
+        Files.writeString(work.resolve("b.svg"), "<svg></svg>");
+        Files.writeString(work.resolve("c.svg"), "<svg />");
+        final var document = new Parser().parse("""
+                = Images
+
+                image::a.svg[A]
+
+                ifdef::missing[]
+                image::b.svg[B]
+                endif::[]
+
+                ifdef::present[]
+                link:https://yupiik.io[image:c.svg[C]]
+                endif::[]
+
+                link:https://yupiik.io[]
+
+                image::missing.svg[Missing]
+                """, new Parser.ParserContext(null));
+
+        try (final var resolver = new DataResolver(work)) {
+            resolver.prefetch(document, key -> "present".equals(key) ? "" : null);
+
+            Files.delete(work.resolve("a.svg"));
+            Files.delete(work.resolve("b.svg"));
+            Files.delete(work.resolve("c.svg"));
+            assertEquals(svg("PHN2Zy8+"), resolver.base64("a.svg"));
+            assertEquals(svg("PHN2ZyAvPg=="), resolver.base64("c.svg"));
+            assertThrows(RuntimeException.class, () -> resolver.base64("b.svg")); // branch not rendered so not prefetched
+        }
+    }
+
+    private static String svg(final String base64) { // mime type detection depends on the platform for local files
+        final var mimeType = new DataResolver(Path.of(".")).apply("missing.svg").mimeType();
+        return "data:" + mimeType + ";base64," + base64;
+    }
+}
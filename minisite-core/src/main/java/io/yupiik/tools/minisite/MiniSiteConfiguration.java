@@ -87,6 +87,9 @@ public class MiniSiteConfiguration {
     private List<String> requires;
     private AsciidoctorConfiguration asciidoctorConfiguration;
     private Asciidoc asciidoc;
+    private Path yupiikAsciidocCache;
+    @Builder.Default
+    private long yupiikAsciidocCacheMaxSize = 256 * 1024 * 1024;
     private boolean reverseBlogOrder;
     private boolean addIndexRegistrationPerCategory;
     private boolean skipIndexTitleDocumentationText;
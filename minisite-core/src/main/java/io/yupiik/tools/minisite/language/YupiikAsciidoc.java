@@ -1,12 +1,13 @@
 package io.yupiik.tools.minisite.language;
 
+import io.yupiik.asciidoc.parser.DocumentCache;
 import io.yupiik.asciidoc.parser.Parser;
 import io.yupiik.asciidoc.parser.internal.Reader;
 import io.yupiik.asciidoc.parser.resolver.ContentResolver;
+import io.yupiik.asciidoc.parser.resolver.IncludeCache;
 import io.yupiik.asciidoc.renderer.html.AsciidoctorLikeHtmlRenderer;
 import io.yupiik.tools.common.asciidoctor.AsciidoctorConfiguration;
 import io.yupiik.tools.minisite.MiniSiteConfiguration;
-import lombok.RequiredArgsConstructor;
 
 import java.nio.file.Path;
 import java.util.Collection;
@@ -45,7 +46,8 @@ public class YupiikAsciidoc implements Asciidoc {
                         .map(Map::entrySet)
                         .flatMap(Collection::stream)
                         .collect(toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> b)),
-                configuration.getSource().resolve("content").getParent().toAbsolutePath().normalize());
+                configuration.getSource().resolve("content").getParent().toAbsolutePath().normalize(),
+                configuration.getYupiikAsciidocCache() == null ? null : new DocumentCache(configuration.getYupiikAsciidocCache(), configuration.getYupiikAsciidocCacheMaxSize()));
     }
 
     @Override
@@ -53,17 +55,25 @@ public class YupiikAsciidoc implements Asciidoc {
         return options.apply(new Instance());
     }
 
-    @RequiredArgsConstructor
     private static class Options {
         private final Map<String, String> attributes;
         private final Path base;
+        private final DocumentCache documentCache;
+        private final IncludeCache includeCache = new IncludeCache(); // partials are often included by most pages
+        private final Parser parser; // thread safe so shared by all pages
+
+        private Options(final Map<String, String> attributes, final Path base, final DocumentCache documentCache) {
+            this.attributes = attributes;
+            this.base = base;
+            this.documentCache = documentCache;
+            this.parser = new Parser(attributes);
+        }
     }
 
     private static class Instance implements AsciidocInstance {
         @Override
         public Header header(final String content, final Object options) {
-            final var attributes = ((Options) options).attributes;
-            final io.yupiik.asciidoc.model.Header header = getOrCreateParser(attributes)
+            final io.yupiik.asciidoc.model.Header header = ((Options) options).parser
                     .parseHeader(new Reader(List.of(content.split("\n")/*no Pattern - see fast-path branch in the impl*/)));
             return new Header(header.title(), header.attributes());
         }
@@ -71,16 +81,16 @@ public class YupiikAsciidoc implements Asciidoc {
         @Override
         public String convert(final String content, final Object options) {
             final Options opts = (Options) options;
-            final var attributes = ((Options) options).attributes;
             final AsciidoctorLikeHtmlRenderer renderer = new AsciidoctorLikeHtmlRenderer(new AsciidoctorLikeHtmlRenderer.Configuration()
                     .setAttributes(opts.attributes)
-                    .setAssetsBase(opts.base));
-            renderer.visit(getOrCreateParser(attributes).parse(content, new Parser.ParserContext(ContentResolver.of(opts.base))));
+                    .setAssetsBase(opts.base)
+                    .setParser(opts.parser));
+            final var parser = opts.parser;
+            final var context = new Parser.ParserContext(ContentResolver.of(opts.base, opts.includeCache));
+            renderer.visit(opts.documentCache == null ?
+                    parser.parse(content, context) :
+                    opts.documentCache.parse(parser, null, content.lines().toList(), context));
             return renderer.result();
         }
-
-        private Parser getOrCreateParser(final Map<String, String> attributes) { // this is a lightweight instance so no need to cache it normally even if we could
-            return new Parser(attributes == null ? Map.of() : attributes);
-        }
     }
 }
@@ -16,8 +16,11 @@
 package io.yupiik.maven.mojo;
 
 import io.yupiik.asciidoc.model.Document;
+import io.yupiik.asciidoc.parser.DocumentCache;
+import io.yupiik.asciidoc.parser.IncrementalParser;
 import io.yupiik.asciidoc.parser.Parser;
 import io.yupiik.asciidoc.parser.resolver.ContentResolver;
+import io.yupiik.asciidoc.parser.resolver.IncludeCache;
 import io.yupiik.asciidoc.renderer.Visitor;
 import io.yupiik.asciidoc.renderer.html.AsciidoctorLikeHtmlRenderer;
 import io.yupiik.asciidoc.renderer.html.ShowerRenderer;
@@ -42,6 +45,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toList;
@@ -112,6 +117,19 @@ public class AsciidocMojo extends AbstractMojo {
     @Parameter(property = "yupiik.asciidoc.watch", defaultValue = "-1")
     private long watch;
 
+    /**
+     * If set, parsed documents are cached in this directory and not parsed again in next builds if they and their includes didn't change.
+     * Ignored in watch mode which re-parses only changed blocks.
+     */
+    @Parameter(property = "yupiik.asciidoc.cache")
+    private String cache;
+
+    /**
+     * Maximum size in bytes of the cache directory, least recently used entries are evicted first.
+     */
+    @Parameter(property = "yupiik.asciidoc.cacheMaxSize", defaultValue = "268435456")
+    private long cacheMaxSize;
+
     /**
      * Should the browser be opened after the rendering in watch mode (ignored otherwise).
      * Can be {@code true}/{@code false}.
@@ -150,20 +168,43 @@ public class AsciidocMojo extends AbstractMojo {
                 .setAttributes(attributes == null ? Map.of() : attributes);
         final var input = Path.of(this.input);
         final var output = Path.of(this.output);
+        final var includeCache = new IncludeCache(); // avoids to re-read included files in watch mode when unchanged
         final ContentResolver resolver;
         if (base != null) {
             final var base = Path.of(this.base);
             configuration.setAssetsBase(base);
-            resolver = ContentResolver.of(base);
+            resolver = ContentResolver.of(base, includeCache);
         } else {
             final var parent = input.toAbsolutePath().getParent().normalize();
-            resolver = ContentResolver.of(parent);
+            resolver = ContentResolver.of(parent, includeCache);
             configuration.setAssetsBase(parent);
         }
 
         try {
             final var parser = new Parser();
-            doRender(input, parser, resolver, output, configuration);
+            final var context = new Parser.ParserContext(resolver);
+            final Function<Path, Document> parse;
+            final Supplier<String> stats;
+            // a single build reads the file on demand, in watch mode it is rewritten while the incremental parser keeps previous lines
+            if (watch >= 0) { // incremental to only re-parse changed blocks in watch mode
+                final var incrementalParser = new IncrementalParser(parser, context);
+                parse = path -> {
+                    try {
+                        return incrementalParser.parse(path, Files.readAllLines(path));
+                    } catch (final IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                };
+                stats = () -> "Parsed " + incrementalParser.reparsedBlocks() + "/" + incrementalParser.blocks() + " blocks, " + includeCache;
+            } else if (cache != null) { // skip the parsing if nothing changed since previous build
+                final var documentCache = new DocumentCache(Path.of(cache), cacheMaxSize);
+                parse = path -> documentCache.parse(parser, path, context);
+                stats = () -> documentCache + ", " + includeCache;
+            } else {
+                parse = path -> parser.parse(path, context);
+                stats = includeCache::toString;
+            }
+            doRender(input, parse, stats, output, configuration);
 
             if (watch < 0) {
                 return;
@@ -176,7 +217,7 @@ public class AsciidocMojo extends AbstractMojo {
                     null, null, this.watch,
                     (opts, a) -> {
                         try {
-                            doRender(input, parser, resolver, output, configuration);
+                            doRender(input, parse, stats, output, configuration);
                         } catch (final IOException e) {
                             getLog().error(e);
                         }
@@ -223,7 +264,7 @@ public class AsciidocMojo extends AbstractMojo {
         }
     }
 
-    private void doRender(final Path input, final Parser parser, final ContentResolver resolver,
+    private void doRender(final Path input, final Function<Path, Document> parser, final Supplier<String> stats,
                           final Path output, final AsciidoctorLikeHtmlRenderer.Configuration configuration) throws IOException {
         if (assets != null && !assets.isEmpty()) {
             try {
@@ -235,17 +276,21 @@ public class AsciidocMojo extends AbstractMojo {
             }
         }
 
-        final Document document;
-        try (final var reader = Files.newBufferedReader(input)) {
-            document = parser.parse(reader, new Parser.ParserContext(resolver));
-        }
+        final var document = parser.apply(input);
+        getLog().debug(stats.get());
 
         final var html = newRenderer(configuration, document);
-        html.visit(document);
         if (output.getParent() != null) {
             Files.createDirectories(output.getParent());
         }
-        Files.writeString(output, html.result());
+        if (html instanceof AsciidoctorLikeHtmlRenderer streaming) {
+            try (final var writer = Files.newBufferedWriter(output)) {
+                streaming.visit(document, writer);
+            }
+        } else {
+            html.visit(document);
+            Files.writeString(output, html.result());
+        }
         getLog().info("Rendered '" + input + "'");
     }
 
@@ -130,6 +130,19 @@ public class MiniSiteMojo extends BaseMojo {
     @Parameter(property = "yupiik.minisite.preferYupiikAsciidoc", defaultValue = "false")
     protected boolean preferYupiikAsciidoc;
 
+    /**
+     * When Yupiik asciidoctor-java is used, directory to cache parsed pages in between builds.
+     * Unchanged pages (including their includes) are then not parsed again.
+     */
+    @Parameter(property = "yupiik.minisite.yupiikAsciidocCache")
+    protected File yupiikAsciidocCache;
+
+    /**
+     * Maximum size in bytes of the {@code yupiikAsciidocCache} directory, least recently used pages are evicted first.
+     */
+    @Parameter(property = "yupiik.minisite.yupiikAsciidocCacheMaxSize", defaultValue = "268435456")
+    protected long yupiikAsciidocCacheMaxSize;
+
     /**
      * Where to read content (layout root) from.
      */
@@ -548,6 +561,8 @@ public class MiniSiteMojo extends BaseMojo {
                 .projectArtifactId(ofNullable(attributes).map(a -> a.get("projectArtifactId")).map(Object::toString).orElseGet(() -> project.getArtifactId()))
                 .asciidoctorConfiguration(this)
                 .asciidoc(createAsciidoc(preferYupiikAsciidoc))
+                .yupiikAsciidocCache(yupiikAsciidocCache == null ? null : yupiikAsciidocCache.toPath())
+                .yupiikAsciidocCacheMaxSize(yupiikAsciidocCacheMaxSize)
                 .createADefault404Page(createADefault404Page)
                 .createRobotsTxt(createRobotsTxt)
                 .createLlmsTxt(createLlmsTxt)